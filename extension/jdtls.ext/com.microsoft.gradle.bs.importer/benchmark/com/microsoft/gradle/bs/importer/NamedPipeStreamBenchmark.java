@@ -0,0 +1,264 @@
+package com.microsoft.gradle.bs.importer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.microsoft.gradle.bs.importer.NamedPipeStream.NamedPipeInputStream;
+import com.microsoft.gradle.bs.importer.NamedPipeStream.NamedPipeOutputStream;
+
+import ch.epfl.scala.bsp4j.BuildTargetIdentifier;
+import ch.epfl.scala.bsp4j.DependencyModule;
+import ch.epfl.scala.bsp4j.DependencyModulesItem;
+import ch.epfl.scala.bsp4j.DependencyModulesResult;
+import ch.epfl.scala.bsp4j.MavenDependencyModule;
+import ch.epfl.scala.bsp4j.MavenDependencyModuleArtifact;
+
+/**
+ * Measures the throughput of the named pipe streams over a loopback Unix domain
+ * socket, with synthetic dependency modules responses written and read the way
+ * the JSON-RPC launcher of the importer does. The byte-at-a-time streams the
+ * importer used before are measured in the same run as the baseline.
+ *
+ * It is compiled by the build into target/benchmark-classes and is not
+ * packaged in the bundle. Run it with the Gson jar of the target platform:
+ *
+ * java -cp target/classes:target/benchmark-classes:lib/bsp4j-2.1.0-M4.jar:gson.jar
+ *     com.microsoft.gradle.bs.importer.NamedPipeStreamBenchmark
+ *     [build targets] [modules per target] [message count]
+ *
+ * The buffer size is set by the com.microsoft.gradle.bs.importer.pipeBufferSize
+ * system property.
+ */
+public class NamedPipeStreamBenchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+
+    private static final int MEASURED_ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int targetCount = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int moduleCount = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+        int messageCount = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        byte[] body = createResponse(targetCount, moduleCount);
+        double baseline = measure(body, messageCount, true);
+        double buffered = measure(body, messageCount, false);
+        System.out.printf("%d responses of %d bytes: %.1f MB/s byte at a time, %.1f MB/s buffered%n",
+                messageCount, body.length, baseline, buffered);
+    }
+
+    /**
+     * Returns the MB/s of the best measured round.
+     */
+    private static double measure(byte[] body, int messageCount, boolean baseline) throws Exception {
+        Path tempDirectory = Files.createTempDirectory("importer-pipe-benchmark");
+        Path socketPath = tempDirectory.resolve("pipe.sock");
+        UnixDomainSocketAddress address = UnixDomainSocketAddress.of(socketPath);
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(address);
+            try (SocketChannel client = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+                client.connect(address);
+                try (SocketChannel accepted = server.accept()) {
+                    OutputStream output = baseline ? new BaselineOutputStream(client)
+                            : new NamedPipeOutputStream(client);
+                    InputStream input = baseline ? new BaselineInputStream(accepted)
+                            : new NamedPipeInputStream(accepted);
+                    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                        run(output, input, body, messageCount);
+                    }
+                    long nanos = Long.MAX_VALUE;
+                    for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                        nanos = Math.min(nanos, run(output, input, body, messageCount));
+                    }
+                    double megabytes = (double) body.length * messageCount / (1024 * 1024);
+                    return megabytes / (nanos / 1e9);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(socketPath);
+            Files.deleteIfExists(tempDirectory);
+        }
+    }
+
+    /**
+     * Creates the JSON-RPC response of the dependency modules of build targets
+     * depending on the same Maven modules, each with its jar and sources jar.
+     */
+    private static byte[] createResponse(int targetCount, int moduleCount) {
+        List<DependencyModulesItem> items = new ArrayList<>();
+        for (int i = 0; i < targetCount; i++) {
+            List<DependencyModule> modules = new ArrayList<>();
+            for (int j = 0; j < moduleCount; j++) {
+                String group = "org.example.group" + (j % 50);
+                String name = "module-" + j;
+                String path = "file:///home/user/.gradle/caches/modules-2/files-2.1/" + group + "/" + name
+                        + "/1.0." + j + "/0123456789abcdef0123456789abcdef01234567/" + name + "-1.0." + j;
+                MavenDependencyModuleArtifact jar = new MavenDependencyModuleArtifact(path + ".jar");
+                MavenDependencyModuleArtifact sources = new MavenDependencyModuleArtifact(path + "-sources.jar");
+                sources.setClassifier("sources");
+                MavenDependencyModule data = new MavenDependencyModule(group, name, "1.0." + j,
+                        Arrays.asList(jar, sources));
+                DependencyModule module = new DependencyModule(name, "1.0." + j);
+                module.setDataKind("maven");
+                module.setData(data);
+                modules.add(module);
+            }
+            BuildTargetIdentifier target = new BuildTargetIdentifier(
+                    "file:///home/user/workspace/project" + i + "/?sourceset=main");
+            items.add(new DependencyModulesItem(target, modules));
+        }
+        Gson gson = new Gson();
+        JsonObject response = new JsonObject();
+        response.addProperty("jsonrpc", "2.0");
+        response.addProperty("id", "1");
+        response.add("result", gson.toJsonTree(new DependencyModulesResult(items)));
+        return gson.toJson(response).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long run(OutputStream output, InputStream input, byte[] body, int messageCount)
+            throws Exception {
+        long start = System.nanoTime();
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            try {
+                byte[] header = ("Content-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+                for (int i = 0; i < messageCount; i++) {
+                    output.write(header);
+                    output.write(body);
+                    output.flush();
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        for (int i = 0; i < messageCount; i++) {
+            readMessage(input);
+        }
+        writer.get();
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Reads a message like the StreamMessageProducer of lsp4j: the headers byte
+     * by byte, then the content in as few reads as the stream allows.
+     */
+    private static byte[] readMessage(InputStream input) throws IOException {
+        ByteArrayOutputStream headers = new ByteArrayOutputStream();
+        int contentLength = -1;
+        boolean newLine = false;
+        while (true) {
+            int c = input.read();
+            if (c == -1) {
+                throw new EOFException();
+            }
+            if (c == '\n') {
+                if (newLine) {
+                    break;
+                }
+                String line = headers.toString(StandardCharsets.US_ASCII).trim();
+                if (line.startsWith("Content-Length:")) {
+                    contentLength = Integer.parseInt(line.substring("Content-Length:".length()).trim());
+                }
+                headers.reset();
+                newLine = true;
+            } else if (c != '\r') {
+                headers.write(c);
+                newLine = false;
+            }
+        }
+        byte[] content = new byte[contentLength];
+        int offset = 0;
+        while (offset < contentLength) {
+            int count = input.read(content, offset, contentLength - offset);
+            if (count == -1) {
+                throw new EOFException();
+            }
+            offset += count;
+        }
+        return content;
+    }
+
+    /**
+     * The input stream of the importer before the pipe was read in bulk: every
+     * byte is one call, a channel read fills at most 1 KB.
+     */
+    private static class BaselineInputStream extends InputStream {
+
+        private ReadableByteChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(1024);
+        private int readyBytes = 0;
+
+        private BaselineInputStream(ReadableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (buffer.position() < readyBytes) {
+                return buffer.get() & 0xFF;
+            }
+            buffer.clear();
+            readyBytes = channel.read(buffer);
+            if (readyBytes == -1) {
+                return -1; // EOF
+            }
+            buffer.flip();
+            return buffer.get() & 0xFF;
+        }
+    }
+
+    /**
+     * The output stream of the importer before the pipe was written in bulk:
+     * arrays are written in 1 KB chunks, without buffering.
+     */
+    private static class BaselineOutputStream extends OutputStream {
+
+        private WritableByteChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(1);
+
+        private BaselineOutputStream(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            buffer.clear();
+            buffer.put((byte) b);
+            buffer.position(0);
+            channel.write(buffer);
+        }
+
+        @Override
+        public void write(byte[] b) throws IOException {
+            final int BUFFER_SIZE = 1024;
+            int blocks = b.length / BUFFER_SIZE;
+            int writeBytes = 0;
+            for (int i = 0; i <= blocks; i++) {
+                int offset = i * BUFFER_SIZE;
+                int length = Math.min(b.length - writeBytes, BUFFER_SIZE);
+                if (length <= 0) {
+                    break;
+                }
+                writeBytes += length;
+                channel.write(ByteBuffer.wrap(b, offset, length));
+            }
+        }
+    }
+}
@@ -33,10 +33,23 @@ export async function startLanguageClientAndWaitForConnection(
             progress.report({
                 message: "Initializing Gradle Language Server",
             });
+            // keeps the workspace script index and the version catalogs of the server up to date
+            const gradleFileWatcher = vscode.workspace.createFileSystemWatcher(
+                "**/*.{gradle,gradle.kts,versions.toml}"
+            );
+            context.subscriptions.push(gradleFileWatcher);
             const clientOptions: LanguageClientOptions = {
-                documentSelector: [{ scheme: "file", language: "gradle" }],
+                documentSelector: [
+                    { scheme: "file", language: "gradle" },
+                    { scheme: "file", pattern: "**/*.gradle.kts" },
+                ],
                 initializationOptions: {
                     settings: getGradleSettings(),
+                    globalStoragePath: context.globalStorageUri.fsPath,
+                    storagePath: context.storageUri?.fsPath,
+                },
+                synchronize: {
+                    fileEvents: gradleFileWatcher,
                 },
             };
             const serverOptions = () => awaitServerConnection(languageServerPipePath);
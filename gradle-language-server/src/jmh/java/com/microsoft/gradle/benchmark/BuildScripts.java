@@ -0,0 +1,63 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.benchmark;
+
+/**
+ * Synthetic build scripts of the benchmarks. The sizes are the values of the
+ * {@code size} parameter of the benchmarks: small is a typical single project
+ * script, huge is the root script of a large multi-project build.
+ */
+public class BuildScripts {
+
+	public static final String SMALL = "small";
+	public static final String MEDIUM = "medium";
+	public static final String HUGE = "huge";
+
+	public static String create(String size) {
+		if (SMALL.equals(size)) {
+			return create(10, 2);
+		} else if (MEDIUM.equals(size)) {
+			return create(100, 20);
+		} else if (HUGE.equals(size)) {
+			return create(1000, 150);
+		}
+		throw new IllegalArgumentException("Unknown script size: " + size);
+	}
+
+	private static String create(int dependencyCount, int taskCount) {
+		StringBuilder builder = new StringBuilder();
+		builder.append("plugins {\n");
+		builder.append("    id 'java'\n");
+		builder.append("    id 'application'\n");
+		builder.append("}\n\n");
+		builder.append("repositories {\n");
+		builder.append("    mavenCentral()\n");
+		builder.append("}\n\n");
+		builder.append("application {\n");
+		builder.append("    mainClass = 'com.example.Main'\n");
+		builder.append("}\n\n");
+		builder.append("dependencies {\n");
+		for (int i = 0; i < dependencyCount; i++) {
+			if (i % 4 == 0) {
+				builder.append("    testImplementation \"org.example.group").append(i).append(":artifact").append(i)
+						.append(":1.").append(i).append(".0\"\n");
+			} else {
+				builder.append("    implementation 'org.example.group").append(i).append(":artifact").append(i)
+						.append(":1.").append(i).append(".0'\n");
+			}
+		}
+		builder.append("}\n\n");
+		for (int i = 0; i < taskCount; i++) {
+			builder.append("tasks.register('task").append(i).append("') {\n");
+			builder.append("    group = 'benchmark'\n");
+			builder.append("    description = \"Task ").append(i).append(" of the benchmark\"\n");
+			builder.append("    doLast {\n");
+			builder.append("        def files = fileTree('src').filter { it.name.endsWith('.java') }\n");
+			builder.append("        println \"task").append(i).append(": ${files.size()} files\"\n");
+			builder.append("    }\n");
+			builder.append("}\n\n");
+		}
+		return builder.toString();
+	}
+}
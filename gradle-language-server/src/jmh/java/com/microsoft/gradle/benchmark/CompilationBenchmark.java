@@ -0,0 +1,51 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.benchmark;
+
+import com.microsoft.gradle.compile.GradleCompilationUnit;
+import com.microsoft.gradle.manager.GradleFilesManager;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import org.codehaus.groovy.control.Phases;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompilationBenchmark {
+
+	@Param({"small", "medium", "huge"})
+	public String size;
+
+	private GradleFilesManager manager;
+	private URI uri;
+
+	@Setup
+	public void setup() {
+		this.uri = Paths.get(System.getProperty("java.io.tmpdir"), "benchmark", "build.gradle").toUri();
+		this.manager = new GradleFilesManager();
+		this.manager.didOpen(this.uri, BuildScripts.create(this.size));
+	}
+
+	@Benchmark
+	public GradleCompilationUnit compile() {
+		GradleCompilationUnit unit = this.manager.getCompilationUnit(this.uri, 1, true);
+		unit.compile(Phases.CANONICALIZATION);
+		return unit;
+	}
+}
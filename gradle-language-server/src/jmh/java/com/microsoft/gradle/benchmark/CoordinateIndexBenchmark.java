@@ -0,0 +1,60 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.benchmark;
+
+import com.microsoft.gradle.index.CoordinateIndex;
+import com.microsoft.gradle.utils.CompletionUtils;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the ranked search of the dependency completion, on indexes of the
+ * size of a local Maven repository and of a Gradle module cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoordinateIndexBenchmark {
+
+	private static int ARTIFACTS_PER_GROUP = 20;
+
+	@Param({"10000", "200000"})
+	public int keyCount;
+
+	private CoordinateIndex index;
+
+	@Setup
+	public void setup() {
+		CoordinateIndex.Builder builder = new CoordinateIndex.Builder();
+		for (int i = 0; i < this.keyCount; i++) {
+			int group = i / ARTIFACTS_PER_GROUP;
+			builder.add("org.example.group" + group + ":artifact" + i, i % 7);
+		}
+		this.index = builder.build();
+	}
+
+	@Benchmark
+	public List<String> searchPrefix() {
+		return this.index.search("org.example.group1", CompletionUtils.MAX_DEPENDENCY_RESULTS);
+	}
+
+	@Benchmark
+	public List<String> searchSubstring() {
+		return this.index.search("artifact99", CompletionUtils.MAX_DEPENDENCY_RESULTS);
+	}
+}
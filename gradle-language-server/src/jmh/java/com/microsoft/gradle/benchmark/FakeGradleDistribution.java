@@ -0,0 +1,54 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.benchmark;
+
+import groovy.lang.GroovyObject;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import org.eclipse.lsp4j.Position;
+
+/**
+ * A Gradle home laid out like a distribution, so the benchmarks do not depend
+ * on the Gradle installations of the machine. The API jars are copies of the
+ * Groovy and lsp4j jars, which have a similar number of classes.
+ */
+public class FakeGradleDistribution implements AutoCloseable {
+
+	private static String VERSION = "8.0";
+
+	private final Path gradleHome;
+
+	public FakeGradleDistribution() throws IOException {
+		this.gradleHome = Files.createTempDirectory("fake-gradle-" + VERSION);
+		Path lib = this.gradleHome.resolve("lib");
+		Path plugins = lib.resolve("plugins");
+		Files.createDirectories(plugins);
+		Files.copy(getJar(GroovyObject.class), lib.resolve("gradle-core-api-" + VERSION + ".jar"));
+		Files.copy(getJar(Position.class), plugins.resolve("gradle-plugins-" + VERSION + ".jar"));
+	}
+
+	public Path getGradleHome() {
+		return this.gradleHome;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try (Stream<Path> paths = Files.walk(this.gradleHome)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	private static Path getJar(Class<?> type) throws IOException {
+		try {
+			return Paths.get(type.getProtectionDomain().getCodeSource().getLocation().toURI());
+		} catch (URISyntaxException e) {
+			throw new IOException(e);
+		}
+	}
+}
@@ -0,0 +1,68 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.benchmark;
+
+import com.microsoft.gradle.manager.GradleFilesManager;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GradleFilesManagerBenchmark {
+
+	@Param({"small", "medium", "huge"})
+	public String size;
+
+	private GradleFilesManager manager;
+	private URI uri;
+	private String content;
+	private Range insertion;
+	private Range deletion;
+	private Position lastLine;
+
+	@Setup
+	public void setup() {
+		this.content = BuildScripts.create(this.size);
+		this.uri = Paths.get(System.getProperty("java.io.tmpdir"), "benchmark", "build.gradle").toUri();
+		this.manager = new GradleFilesManager();
+		this.manager.didOpen(this.uri, this.content);
+		int lineCount = this.content.split("\n", -1).length;
+		Position middle = new Position(lineCount / 2, 0);
+		this.insertion = new Range(middle, middle);
+		this.deletion = new Range(middle, new Position(middle.getLine(), 1));
+		this.lastLine = new Position(lineCount - 1, 0);
+	}
+
+	@Benchmark
+	public String didChange() {
+		// a typed character and its deletion keep the size of the document
+		this.manager.didChange(this.uri, new TextDocumentContentChangeEvent(this.insertion, "a"));
+		this.manager.didChange(this.uri, new TextDocumentContentChangeEvent(this.deletion, ""));
+		return this.manager.getContents(this.uri);
+	}
+
+	@Benchmark
+	public int getOffset() {
+		return this.manager.getOffset(this.content, this.lastLine);
+	}
+}
@@ -0,0 +1,57 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.benchmark;
+
+import com.microsoft.gradle.manager.GradleFilesManager;
+import com.microsoft.gradle.resolver.GradleClassIndex;
+import com.microsoft.gradle.resolver.GradleLibraryResolver;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the first load of the Gradle API classes of a workspace, from a
+ * fake distribution without a class cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GradleLibraryResolverBenchmark {
+
+	private FakeGradleDistribution distribution;
+
+	@Setup
+	public void setup() throws IOException {
+		this.distribution = new FakeGradleDistribution();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		this.distribution.close();
+	}
+
+	@Benchmark
+	public GradleClassIndex loadGradleClasses() {
+		GradleLibraryResolver resolver = new GradleLibraryResolver(new GradleFilesManager());
+		resolver.setGradleWrapperEnabled(false);
+		resolver.setGradleHome(this.distribution.getGradleHome().toString());
+		resolver.loadGradleClasses(null);
+		GradleClassIndex gradleClasses = resolver.getGradleClasses();
+		resolver.dispose();
+		return gradleClasses;
+	}
+}
@@ -0,0 +1,127 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.benchmark;
+
+import com.microsoft.gradle.transport.NamedPipeStream.NamedPipeInputStream;
+import com.microsoft.gradle.transport.NamedPipeStream.NamedPipeOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the named pipe streams over a loopback Unix domain socket. A writer
+ * thread sends messages the way lsp4j writes them, each operation reads one the
+ * way lsp4j reads it, so the throughput times the message size is the MB/s of
+ * the pipe.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NamedPipeStreamBenchmark {
+
+	@Param({"1024", "1048576"})
+	public int messageSize;
+
+	private Path tempDirectory;
+	private ServerSocketChannel server;
+	private SocketChannel client;
+	private SocketChannel accepted;
+	private InputStream input;
+	private Thread writer;
+
+	@Setup
+	public void setup() throws IOException {
+		this.tempDirectory = Files.createTempDirectory("named-pipe-benchmark");
+		UnixDomainSocketAddress address = UnixDomainSocketAddress.of(this.tempDirectory.resolve("pipe.sock"));
+		this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		this.server.bind(address);
+		this.client = SocketChannel.open(StandardProtocolFamily.UNIX);
+		this.client.connect(address);
+		this.accepted = this.server.accept();
+		this.input = new NamedPipeInputStream(this.accepted);
+		OutputStream output = new NamedPipeOutputStream(this.client);
+		byte[] body = createBody(this.messageSize);
+		byte[] header = ("Content-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+		this.writer = new Thread(() -> {
+			try {
+				while (true) {
+					output.write(header);
+					output.write(body);
+					output.flush();
+				}
+			} catch (IOException e) {
+				// the socket is closed by the tear down
+			}
+		}, "named-pipe-benchmark-writer");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException, InterruptedException {
+		this.client.close();
+		this.accepted.close();
+		this.server.close();
+		this.writer.join();
+		Files.deleteIfExists(this.tempDirectory.resolve("pipe.sock"));
+		Files.deleteIfExists(this.tempDirectory);
+	}
+
+	@Benchmark
+	public byte[] readMessage() throws IOException {
+		StringBuilder header = new StringBuilder();
+		// the header byte by byte and the body in bulk, like lsp4j
+		while (!header.toString().endsWith("\r\n\r\n")) {
+			int c = this.input.read();
+			if (c == -1) {
+				throw new IOException("Unexpected end of stream");
+			}
+			header.append((char) c);
+		}
+		int length = Integer.parseInt(header.toString().trim().substring("Content-Length: ".length()));
+		byte[] body = new byte[length];
+		int offset = 0;
+		while (offset < length) {
+			int read = this.input.read(body, offset, length - offset);
+			if (read == -1) {
+				throw new IOException("Unexpected end of stream");
+			}
+			offset += read;
+		}
+		return body;
+	}
+
+	private static byte[] createBody(int length) {
+		byte[] body = new byte[length];
+		Arrays.fill(body, (byte) 'x');
+		for (int i = 0; i < length; i += 7) {
+			body[i] = (byte) ('a' + i % 26);
+		}
+		return body;
+	}
+}
@@ -0,0 +1,68 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.benchmark;
+
+import com.microsoft.gradle.compile.GradleCompilationUnit;
+import com.microsoft.gradle.compile.SemanticTokenVisitor;
+import com.microsoft.gradle.manager.GradleFilesManager;
+import com.microsoft.gradle.semantictokens.SemanticToken;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.codehaus.groovy.control.Phases;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SemanticTokenBenchmark {
+
+	// the lines of an editor viewport
+	private static int VIEWPORT_LINES = 60;
+
+	@Param({"small", "medium", "huge"})
+	public String size;
+
+	private List<SemanticToken> tokens;
+	private Range viewport;
+
+	@Setup
+	public void setup() {
+		URI uri = Paths.get(System.getProperty("java.io.tmpdir"), "benchmark", "build.gradle").toUri();
+		String content = BuildScripts.create(this.size);
+		GradleFilesManager manager = new GradleFilesManager();
+		manager.didOpen(uri, content);
+		GradleCompilationUnit unit = manager.getCompilationUnit(uri, 1, false);
+		unit.compile(Phases.CANONICALIZATION);
+		this.tokens = new SemanticTokenVisitor().visitCompilationUnit(uri, unit);
+		int middle = content.split("\n", -1).length / 2;
+		this.viewport = new Range(new Position(middle, 0), new Position(middle + VIEWPORT_LINES, 0));
+	}
+
+	@Benchmark
+	public int[] encodedTokens() {
+		return SemanticToken.encodedTokens(this.tokens);
+	}
+
+	@Benchmark
+	public int[] encodedTokensInRange() {
+		return SemanticToken.encodedTokens(this.tokens, this.viewport);
+	}
+}
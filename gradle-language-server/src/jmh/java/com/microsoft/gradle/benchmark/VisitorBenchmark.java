@@ -0,0 +1,77 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.benchmark;
+
+import com.microsoft.gradle.compile.CompletionVisitor;
+import com.microsoft.gradle.compile.CompletionVisitor.CompletionContext;
+import com.microsoft.gradle.compile.DocumentSymbolVisitor;
+import com.microsoft.gradle.compile.GradleCompilationUnit;
+import com.microsoft.gradle.compile.SemanticTokenVisitor;
+import com.microsoft.gradle.manager.GradleFilesManager;
+import com.microsoft.gradle.semantictokens.SemanticToken;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.codehaus.groovy.control.Phases;
+import org.eclipse.lsp4j.DocumentSymbol;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the visitors of the requests on a compiled unit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VisitorBenchmark {
+
+	@Param({"small", "medium", "huge"})
+	public String size;
+
+	private URI uri;
+	private GradleCompilationUnit unit;
+	private SemanticTokenVisitor semanticTokenVisitor;
+	private DocumentSymbolVisitor documentSymbolVisitor;
+	private CompletionVisitor completionVisitor;
+
+	@Setup
+	public void setup() {
+		this.uri = Paths.get(System.getProperty("java.io.tmpdir"), "benchmark", "build.gradle").toUri();
+		GradleFilesManager manager = new GradleFilesManager();
+		manager.didOpen(this.uri, BuildScripts.create(this.size));
+		this.unit = manager.getCompilationUnit(this.uri, 1, false);
+		this.unit.compile(Phases.CANONICALIZATION);
+		this.semanticTokenVisitor = new SemanticTokenVisitor();
+		this.documentSymbolVisitor = new DocumentSymbolVisitor();
+		this.completionVisitor = new CompletionVisitor();
+	}
+
+	@Benchmark
+	public List<SemanticToken> semanticTokens() {
+		return this.semanticTokenVisitor.visitCompilationUnit(this.uri, this.unit);
+	}
+
+	@Benchmark
+	public List<DocumentSymbol> documentSymbols() {
+		return this.documentSymbolVisitor.visitCompilationUnit(this.uri, this.unit);
+	}
+
+	@Benchmark
+	public CompletionContext completion() {
+		return this.completionVisitor.visitCompilationUnit(this.uri, this.unit);
+	}
+}
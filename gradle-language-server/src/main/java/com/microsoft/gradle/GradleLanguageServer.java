@@ -30,6 +30,8 @@ import org.eclipse.lsp4j.SetTraceParams;
 import org.eclipse.lsp4j.TextDocumentSyncKind;
 import org.eclipse.lsp4j.TextDocumentSyncOptions;
 import org.eclipse.lsp4j.WorkspaceFolder;
+import org.eclipse.lsp4j.WorkspaceFoldersOptions;
+import org.eclipse.lsp4j.WorkspaceServerCapabilities;
 import org.eclipse.lsp4j.jsonrpc.Launcher;
 import org.eclipse.lsp4j.services.LanguageClient;
 import org.eclipse.lsp4j.services.LanguageClientAware;
@@ -63,21 +65,24 @@ public class GradleLanguageServer implements LanguageServer, LanguageClientAware
 	@Override
 	public CompletableFuture<InitializeResult> initialize(InitializeParams params) {
 		Map<?, ?> initOptions = new Gson().fromJson((JsonElement) params.getInitializationOptions(), Map.class);
-		// TODO: support multiple workspace folders
+		Object globalStoragePath = initOptions.get("globalStoragePath");
+		this.gradleServices.setGlobalStoragePath(
+				(globalStoragePath instanceof String) ? Paths.get((String) globalStoragePath) : null);
+		Object storagePath = initOptions.get("storagePath");
+		this.gradleServices.setStoragePath((storagePath instanceof String) ? Paths.get((String) storagePath) : null);
+		Object settings = initOptions.get("settings");
+		this.gradleServices.applySetting(settings);
 		List<WorkspaceFolder> workspaceFolders = params.getWorkspaceFolders();
 		if (workspaceFolders != null) {
 			for (WorkspaceFolder folder : workspaceFolders) {
 				URI uri = URI.create(folder.getUri());
-				this.gradleServices.getLibraryResolver().setWorkspacePath(Paths.get(uri));
-				break;
+				this.gradleServices.addWorkspaceFolder(Paths.get(uri));
 			}
 		}
-		Object settings = initOptions.get("settings");
-		this.gradleServices.applySetting(settings);
 		ServerCapabilities serverCapabilities = new ServerCapabilities();
 		SemanticTokensWithRegistrationOptions semanticOptions = new SemanticTokensWithRegistrationOptions();
-		semanticOptions.setFull(new SemanticTokensServerFull(false));
-		semanticOptions.setRange(false);
+		semanticOptions.setFull(new SemanticTokensServerFull(true));
+		semanticOptions.setRange(true);
 		semanticOptions.setDocumentSelector(Arrays.asList(new DocumentFilter("gradle", "file", null)));
 		semanticOptions.setLegend(new SemanticTokensLegend(
 				Arrays.stream(TokenType.values()).map(TokenType::toString).collect(Collectors.toList()),
@@ -92,6 +97,10 @@ public class GradleLanguageServer implements LanguageServer, LanguageClientAware
 		CompletionOptions completionOptions = new CompletionOptions(false, Arrays.asList(".", ":"));
 		serverCapabilities.setCompletionProvider(completionOptions);
 		serverCapabilities.setExecuteCommandProvider(new ExecuteCommandOptions(GradleServices.supportedCommands));
+		WorkspaceFoldersOptions workspaceFoldersOptions = new WorkspaceFoldersOptions();
+		workspaceFoldersOptions.setSupported(true);
+		workspaceFoldersOptions.setChangeNotifications(true);
+		serverCapabilities.setWorkspace(new WorkspaceServerCapabilities(workspaceFoldersOptions));
 		InitializeResult initializeResult = new InitializeResult(serverCapabilities);
 		return CompletableFuture.completedFuture(initializeResult);
 	}
@@ -3,28 +3,37 @@
 
 package com.microsoft.gradle;
 
-import com.google.common.base.Charsets;
-import com.google.common.io.Files;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.microsoft.gradle.compile.CompletionVisitor;
+import com.microsoft.gradle.compile.CompletionVisitor.CompletionContext;
 import com.microsoft.gradle.compile.CompletionVisitor.DependencyItem;
 import com.microsoft.gradle.compile.DocumentSymbolVisitor;
 import com.microsoft.gradle.compile.GradleCompilationUnit;
 import com.microsoft.gradle.compile.SemanticTokenVisitor;
 import com.microsoft.gradle.handlers.CompletionHandler;
 import com.microsoft.gradle.handlers.DefaultDependenciesHandler;
-import com.microsoft.gradle.handlers.DefaultDependenciesHandler.DefaultDependencyItem;
+import com.microsoft.gradle.handlers.GradleCacheCompletionHandler;
 import com.microsoft.gradle.handlers.MavenCentralCompletionHandler;
 import com.microsoft.gradle.handlers.MavenIndexCompletionHandler;
 import com.microsoft.gradle.handlers.MavenLocalCompletionHandler;
+import com.microsoft.gradle.handlers.VersionCatalogCompletionHandler;
+import com.microsoft.gradle.index.ScriptIndexer;
+import com.microsoft.gradle.index.VersionCatalog;
+import com.microsoft.gradle.index.VersionCatalogIndexer;
+import com.microsoft.gradle.kotlin.KotlinCall;
+import com.microsoft.gradle.kotlin.KotlinScript;
+import com.microsoft.gradle.manager.DiagnosticsAggregator;
 import com.microsoft.gradle.manager.GradleFilesManager;
 import com.microsoft.gradle.resolver.GradleClosure;
 import com.microsoft.gradle.resolver.GradleLibraryResolver;
+import com.microsoft.gradle.resolver.GradleResolverManager;
 import com.microsoft.gradle.semantictokens.SemanticToken;
+import com.microsoft.gradle.semantictokens.SemanticTokensCache;
+import com.microsoft.gradle.trace.RequestTracer;
+import com.microsoft.gradle.trace.RequestTracer.Trace;
 import com.microsoft.gradle.utils.LSPUtils;
 import com.microsoft.gradle.utils.Utils;
-import java.io.IOException;
 import java.net.URI;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -35,8 +44,15 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.codehaus.groovy.ast.expr.Expression;
 import org.codehaus.groovy.ast.expr.MethodCallExpression;
@@ -55,21 +71,30 @@ import org.eclipse.lsp4j.DiagnosticSeverity;
 import org.eclipse.lsp4j.DidChangeConfigurationParams;
 import org.eclipse.lsp4j.DidChangeTextDocumentParams;
 import org.eclipse.lsp4j.DidChangeWatchedFilesParams;
+import org.eclipse.lsp4j.DidChangeWorkspaceFoldersParams;
 import org.eclipse.lsp4j.DidCloseTextDocumentParams;
 import org.eclipse.lsp4j.DidOpenTextDocumentParams;
 import org.eclipse.lsp4j.DidSaveTextDocumentParams;
 import org.eclipse.lsp4j.DocumentSymbol;
 import org.eclipse.lsp4j.DocumentSymbolParams;
 import org.eclipse.lsp4j.ExecuteCommandParams;
+import org.eclipse.lsp4j.FileChangeType;
+import org.eclipse.lsp4j.FileEvent;
+import org.eclipse.lsp4j.MessageParams;
+import org.eclipse.lsp4j.MessageType;
 import org.eclipse.lsp4j.Position;
 import org.eclipse.lsp4j.PublishDiagnosticsParams;
 import org.eclipse.lsp4j.Range;
 import org.eclipse.lsp4j.SemanticTokens;
+import org.eclipse.lsp4j.SemanticTokensDelta;
+import org.eclipse.lsp4j.SemanticTokensDeltaParams;
 import org.eclipse.lsp4j.SemanticTokensParams;
+import org.eclipse.lsp4j.SemanticTokensRangeParams;
 import org.eclipse.lsp4j.SymbolInformation;
 import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
-import org.eclipse.lsp4j.TextDocumentIdentifier;
-import org.eclipse.lsp4j.TextDocumentItem;
+import org.eclipse.lsp4j.WorkspaceFolder;
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
+import org.eclipse.lsp4j.jsonrpc.CompletableFutures;
 import org.eclipse.lsp4j.jsonrpc.messages.Either;
 import org.eclipse.lsp4j.services.LanguageClient;
 import org.eclipse.lsp4j.services.LanguageClientAware;
@@ -80,33 +105,104 @@ import org.eclipse.lsp4j.util.Ranges;
 public class GradleServices implements TextDocumentService, WorkspaceService, LanguageClientAware {
 
 	public static final List<String> supportedCommands = Arrays.asList("gradle.getDependencies",
-			"gradle.distributionChanged", "gradle.setPlugins", "gradle.setClosures", "gradle.setScriptClasspaths");
+			"gradle.distributionChanged", "gradle.setPlugins", "gradle.setClosures", "gradle.setScriptClasspaths",
+			"gradle.getStats");
+
+	private static String SCRIPT_INDEX_FILE = "gradle-scripts.index";
+	private static int REQUEST_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+	private static int SEMANTIC_ANALYSIS_DELAY = 500;
+	private static int ANALYSIS_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+	private static long COMPLETION_BUDGET = 1000;
+	private static long MEGABYTE = 1024 * 1024;
 
 	private LanguageClient client;
+	// requests run in parallel on the published snapshots of the documents,
+	// notifications stay on the message thread in the order they are received
+	private ExecutorService requestExecutor = Executors.newFixedThreadPool(REQUEST_THREADS, runnable -> {
+		Thread thread = new Thread(runnable, "Gradle Language Server Request");
+		thread.setDaemon(true);
+		return thread;
+	});
+	// edits are only parsed, the semantic phases run once the typing pauses, the
+	// scripts of a changed classpath are analyzed in parallel
+	private ScheduledExecutorService analysisExecutor = Executors.newScheduledThreadPool(ANALYSIS_THREADS, runnable -> {
+		Thread thread = new Thread(runnable, "Gradle Semantic Analysis");
+		thread.setDaemon(true);
+		return thread;
+	});
+	// <uri, scheduled semantic analysis>
+	private Map<URI, ScheduledFuture<?>> pendingAnalyses = new ConcurrentHashMap<>();
 	private GradleFilesManager gradleFilesManager;
+	private DiagnosticsAggregator diagnosticsAggregator;
+	private RequestTracer tracer;
+	// how long a completion request collects its results, in milliseconds
+	private volatile long completionBudget = COMPLETION_BUDGET;
+	// the resolvers loading their Gradle classes for a request out of budget
+	private Set<GradleLibraryResolver> loadingResolvers = ConcurrentHashMap.newKeySet();
 	private SemanticTokenVisitor semanticTokenVisitor;
+	private SemanticTokensCache semanticTokensCache;
 	private DocumentSymbolVisitor documentSymbolVisitor;
 	private CompletionVisitor completionVisitor;
-	private GradleLibraryResolver libraryResolver;
+	private GradleResolverManager resolverManager;
+	private ScriptIndexer scriptIndexer;
+	private VersionCatalogIndexer catalogIndexer;
 	private DefaultDependenciesHandler defaultDependenciesHandler;
+	private CompletionHandler completionHandler;
 	private MavenCentralCompletionHandler mavenCentralCompletionHandler;
 	private MavenLocalCompletionHandler mavenLocalCompletionHandler;
+	private GradleCacheCompletionHandler gradleCacheCompletionHandler;
 	private MavenIndexCompletionHandler mavenIndexCompletionHandler;
+	private VersionCatalogCompletionHandler versionCatalogCompletionHandler;
 
 	public GradleServices() {
 		this.gradleFilesManager = new GradleFilesManager();
+		this.diagnosticsAggregator = new DiagnosticsAggregator(
+				diagnostics -> this.client.publishDiagnostics(diagnostics));
+		this.tracer = new RequestTracer(message -> {
+			if (this.client != null) {
+				this.client.logMessage(new MessageParams(MessageType.Log, message));
+			}
+		});
 		this.semanticTokenVisitor = new SemanticTokenVisitor();
+		this.semanticTokensCache = new SemanticTokensCache();
 		this.documentSymbolVisitor = new DocumentSymbolVisitor();
 		this.completionVisitor = new CompletionVisitor();
-		this.libraryResolver = new GradleLibraryResolver(this.gradleFilesManager);
+		this.gradleFilesManager.setEvictionListener(uri -> {
+			this.semanticTokensCache.remove(uri);
+			this.semanticTokenVisitor.remove(uri);
+			this.documentSymbolVisitor.remove(uri);
+			this.completionVisitor.remove(uri);
+		});
+		this.resolverManager = new GradleResolverManager(this.gradleFilesManager);
+		this.scriptIndexer = new ScriptIndexer();
+		this.catalogIndexer = new VersionCatalogIndexer();
 		this.defaultDependenciesHandler = new DefaultDependenciesHandler();
+		this.completionHandler = new CompletionHandler();
 		this.mavenCentralCompletionHandler = new MavenCentralCompletionHandler();
 		this.mavenLocalCompletionHandler = new MavenLocalCompletionHandler();
+		this.gradleCacheCompletionHandler = new GradleCacheCompletionHandler();
 		this.mavenIndexCompletionHandler = new MavenIndexCompletionHandler();
+		this.versionCatalogCompletionHandler = new VersionCatalogCompletionHandler();
+	}
+
+	public GradleResolverManager getResolverManager() {
+		return this.resolverManager;
+	}
+
+	public ScriptIndexer getScriptIndexer() {
+		return this.scriptIndexer;
+	}
+
+	public void setStoragePath(Path storagePath) {
+		this.resolverManager.setStoragePath(storagePath);
+		if (storagePath != null) {
+			this.scriptIndexer.setStorageFile(storagePath.resolve(SCRIPT_INDEX_FILE));
+		}
 	}
 
-	public GradleLibraryResolver getLibraryResolver() {
-		return this.libraryResolver;
+	public void setGlobalStoragePath(Path globalStoragePath) {
+		this.mavenLocalCompletionHandler.startIndexing(globalStoragePath);
+		this.gradleCacheCompletionHandler.startIndexing(globalStoragePath);
 	}
 
 	@Override
@@ -118,6 +214,10 @@ public class GradleServices implements TextDocumentService, WorkspaceService, La
 	public void didOpen(DidOpenTextDocumentParams params) {
 		URI uri = URI.create(params.getTextDocument().getUri());
 		gradleFilesManager.didOpen(uri, params.getTextDocument().getText());
+		if (GradleFilesManager.isKotlinScript(uri)) {
+			this.gradleFilesManager.parseKotlinScript(uri);
+			return;
+		}
 		GradleCompilationUnit unit = this.gradleFilesManager.getCompilationUnit(uri,
 				params.getTextDocument().getVersion(), /** forceRecompile */
 				false);
@@ -127,19 +227,37 @@ public class GradleServices implements TextDocumentService, WorkspaceService, La
 	@Override
 	public void didChange(DidChangeTextDocumentParams params) {
 		URI uri = URI.create(params.getTextDocument().getUri());
-		for (TextDocumentContentChangeEvent change : params.getContentChanges()) {
-			gradleFilesManager.didChange(uri, change);
+		Trace trace = this.tracer.start("textDocument/didChange", uri.toString());
+		try {
+			for (TextDocumentContentChangeEvent change : params.getContentChanges()) {
+				gradleFilesManager.didChange(uri, change);
+			}
+			trace.phase("apply");
+			if (GradleFilesManager.isKotlinScript(uri)) {
+				this.gradleFilesManager.parseKotlinScript(uri);
+				trace.phase("parse");
+				return;
+			}
+			GradleCompilationUnit unit = this.gradleFilesManager.parseCompilationUnit(uri,
+					params.getTextDocument().getVersion());
+			trace.phase("parse");
+			parse(uri, unit);
+			trace.phase("publish");
+		} finally {
+			trace.close();
 		}
-		GradleCompilationUnit unit = this.gradleFilesManager.getCompilationUnit(uri,
-				params.getTextDocument().getVersion(), /** forceRecompile */
-				false);
-		compile(uri, unit);
 	}
 
 	@Override
 	public void didClose(DidCloseTextDocumentParams params) {
 		URI uri = URI.create(params.getTextDocument().getUri());
 		gradleFilesManager.didClose(uri);
+		cancelAnalysis(uri);
+		diagnosticsAggregator.remove(uri.toString());
+		semanticTokensCache.remove(uri);
+		semanticTokenVisitor.remove(uri);
+		documentSymbolVisitor.remove(uri);
+		completionVisitor.remove(uri);
 	}
 
 	@Override
@@ -149,7 +267,44 @@ public class GradleServices implements TextDocumentService, WorkspaceService, La
 
 	@Override
 	public void didChangeWatchedFiles(DidChangeWatchedFilesParams params) {
-		// TODO
+		for (FileEvent event : params.getChanges()) {
+			URI uri = URI.create(event.getUri());
+			if ("file".equals(uri.getScheme()) && VersionCatalogIndexer.isCatalog(Paths.get(uri))) {
+				this.catalogIndexer.catalogChanged(Paths.get(uri));
+				continue;
+			}
+			if (!"file".equals(uri.getScheme())
+					|| !(uri.getPath().endsWith(".gradle") || uri.getPath().endsWith(".gradle.kts"))) {
+				continue;
+			}
+			if (event.getType() == FileChangeType.Deleted) {
+				this.scriptIndexer.scriptDeleted(Paths.get(uri));
+			} else {
+				this.scriptIndexer.scriptChanged(Paths.get(uri));
+			}
+		}
+	}
+
+	@Override
+	public void didChangeWorkspaceFolders(DidChangeWorkspaceFoldersParams params) {
+		for (WorkspaceFolder folder : params.getEvent().getRemoved()) {
+			removeWorkspaceFolder(Paths.get(URI.create(folder.getUri())));
+		}
+		for (WorkspaceFolder folder : params.getEvent().getAdded()) {
+			addWorkspaceFolder(Paths.get(URI.create(folder.getUri())));
+		}
+	}
+
+	public void addWorkspaceFolder(Path workspacePath) {
+		this.resolverManager.addWorkspaceFolder(workspacePath);
+		this.scriptIndexer.addWorkspaceFolder(workspacePath);
+		this.catalogIndexer.addWorkspaceFolder(workspacePath);
+	}
+
+	public void removeWorkspaceFolder(Path workspacePath) {
+		this.resolverManager.removeWorkspaceFolder(workspacePath);
+		this.scriptIndexer.removeWorkspaceFolder(workspacePath);
+		this.catalogIndexer.removeWorkspaceFolder(workspacePath);
 	}
 
 	@Override
@@ -160,12 +315,25 @@ public class GradleServices implements TextDocumentService, WorkspaceService, La
 
 	public void applySetting(Object settings) {
 		if (settings instanceof Map) {
-			this.getLibraryResolver().setGradleHome((String) ((Map<?, ?>) settings).get("gradleHome"));
-			this.getLibraryResolver().setGradleVersion((String) ((Map<?, ?>) settings).get("gradleVersion"));
-			this.getLibraryResolver()
-					.setGradleWrapperEnabled((Boolean) ((Map<?, ?>) settings).get("gradleWrapperEnabled"));
-			this.getLibraryResolver().setGradleUserHomePath((String) ((Map<?, ?>) settings).get("gradleUserHome"));
-			this.getLibraryResolver().resolveGradleAPI();
+			Map<?, ?> settingsMap = (Map<?, ?>) settings;
+			this.resolverManager.applySettings((String) settingsMap.get("gradleHome"),
+					(String) settingsMap.get("gradleVersion"), (Boolean) settingsMap.get("gradleWrapperEnabled"),
+					(String) settingsMap.get("gradleUserHome"));
+			this.gradleCacheCompletionHandler.setGradleUserHomePath(this.resolverManager.getGradleUserHomePath());
+			Object slowRequestThreshold = settingsMap.get("slowRequestThreshold");
+			if (slowRequestThreshold instanceof Number) {
+				this.tracer.setSlowRequestThreshold(((Number) slowRequestThreshold).longValue());
+			}
+			Object completionBudget = settingsMap.get("completionBudget");
+			if (completionBudget instanceof Number) {
+				this.completionBudget = ((Number) completionBudget).longValue();
+			}
+			// in megabytes
+			Object documentCacheSize = settingsMap.get("documentCacheSize");
+			if (documentCacheSize instanceof Number) {
+				long size = (long) (((Number) documentCacheSize).doubleValue() * MEGABYTE);
+				this.gradleFilesManager.setDocumentCacheSize(size);
+			}
 		}
 	}
 
@@ -173,6 +341,7 @@ public class GradleServices implements TextDocumentService, WorkspaceService, La
 		if (unit == null) {
 			return;
 		}
+		cancelAnalysis(uri);
 		Set<PublishDiagnosticsParams> diagnostics = new HashSet<>();
 		try {
 			unit.compile(Phases.CANONICALIZATION);
@@ -181,18 +350,91 @@ public class GradleServices implements TextDocumentService, WorkspaceService, La
 		} catch (CompilationFailedException e) {
 			diagnostics = generateDiagnostics(unit.getErrorCollector());
 		}
+		this.gradleFilesManager.setCompilationUnit(uri, unit);
 		for (PublishDiagnosticsParams diagnostic : diagnostics) {
-			client.publishDiagnostics(diagnostic);
+			this.diagnosticsAggregator.publish(diagnostic);
+		}
+	}
+
+	/**
+	 * Publishes the parsed unit of a change. Its syntax errors are reported right
+	 * away, the semantic errors once the typing pauses.
+	 */
+	private void parse(URI uri, GradleCompilationUnit unit) {
+		if (unit == null) {
+			return;
+		}
+		cancelAnalysis(uri);
+		this.gradleFilesManager.setCompilationUnit(uri, unit);
+		ErrorCollector errors = unit.getErrorCollector();
+		if (!errors.hasErrors()) {
+			scheduleAnalysis(uri, unit.getVersion(), SEMANTIC_ANALYSIS_DELAY);
+			return;
+		}
+		// the semantic phases stop at the same syntax errors
+		for (PublishDiagnosticsParams diagnostic : generateDiagnostics(errors)) {
+			this.diagnosticsAggregator.publish(diagnostic);
 		}
 	}
 
-	private void recompileAll() {
-		for (Map.Entry<URI, GradleCompilationUnit> entry : this.gradleFilesManager.getUnitStorage().entrySet()) {
-			URI uri = entry.getKey();
-			GradleCompilationUnit unit = this.gradleFilesManager.getCompilationUnit(uri,
-					entry.getValue().getVersion(), /** forceRecompile */
-					true);
-			compile(uri, unit);
+	private void scheduleAnalysis(URI uri, Integer version, int delay) {
+		ScheduledFuture<?> future = this.analysisExecutor.schedule(() -> analyze(uri, version), delay,
+				TimeUnit.MILLISECONDS);
+		ScheduledFuture<?> previous = this.pendingAnalyses.put(uri, future);
+		if (previous != null) {
+			previous.cancel(false);
+		}
+	}
+
+	private void cancelAnalysis(URI uri) {
+		ScheduledFuture<?> previous = this.pendingAnalyses.remove(uri);
+		if (previous != null) {
+			previous.cancel(false);
+		}
+	}
+
+	private void analyze(URI uri, Integer version) {
+		if (!isPublished(uri, version)) {
+			return;
+		}
+		// the published unit is shared by the requests, the semantic phases run on
+		// a unit of their own
+		GradleCompilationUnit unit = this.gradleFilesManager.getCompilationUnit(uri, version, /** forceRecompile */
+				true);
+		if (unit == null) {
+			return;
+		}
+		Set<PublishDiagnosticsParams> diagnostics;
+		try {
+			unit.compile(Phases.CANONICALIZATION);
+			diagnostics = Collections.singleton(new PublishDiagnosticsParams(uri.toString(), Collections.emptyList()));
+		} catch (CompilationFailedException e) {
+			diagnostics = generateDiagnostics(unit.getErrorCollector());
+		}
+		// drop the results of a document changed in the meantime
+		if (!isPublished(uri, version)) {
+			return;
+		}
+		for (PublishDiagnosticsParams diagnostic : diagnostics) {
+			this.diagnosticsAggregator.publishLater(diagnostic);
+		}
+	}
+
+	// an evicted document keeps its version, its analysis runs on a unit of its
+	// own and does not parse the evicted syntax tree again
+	private boolean isPublished(URI uri, Integer version) {
+		Integer published = this.gradleFilesManager.getPublishedVersion(uri);
+		return published != null && Objects.equals(published, version);
+	}
+
+	private void reanalyze(Set<URI> uris) {
+		// the classpath only matters to the semantic phases, the published syntax
+		// trees stay valid
+		for (URI uri : uris) {
+			Integer version = this.gradleFilesManager.getPublishedVersion(uri);
+			if (version != null) {
+				scheduleAnalysis(uri, version, 0);
+			}
 		}
 	}
 
@@ -226,80 +468,150 @@ public class GradleServices implements TextDocumentService, WorkspaceService, La
 
 	@Override
 	public CompletableFuture<SemanticTokens> semanticTokensFull(SemanticTokensParams params) {
-		URI uri = URI.create(params.getTextDocument().getUri());
+		Trace trace = this.tracer.start("textDocument/semanticTokens/full", params.getTextDocument().getUri());
+		return traced(CompletableFuture.supplyAsync(() -> {
+			trace.phase("queue");
+			URI uri = URI.create(params.getTextDocument().getUri());
+			int[] data = getEncodedSemanticTokens(uri, null, trace);
+			if (data == null) {
+				return new SemanticTokens(Collections.emptyList());
+			}
+			return this.semanticTokensCache.full(uri, data);
+		}, this.requestExecutor), trace);
+	}
+
+	@Override
+	public CompletableFuture<Either<SemanticTokens, SemanticTokensDelta>> semanticTokensFullDelta(
+			SemanticTokensDeltaParams params) {
+		Trace trace = this.tracer.start("textDocument/semanticTokens/full/delta", params.getTextDocument().getUri());
+		return traced(CompletableFuture.supplyAsync(() -> {
+			trace.phase("queue");
+			URI uri = URI.create(params.getTextDocument().getUri());
+			int[] data = getEncodedSemanticTokens(uri, null, trace);
+			if (data == null) {
+				return Either.forLeft(new SemanticTokens(Collections.emptyList()));
+			}
+			Either<SemanticTokens, SemanticTokensDelta> result = this.semanticTokensCache.delta(uri,
+					params.getPreviousResultId(), data);
+			trace.phase("delta");
+			return result;
+		}, this.requestExecutor), trace);
+	}
+
+	@Override
+	public CompletableFuture<SemanticTokens> semanticTokensRange(SemanticTokensRangeParams params) {
+		Trace trace = this.tracer.start("textDocument/semanticTokens/range", params.getTextDocument().getUri());
+		return traced(CompletableFuture.supplyAsync(() -> {
+			trace.phase("queue");
+			URI uri = URI.create(params.getTextDocument().getUri());
+			int[] data = getEncodedSemanticTokens(uri, params.getRange(), trace);
+			if (data == null) {
+				return new SemanticTokens(Collections.emptyList());
+			}
+			return new SemanticTokens(SemanticToken.asList(data));
+		}, this.requestExecutor), trace);
+	}
+
+	private int[] getEncodedSemanticTokens(URI uri, Range range, Trace trace) {
 		GradleCompilationUnit unit = this.gradleFilesManager.getCompilationUnit(uri);
 		if (unit == null) {
-			return CompletableFuture.completedFuture(new SemanticTokens(Collections.emptyList()));
+			return null;
 		}
-		this.semanticTokenVisitor.visitCompilationUnit(uri, unit);
-		List<SemanticToken> semanticTokens = this.semanticTokenVisitor.getSemanticTokens(uri);
+		List<SemanticToken> semanticTokens = this.semanticTokenVisitor.visitCompilationUnit(uri, unit);
+		trace.phase("visit");
 		if (semanticTokens == null) {
-			return CompletableFuture.completedFuture(new SemanticTokens(Collections.emptyList()));
+			return null;
 		}
-		return CompletableFuture.completedFuture(new SemanticTokens(SemanticToken.encodedTokens(semanticTokens)));
+		int[] data = SemanticToken.encodedTokens(semanticTokens, range);
+		trace.phase("encode");
+		return data;
+	}
+
+	/**
+	 * Closes the trace of the request once its result is ready.
+	 */
+	private static <T> CompletableFuture<T> traced(CompletableFuture<T> result, Trace trace) {
+		result.whenComplete((value, error) -> trace.close());
+		return result;
 	}
 
 	@Override
 	public CompletableFuture<List<Either<SymbolInformation, DocumentSymbol>>> documentSymbol(
 			DocumentSymbolParams params) {
-		URI uri = URI.create(params.getTextDocument().getUri());
-		GradleCompilationUnit unit = this.gradleFilesManager.getCompilationUnit(uri);
-		if (unit == null) {
-			return CompletableFuture.completedFuture(Collections.emptyList());
-		}
-		this.documentSymbolVisitor.visitCompilationUnit(uri, unit);
-		List<DocumentSymbol> documentSymbols = this.documentSymbolVisitor.getDocumentSymbols(uri);
-		if (documentSymbols == null) {
-			return CompletableFuture.completedFuture(Collections.emptyList());
-		}
-		List<Either<SymbolInformation, DocumentSymbol>> result = new ArrayList<>();
-		for (DocumentSymbol symbol : documentSymbols) {
-			result.add(Either.forRight(symbol));
-		}
-		return CompletableFuture.completedFuture(result);
+		Trace trace = this.tracer.start("textDocument/documentSymbol", params.getTextDocument().getUri());
+		return traced(CompletableFuture.supplyAsync(() -> {
+			trace.phase("queue");
+			URI uri = URI.create(params.getTextDocument().getUri());
+			List<DocumentSymbol> documentSymbols;
+			if (GradleFilesManager.isKotlinScript(uri)) {
+				KotlinScript script = this.gradleFilesManager.getKotlinScript(uri);
+				documentSymbols = script == null ? null : script.getDocumentSymbols();
+			} else {
+				GradleCompilationUnit unit = this.gradleFilesManager.getCompilationUnit(uri);
+				if (unit == null) {
+					return Collections.emptyList();
+				}
+				documentSymbols = this.documentSymbolVisitor.visitCompilationUnit(uri, unit);
+			}
+			trace.phase("visit");
+			if (documentSymbols == null) {
+				return Collections.emptyList();
+			}
+			List<Either<SymbolInformation, DocumentSymbol>> result = new ArrayList<>();
+			for (DocumentSymbol symbol : documentSymbols) {
+				result.add(Either.forRight(symbol));
+			}
+			return result;
+		}, this.requestExecutor), trace);
 	}
 
 	@Override
 	public CompletableFuture<Either<List<CompletionItem>, CompletionList>> completion(CompletionParams params) {
+		Trace trace = this.tracer.start("textDocument/completion", params.getTextDocument().getUri());
+		long start = System.nanoTime();
+		long budget = this.completionBudget;
+		return traced(CompletableFutures.computeAsync(this.requestExecutor, cancelChecker -> {
+			trace.phase("queue");
+			return getCompletionItems(params, new CompletionBudget(cancelChecker, start, budget), trace);
+		}), trace);
+	}
+
+	private Either<List<CompletionItem>, CompletionList> getCompletionItems(CompletionParams params,
+			CompletionBudget budget, Trace trace) {
 		URI uri = URI.create(params.getTextDocument().getUri());
+		CompletionList catalogItems = getCatalogCompletionList(uri, params.getPosition());
+		trace.phase("versionCatalog");
+		if (catalogItems != null) {
+			return Either.forRight(catalogItems);
+		}
+		budget.checkCanceled();
+		if (GradleFilesManager.isKotlinScript(uri)) {
+			return getKotlinCompletionItems(uri, params.getPosition(), budget, trace);
+		}
 		GradleCompilationUnit unit = this.gradleFilesManager.getCompilationUnit(uri);
 		if (unit == null) {
-			return CompletableFuture.completedFuture(Either.forLeft(Collections.emptyList()));
+			return Either.forLeft(Collections.emptyList());
 		}
-		this.completionVisitor.visitCompilationUnit(uri, unit);
-		List<DependencyItem> dependencies = this.completionVisitor.getDependencies(uri);
-		if (dependencies == null) {
-			return CompletableFuture.completedFuture(Either.forLeft(Collections.emptyList()));
+		CompletionContext context = this.completionVisitor.visitCompilationUnit(uri, unit);
+		trace.phase("visit");
+		if (context == null) {
+			return Either.forLeft(Collections.emptyList());
 		}
-		for (DependencyItem dependency : dependencies) {
+		budget.checkCanceled();
+		for (DependencyItem dependency : context.getDependencies()) {
 			if (Ranges.containsPosition(dependency.getRange(), params.getPosition())) {
-				List<CompletionItem> results = new ArrayList<>();
-				// Add Maven Index results
-				results.addAll(this.mavenIndexCompletionHandler.getDependencyCompletionItems(dependency,
-						params.getPosition()));
-				// Add Maven Local Results
-				results.addAll(this.mavenLocalCompletionHandler.getDependencyCompletionItems(dependency,
-						params.getPosition()));
-				// Add Maven Central Results
-				results.addAll(this.mavenCentralCompletionHandler.getDependencyCompletionItems(dependency,
-						params.getPosition()));
-				// remove duplicate results
-				results = results.stream().filter(Utils.distinctByKey(CompletionItem::getLabel))
-						.collect(Collectors.toList());
-				return CompletableFuture.completedFuture(Either.forLeft(results));
+				return getDependencyCompletionItems(dependency, params.getPosition(), budget, trace);
 			}
 		}
 		// should return empty if in constants
-		List<Expression> constants = this.completionVisitor.getConstants(uri);
-		for (Expression constant : constants) {
+		for (Expression constant : context.getConstants()) {
 			Range range = LSPUtils.toRange(constant);
 			if (Ranges.containsPosition(range, params.getPosition())) {
-				return CompletableFuture.completedFuture(Either.forLeft(Collections.emptyList()));
+				return Either.forLeft(Collections.emptyList());
 			}
 		}
-		Set<MethodCallExpression> methodCalls = this.completionVisitor.getMethodCalls(uri);
 		MethodCallExpression containingCall = null;
-		for (MethodCallExpression call : methodCalls) {
+		for (MethodCallExpression call : context.getMethodCalls()) {
 			Expression expression = call.getArguments();
 			Range range = LSPUtils.toRange(expression);
 			if (Ranges.containsPosition(range, params.getPosition())
@@ -309,81 +621,197 @@ public class GradleServices implements TextDocumentService, WorkspaceService, La
 				containingCall = call;
 			}
 		}
-		this.libraryResolver.loadGradleClasses(uri);
-		boolean javaPluginsIncluded = this.libraryResolver.isJavaPluginsIncluded(uri,
-				this.completionVisitor.getPlugins(uri));
-		CompletionHandler handler = new CompletionHandler();
+		GradleLibraryResolver libraryResolver = this.resolverManager.getResolver(uri);
+		boolean complete = loadGradleClasses(libraryResolver, uri, budget);
+		trace.phase("loadGradleClasses");
+		boolean javaPluginsIncluded = libraryResolver.isJavaPluginsIncluded(uri, context.getPlugins());
+		CompletionHandler handler = this.completionHandler;
 		// check again
 		String projectPath = Utils.getFolderPath(uri);
-		if (containingCall == null && isGradleRoot(uri, params.getPosition())) {
-			return CompletableFuture.completedFuture(Either.forLeft(handler.getCompletionItems(null,
-					Paths.get(uri).getFileName().toString(), this.libraryResolver, javaPluginsIncluded, projectPath)));
+		List<CompletionItem> items;
+		if (containingCall == null && isGradleRoot(context, params.getPosition())) {
+			items = handler.getCompletionItems(null, Paths.get(uri).getFileName().toString(), libraryResolver,
+					javaPluginsIncluded, projectPath);
+		} else {
+			items = handler.getCompletionItems(containingCall, Paths.get(uri).getFileName().toString(),
+					libraryResolver, javaPluginsIncluded, projectPath);
+		}
+		trace.phase("handlers");
+		return complete ? Either.forLeft(items) : Either.forRight(new CompletionList(true, items));
+	}
+
+	private CompletionList getCatalogCompletionList(URI uri, Position position) {
+		String content = this.gradleFilesManager.getContents(uri);
+		if (content == null || !"file".equals(uri.getScheme())) {
+			return null;
+		}
+		List<VersionCatalog> catalogs = this.catalogIndexer.getCatalogs(Paths.get(uri));
+		if (catalogs.isEmpty()) {
+			return null;
+		}
+		int lineStart = this.gradleFilesManager.getOffset(content, new Position(position.getLine(), 0));
+		int offset = lineStart + position.getCharacter();
+		if (lineStart < 0 || offset > content.length()) {
+			return null;
 		}
-		return CompletableFuture.completedFuture(Either.forLeft(handler.getCompletionItems(containingCall,
-				Paths.get(uri).getFileName().toString(), this.libraryResolver, javaPluginsIncluded, projectPath)));
+		return this.versionCatalogCompletionHandler.getCompletionList(catalogs, content.substring(lineStart, offset),
+				position);
+	}
+
+	/**
+	 * Completes a Kotlin DSL script from its block model, with the same handlers
+	 * as the Groovy scripts.
+	 */
+	private Either<List<CompletionItem>, CompletionList> getKotlinCompletionItems(URI uri, Position position,
+			CompletionBudget budget, Trace trace) {
+		KotlinScript script = this.gradleFilesManager.getKotlinScript(uri);
+		if (script == null) {
+			return Either.forLeft(Collections.emptyList());
+		}
+		for (DependencyItem dependency : script.getDependencyItems()) {
+			if (Ranges.containsPosition(dependency.getRange(), position)) {
+				return getDependencyCompletionItems(dependency, position, budget, trace);
+			}
+		}
+		// should return empty if in strings
+		if (script.isInString(position)) {
+			return Either.forLeft(Collections.emptyList());
+		}
+		KotlinCall containingCall = script.getContainingCall(position);
+		GradleLibraryResolver libraryResolver = this.resolverManager.getResolver(uri);
+		boolean complete = loadGradleClasses(libraryResolver, uri, budget);
+		trace.phase("loadGradleClasses");
+		boolean javaPluginsIncluded = libraryResolver.isJavaPluginsIncluded(uri, script.getPlugins());
+		List<CompletionItem> items = this.completionHandler.getBlockCompletionItems(
+				containingCall == null ? null : containingCall.getMethodName(), Paths.get(uri).getFileName().toString(),
+				libraryResolver, javaPluginsIncluded, Utils.getFolderPath(uri));
+		trace.phase("handlers");
+		return complete ? Either.forLeft(items) : Either.forRight(new CompletionList(true, items));
+	}
+
+	/**
+	 * Loads the Gradle classes of the script within the budget. Once the budget
+	 * is spent they are loaded in the background and the block completions
+	 * answer from what is already loaded, such as the ext closures, as an
+	 * incomplete list the client asks again for. Returns false then.
+	 */
+	private boolean loadGradleClasses(GradleLibraryResolver libraryResolver, URI uri, CompletionBudget budget) {
+		if (budget.isExhausted()) {
+			if (this.loadingResolvers.add(libraryResolver)) {
+				CompletableFuture.runAsync(() -> {
+					try {
+						libraryResolver.loadGradleClasses(uri);
+					} finally {
+						this.loadingResolvers.remove(libraryResolver);
+					}
+				}, this.requestExecutor);
+			}
+			return false;
+		}
+		libraryResolver.loadGradleClasses(uri);
+		return !budget.isExhausted();
+	}
+
+	/**
+	 * Completes a dependency from the bundled index, the Gradle module cache, the
+	 * Maven local repository and Maven Central, in this order. The sources left
+	 * once the budget is spent are skipped, the client asks again for the
+	 * incomplete list as the text is typed.
+	 */
+	private Either<List<CompletionItem>, CompletionList> getDependencyCompletionItems(DependencyItem dependency,
+			Position position, CompletionBudget budget, Trace trace) {
+		// the remote search runs while the local indexes are searched
+		CompletableFuture<List<CompletionItem>> remoteResults = this.mavenCentralCompletionHandler
+				.getDependencyCompletionItems(dependency, position);
+		List<CompletionItem> results = new ArrayList<>();
+		results.addAll(this.mavenIndexCompletionHandler.getDependencyCompletionItems(dependency, position));
+		if (!budget.isExhausted()) {
+			results.addAll(this.gradleCacheCompletionHandler.getDependencyCompletionItems(dependency, position));
+		}
+		if (!budget.isExhausted()) {
+			results.addAll(this.mavenLocalCompletionHandler.getDependencyCompletionItems(dependency, position));
+		}
+		trace.phase("localIndexes");
+		if (!budget.isExhausted()) {
+			// the remote results which are not ready yet are returned by a following
+			// request of the incomplete list
+			results.addAll(remoteResults
+					.completeOnTimeout(Collections.emptyList(), budget.getRemainingMillis(), TimeUnit.MILLISECONDS)
+					.exceptionally(error -> Collections.emptyList()).join());
+			trace.phase("mavenCentral");
+			budget.checkCanceled();
+		}
+		// remove duplicate results
+		List<CompletionItem> distinctResults = results.stream().filter(Utils.distinctByKey(CompletionItem::getLabel))
+				.collect(Collectors.toList());
+		// the dependency results depend on the typed text, so they are always incomplete
+		return Either.forRight(new CompletionList(true, distinctResults));
 	}
 
 	@Override
 	public CompletableFuture<Object> executeCommand(ExecuteCommandParams params) {
 		String command = params.getCommand();
-		List<Object> arguments = params.getArguments();
+		if (command.equals("gradle.getStats")) {
+			return CompletableFuture.completedFuture(this.tracer.getStats());
+		}
+		Trace trace = this.tracer.start(command, null);
+		return traced(executeCommand(command, params.getArguments(), trace), trace);
+	}
+
+	private CompletableFuture<Object> executeCommand(String command, List<Object> arguments, Trace trace) {
 		if (command.equals("gradle.getDependencies")) {
 			if (arguments.isEmpty()) {
 				return CompletableFuture.completedFuture(null);
 			}
 			String uriString = new Gson().fromJson((JsonElement) arguments.get(0), String.class);
 			URI uri = URI.create(uriString);
-			if (this.gradleFilesManager.getCompilationUnit(uri) == null) {
-				try {
-					Path uriPath = Paths.get(uri);
-					String content = Files.asCharSource(uriPath.toFile(), Charsets.UTF_8).read();
-					DidOpenTextDocumentParams openDocumentParams = new DidOpenTextDocumentParams(
-							new TextDocumentItem(uriString, "gradle", 1, content));
-					this.didOpen(openDocumentParams);
-					DocumentSymbolParams documentSymbolParams = new DocumentSymbolParams(
-							new TextDocumentIdentifier(uriString));
-					this.documentSymbol(documentSymbolParams);
-				} catch (IOException e) {
-					return CompletableFuture.completedFuture(null);
+			return CompletableFuture.supplyAsync(() -> {
+				trace.phase("queue");
+				List<DocumentSymbol> dependencies;
+				GradleCompilationUnit unit = this.gradleFilesManager.getCompilationUnit(uri);
+				KotlinScript script = this.gradleFilesManager.getKotlinScript(uri);
+				if (script != null) {
+					dependencies = script.getDependencies();
+				} else if (unit != null) {
+					// open documents answer from their unsaved content
+					dependencies = this.documentSymbolVisitor.visitDependencies(uri, unit);
+				} else {
+					dependencies = this.scriptIndexer.getDependencies(Paths.get(uri));
 				}
-			}
-			List<DocumentSymbol> dependencies = this.documentSymbolVisitor.getDependencies(uri);
-			if (dependencies == null) {
-				return CompletableFuture.completedFuture(null);
-			}
-			List<DefaultDependencyItem> result = defaultDependenciesHandler.getDefaultDependencies(dependencies);
-			return CompletableFuture.completedFuture(result);
+				if (dependencies == null) {
+					return null;
+				}
+				return defaultDependenciesHandler.getDefaultDependencies(dependencies);
+			}, this.requestExecutor);
 		} else if (command.equals("gradle.distributionChanged")) {
-			this.libraryResolver.resolveGradleAPI();
+			this.resolverManager.resolveGradleAPI();
 		} else if (command.equals("gradle.setPlugins")) {
 			if (arguments.isEmpty()) {
 				return CompletableFuture.completedFuture(null);
 			}
 			String projectPath = new Gson().fromJson((JsonElement) arguments.get(0), String.class);
 			String[] plugins = new Gson().fromJson((JsonElement) arguments.get(1), String[].class);
-			this.libraryResolver.setProjectPlugins(projectPath, Arrays.asList(plugins));
+			this.resolverManager.getResolver(projectPath).setProjectPlugins(projectPath, Arrays.asList(plugins));
 		} else if (command.equals("gradle.setClosures")) {
 			if (arguments.isEmpty()) {
 				return CompletableFuture.completedFuture(null);
 			}
 			String projectPath = new Gson().fromJson((JsonElement) arguments.get(0), String.class);
 			GradleClosure[] closures = new Gson().fromJson((JsonElement) arguments.get(1), GradleClosure[].class);
-			this.libraryResolver.setExtClosures(projectPath, Arrays.asList(closures));
+			this.resolverManager.getResolver(projectPath).setExtClosures(projectPath, Arrays.asList(closures));
 		} else if (command.equals("gradle.setScriptClasspaths")) {
 			if (arguments.isEmpty()) {
 				return CompletableFuture.completedFuture(null);
 			}
 			String projectPath = new Gson().fromJson((JsonElement) arguments.get(0), String.class);
 			String[] scriptClasspaths = new Gson().fromJson((JsonElement) arguments.get(1), String[].class);
-			this.gradleFilesManager.setScriptClasspaths(projectPath, Arrays.asList(scriptClasspaths));
-			this.recompileAll();
+			this.reanalyze(this.gradleFilesManager.setScriptClasspaths(projectPath, Arrays.asList(scriptClasspaths)));
 		}
 		return CompletableFuture.completedFuture(null);
 	}
 
-	private boolean isGradleRoot(URI uri, Position position) {
-		List<Statement> statements = this.completionVisitor.getStatements(uri);
-		for (Statement statement : statements) {
+	private boolean isGradleRoot(CompletionContext context, Position position) {
+		for (Statement statement : context.getStatements()) {
 			Range range = LSPUtils.toRange(statement);
 			if (Ranges.containsPosition(range, position)) {
 				return false;
@@ -391,4 +819,31 @@ public class GradleServices implements TextDocumentService, WorkspaceService, La
 		}
 		return true;
 	}
+
+	/**
+	 * The time left to a completion request, checked between its phases with its
+	 * cancellation.
+	 */
+	private static class CompletionBudget {
+		private final CancelChecker cancelChecker;
+		private final long deadline;
+
+		CompletionBudget(CancelChecker cancelChecker, long start, long budget) {
+			this.cancelChecker = cancelChecker;
+			this.deadline = start + TimeUnit.MILLISECONDS.toNanos(budget);
+		}
+
+		void checkCanceled() {
+			this.cancelChecker.checkCanceled();
+		}
+
+		boolean isExhausted() {
+			checkCanceled();
+			return this.deadline - System.nanoTime() <= 0;
+		}
+
+		long getRemainingMillis() {
+			return Math.max(0, TimeUnit.NANOSECONDS.toMillis(this.deadline - System.nanoTime()));
+		}
+	}
 }
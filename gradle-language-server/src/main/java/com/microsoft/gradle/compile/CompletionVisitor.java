@@ -7,11 +7,12 @@ import com.microsoft.gradle.utils.LSPUtils;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.codehaus.groovy.ast.ClassCodeVisitorSupport;
 import org.codehaus.groovy.ast.ModuleNode;
 import org.codehaus.groovy.ast.expr.ArgumentListExpression;
@@ -29,9 +30,9 @@ import org.codehaus.groovy.ast.stmt.Statement;
 import org.codehaus.groovy.control.SourceUnit;
 import org.eclipse.lsp4j.Range;
 
-public class CompletionVisitor extends ClassCodeVisitorSupport {
+public class CompletionVisitor {
 
-	public class DependencyItem {
+	public static class DependencyItem {
 		private String text;
 		private Range range;
 
@@ -49,78 +50,157 @@ public class CompletionVisitor extends ClassCodeVisitorSupport {
 		}
 	}
 
-	private URI currentUri;
-	private Map<URI, List<DependencyItem>> dependencies = new HashMap<>();
-	private Map<URI, Set<MethodCallExpression>> methodCalls = new HashMap<>();
-	private Map<URI, List<Statement>> statements = new HashMap<>();
-	private Map<URI, List<Expression>> constants = new HashMap<>();
-	private Map<URI, Set<String>> plugins = new HashMap<>();
+	/**
+	 * The completion context of one compiled version of a document. It is never
+	 * modified once published, so requests can read it on any thread.
+	 */
+	public static class CompletionContext {
+		private final List<DependencyItem> dependencies;
+		private final Set<MethodCallExpression> methodCalls;
+		private final List<Statement> statements;
+		private final List<Expression> constants;
+		private final Set<String> plugins;
+
+		private CompletionContext(ContextVisitor visitor) {
+			this.dependencies = Collections.unmodifiableList(visitor.dependencies);
+			this.methodCalls = Collections.unmodifiableSet(visitor.methodCalls);
+			this.statements = Collections.unmodifiableList(visitor.statements);
+			this.constants = Collections.unmodifiableList(visitor.constants);
+			this.plugins = Collections.unmodifiableSet(visitor.plugins);
+		}
+
+		public List<DependencyItem> getDependencies() {
+			return this.dependencies;
+		}
+
+		public Set<MethodCallExpression> getMethodCalls() {
+			return this.methodCalls;
+		}
+
+		public List<Statement> getStatements() {
+			return this.statements;
+		}
+
+		public List<Expression> getConstants() {
+			return this.constants;
+		}
+
+		public Set<String> getPlugins() {
+			return this.plugins;
+		}
+	}
+
+	private static class ContextVisitor extends ClassCodeVisitorSupport {
+		private List<DependencyItem> dependencies = new ArrayList<>();
+		private Set<MethodCallExpression> methodCalls = new HashSet<>();
+		private List<Statement> statements = new ArrayList<>();
+		private List<Expression> constants = new ArrayList<>();
+		private Set<String> plugins = new HashSet<>();
+
+		public void visitModule(ModuleNode node) {
+			BlockStatement blockStatement = node.getStatementBlock();
+			this.statements = new ArrayList<>(blockStatement.getStatements());
+			node.getClasses().forEach(classNode -> {
+				super.visitClass(classNode);
+			});
+		}
+
+		@Override
+		public void visitMethodCallExpression(MethodCallExpression node) {
+			this.methodCalls.add(node);
+			if (node.getMethodAsString().equals("dependencies")) {
+				this.dependencies.addAll(getDependencies(node));
+			} else if (node.getMethodAsString().equals("plugins")) {
+				// match plugins { id: ${id} }
+				List<String> plugins = getPluginFromPlugins(node);
+				this.plugins.addAll(plugins);
+			} else if (node.getMethodAsString().equals("apply")) {
+				// match apply plugins: '${id}'
+				String plugin = getPluginFromApply(node);
+				if (plugin != null) {
+					this.plugins.add(plugin);
+				}
+			}
+			super.visitMethodCallExpression(node);
+		}
+
+		@Override
+		public void visitConstantExpression(ConstantExpression expression) {
+			this.constants.add(expression);
+			super.visitConstantExpression(expression);
+		}
+
+		@Override
+		public void visitGStringExpression(GStringExpression expression) {
+			this.constants.add(expression);
+			super.visitGStringExpression(expression);
+		}
+	}
+
+	// <uri, context of the last visited version>
+	private Map<URI, CompletionContext> contexts = new ConcurrentHashMap<>();
 
 	public List<DependencyItem> getDependencies(URI uri) {
-		return this.dependencies.get(uri);
+		CompletionContext context = this.contexts.get(uri);
+		return context == null ? null : context.getDependencies();
 	}
 
 	public Set<MethodCallExpression> getMethodCalls(URI uri) {
-		return this.methodCalls.get(uri);
+		CompletionContext context = this.contexts.get(uri);
+		return context == null ? null : context.getMethodCalls();
 	}
 
 	public List<Statement> getStatements(URI uri) {
-		return this.statements.get(uri);
+		CompletionContext context = this.contexts.get(uri);
+		return context == null ? null : context.getStatements();
 	}
 
 	public List<Expression> getConstants(URI uri) {
-		return this.constants.get(uri);
+		CompletionContext context = this.contexts.get(uri);
+		return context == null ? null : context.getConstants();
 	}
 
 	public Set<String> getPlugins(URI uri) {
-		return this.plugins.get(uri);
+		CompletionContext context = this.contexts.get(uri);
+		return context == null ? null : context.getPlugins();
+	}
+
+	/**
+	 * Visits the compilation unit and returns its completion context, or the
+	 * context of the last visit if the unit has no AST.
+	 */
+	public CompletionContext visitCompilationUnit(URI uri, GradleCompilationUnit compilationUnit) {
+		// answers from the context of this visit, a concurrent visit or eviction of
+		// the same uri may replace or drop the stored one
+		CompletionContext visited = null;
+		Iterator<SourceUnit> units = compilationUnit.iterator();
+		while (units.hasNext()) {
+			visited = visitSourceUnit(uri, units.next(), visited);
+		}
+		return visited == null ? this.contexts.get(uri) : visited;
 	}
 
-	public void visitCompilationUnit(URI uri, GradleCompilationUnit compilationUnit) {
-		this.currentUri = uri;
-		compilationUnit.iterator().forEachRemaining(unit -> visitSourceUnit(unit));
+	public void visitSourceUnit(URI uri, SourceUnit unit) {
+		visitSourceUnit(uri, unit, null);
 	}
 
-	public void visitSourceUnit(SourceUnit unit) {
+	private CompletionContext visitSourceUnit(URI uri, SourceUnit unit, CompletionContext previous) {
 		ModuleNode moduleNode = unit.getAST();
-		if (moduleNode != null) {
-			this.dependencies.put(this.currentUri, new ArrayList<>());
-			this.methodCalls.put(this.currentUri, new HashSet<>());
-			this.statements.put(this.currentUri, new ArrayList<>());
-			this.constants.put(this.currentUri, new ArrayList<>());
-			this.plugins.put(this.currentUri, new HashSet<>());
-			visitModule(moduleNode);
-		}
-	}
-
-	public void visitModule(ModuleNode node) {
-		BlockStatement blockStatement = node.getStatementBlock();
-		this.statements.put(currentUri, blockStatement.getStatements());
-		node.getClasses().forEach(classNode -> {
-			super.visitClass(classNode);
-		});
-	}
-
-	@Override
-	public void visitMethodCallExpression(MethodCallExpression node) {
-		this.methodCalls.get(this.currentUri).add(node);
-		if (node.getMethodAsString().equals("dependencies")) {
-			this.dependencies.get(this.currentUri).addAll(getDependencies(node));
-		} else if (node.getMethodAsString().equals("plugins")) {
-			// match plugins { id: ${id} }
-			List<String> plugins = getPluginFromPlugins(node);
-			this.plugins.get(this.currentUri).addAll(plugins);
-		} else if (node.getMethodAsString().equals("apply")) {
-			// match apply plugins: '${id}'
-			String plugin = getPluginFromApply(node);
-			if (plugin != null) {
-				this.plugins.get(this.currentUri).add(plugin);
-			}
+		if (moduleNode == null) {
+			return previous;
 		}
-		super.visitMethodCallExpression(node);
+		ContextVisitor visitor = new ContextVisitor();
+		visitor.visitModule(moduleNode);
+		CompletionContext context = new CompletionContext(visitor);
+		this.contexts.put(uri, context);
+		return context;
+	}
+
+	public void remove(URI uri) {
+		this.contexts.remove(uri);
 	}
 
-	private List<DependencyItem> getDependencies(MethodCallExpression expression) {
+	private static List<DependencyItem> getDependencies(MethodCallExpression expression) {
 		Expression argument = expression.getArguments();
 		if (argument instanceof ArgumentListExpression) {
 			return getDependencies((ArgumentListExpression) argument);
@@ -128,7 +208,7 @@ public class CompletionVisitor extends ClassCodeVisitorSupport {
 		return Collections.emptyList();
 	}
 
-	private List<DependencyItem> getDependencies(ArgumentListExpression argumentListExpression) {
+	private static List<DependencyItem> getDependencies(ArgumentListExpression argumentListExpression) {
 		List<Expression> expressions = argumentListExpression.getExpressions();
 		List<DependencyItem> symbols = new ArrayList<>();
 		for (Expression expression : expressions) {
@@ -146,7 +226,7 @@ public class CompletionVisitor extends ClassCodeVisitorSupport {
 		return symbols;
 	}
 
-	private List<DependencyItem> getDependencies(ClosureExpression expression) {
+	private static List<DependencyItem> getDependencies(ClosureExpression expression) {
 		Statement code = expression.getCode();
 		if (code instanceof BlockStatement) {
 			return getDependencies((BlockStatement) code);
@@ -154,7 +234,7 @@ public class CompletionVisitor extends ClassCodeVisitorSupport {
 		return Collections.emptyList();
 	}
 
-	private List<DependencyItem> getDependencies(BlockStatement blockStatement) {
+	private static List<DependencyItem> getDependencies(BlockStatement blockStatement) {
 		List<Statement> statements = blockStatement.getStatements();
 		List<DependencyItem> results = new ArrayList<>();
 		for (Statement statement : statements) {
@@ -165,7 +245,7 @@ public class CompletionVisitor extends ClassCodeVisitorSupport {
 		return results;
 	}
 
-	private List<DependencyItem> getDependencies(ExpressionStatement expressionStatement) {
+	private static List<DependencyItem> getDependencies(ExpressionStatement expressionStatement) {
 		Expression expression = expressionStatement.getExpression();
 		if (expression instanceof MethodCallExpression) {
 			return getDependencies((MethodCallExpression) expression);
@@ -173,7 +253,7 @@ public class CompletionVisitor extends ClassCodeVisitorSupport {
 		return Collections.emptyList();
 	}
 
-	private String getPluginFromApply(MethodCallExpression node) {
+	private static String getPluginFromApply(MethodCallExpression node) {
 		Expression argument = node.getArguments();
 		if (argument instanceof TupleExpression) {
 			List<Expression> expressions = ((TupleExpression) argument).getExpressions();
@@ -193,7 +273,7 @@ public class CompletionVisitor extends ClassCodeVisitorSupport {
 		return null;
 	}
 
-	private List<String> getPluginFromPlugins(MethodCallExpression node) {
+	private static List<String> getPluginFromPlugins(MethodCallExpression node) {
 		Expression objectExpression = node.getObjectExpression();
 		if (objectExpression instanceof MethodCallExpression) {
 			return getPluginFromPlugins((MethodCallExpression) objectExpression);
@@ -216,7 +296,7 @@ public class CompletionVisitor extends ClassCodeVisitorSupport {
 		return results;
 	}
 
-	private List<String> getPluginFromPlugins(BlockStatement code) {
+	private static List<String> getPluginFromPlugins(BlockStatement code) {
 		List<String> results = new ArrayList<>();
 		List<Statement> statements = code.getStatements();
 		for (Statement statement : statements) {
@@ -229,16 +309,4 @@ public class CompletionVisitor extends ClassCodeVisitorSupport {
 		}
 		return results;
 	}
-
-	@Override
-	public void visitConstantExpression(ConstantExpression expression) {
-		this.constants.get(currentUri).add(expression);
-		super.visitConstantExpression(expression);
-	}
-
-	@Override
-	public void visitGStringExpression(GStringExpression expression) {
-		this.constants.get(currentUri).add(expression);
-		super.visitGStringExpression(expression);
-	}
 }
@@ -7,9 +7,10 @@ import com.microsoft.gradle.utils.LSPUtils;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.codehaus.groovy.ast.ModuleNode;
 import org.codehaus.groovy.ast.expr.ArgumentListExpression;
 import org.codehaus.groovy.ast.expr.BinaryExpression;
@@ -32,50 +33,98 @@ import org.eclipse.lsp4j.SymbolKind;
 
 public class DocumentSymbolVisitor {
 
-	private URI currentUri;
-	private Map<URI, List<DocumentSymbol>> documentSymbols = new HashMap<>();
-	private Map<URI, List<DocumentSymbol>> dependencies = new HashMap<>();
+	private static class DocumentSymbols {
+		private final List<DocumentSymbol> documentSymbols;
+		private final List<DocumentSymbol> dependencies;
+
+		private DocumentSymbols(List<DocumentSymbol> documentSymbols, List<DocumentSymbol> dependencies) {
+			this.documentSymbols = Collections.unmodifiableList(documentSymbols);
+			this.dependencies = Collections.unmodifiableList(dependencies);
+		}
+	}
+
+	// <uri, symbols of the last visited version>
+	private Map<URI, DocumentSymbols> symbols = new ConcurrentHashMap<>();
 
 	public List<DocumentSymbol> getDocumentSymbols(URI uri) {
-		return this.documentSymbols.get(uri);
+		DocumentSymbols symbols = this.symbols.get(uri);
+		return symbols == null ? null : symbols.documentSymbols;
 	}
 
 	public List<DocumentSymbol> getDependencies(URI uri) {
-		return this.dependencies.get(uri);
+		DocumentSymbols symbols = this.symbols.get(uri);
+		return symbols == null ? null : symbols.dependencies;
 	}
 
-	public void visitCompilationUnit(URI uri, GradleCompilationUnit compilationUnit) {
-		this.currentUri = uri;
-		compilationUnit.iterator().forEachRemaining(unit -> visitSourceUnit(uri, unit));
+	/**
+	 * Visits the compilation unit and returns its document symbols, or the
+	 * symbols of the last visit if the unit has no AST.
+	 */
+	public List<DocumentSymbol> visitCompilationUnit(URI uri, GradleCompilationUnit compilationUnit) {
+		DocumentSymbols symbols = visit(uri, compilationUnit);
+		return symbols == null ? null : symbols.documentSymbols;
+	}
+
+	/**
+	 * Visits the compilation unit and returns its dependencies, or the
+	 * dependencies of the last visit if the unit has no AST.
+	 */
+	public List<DocumentSymbol> visitDependencies(URI uri, GradleCompilationUnit compilationUnit) {
+		DocumentSymbols symbols = visit(uri, compilationUnit);
+		return symbols == null ? null : symbols.dependencies;
 	}
 
 	public void visitSourceUnit(URI uri, SourceUnit unit) {
+		visitSourceUnit(uri, unit, null);
+	}
+
+	// answers from the symbols of this visit, a concurrent visit of the same uri
+	// may replace the stored ones
+	private DocumentSymbols visit(URI uri, GradleCompilationUnit compilationUnit) {
+		DocumentSymbols visited = null;
+		Iterator<SourceUnit> units = compilationUnit.iterator();
+		while (units.hasNext()) {
+			visited = visitSourceUnit(uri, units.next(), visited);
+		}
+		return visited == null ? this.symbols.get(uri) : visited;
+	}
+
+	private DocumentSymbols visitSourceUnit(URI uri, SourceUnit unit, DocumentSymbols previous) {
 		ModuleNode moduleNode = unit.getAST();
-		if (moduleNode != null) {
-			this.documentSymbols.put(uri, new ArrayList<>());
-			this.dependencies.put(uri, new ArrayList<>());
-			visitModule(moduleNode);
+		if (moduleNode == null) {
+			return previous;
 		}
+		List<DocumentSymbol> documentSymbols = new ArrayList<>();
+		List<DocumentSymbol> dependencies = new ArrayList<>();
+		visitModule(moduleNode, documentSymbols, dependencies);
+		DocumentSymbols symbols = new DocumentSymbols(documentSymbols, dependencies);
+		this.symbols.put(uri, symbols);
+		return symbols;
+	}
+
+	public void remove(URI uri) {
+		this.symbols.remove(uri);
 	}
 
-	public void visitModule(ModuleNode node) {
+	private void visitModule(ModuleNode node, List<DocumentSymbol> documentSymbols,
+			List<DocumentSymbol> dependencies) {
 		BlockStatement blockStatement = node.getStatementBlock();
 		List<Statement> statements = blockStatement.getStatements();
 		for (Statement statement : statements) {
 			if (statement instanceof ExpressionStatement) {
-				DocumentSymbol symbol = getDocumentSymbol((ExpressionStatement) statement);
+				DocumentSymbol symbol = getDocumentSymbol((ExpressionStatement) statement, dependencies);
 				if (symbol != null) {
-					this.documentSymbols.get(this.currentUri).add(symbol);
+					documentSymbols.add(symbol);
 				}
 			}
 		}
 	}
 
-	public DocumentSymbol getDocumentSymbol(ExpressionStatement statement) {
+	private DocumentSymbol getDocumentSymbol(ExpressionStatement statement, List<DocumentSymbol> dependencies) {
 		Expression expression = statement.getExpression();
 		DocumentSymbol symbol = null;
 		if (expression instanceof MethodCallExpression) {
-			symbol = getDocumentSymbol((MethodCallExpression) expression);
+			symbol = getDocumentSymbol((MethodCallExpression) expression, dependencies);
 		} else if (expression instanceof BinaryExpression) {
 			symbol = getDocumentSymbol((BinaryExpression) expression);
 		}
@@ -99,7 +148,7 @@ public class DocumentSymbolVisitor {
 		return symbol;
 	}
 
-	private DocumentSymbol getDocumentSymbol(MethodCallExpression expression) {
+	private DocumentSymbol getDocumentSymbol(MethodCallExpression expression, List<DocumentSymbol> dependencies) {
 		DocumentSymbol symbol = new DocumentSymbol();
 		symbol.setKind(SymbolKind.Function);
 		String name = getSymbolName(expression);
@@ -116,7 +165,7 @@ public class DocumentSymbolVisitor {
 		if (expression.getMethodAsString().equals("dependencies")) {
 			List<DocumentSymbol> dependencySymbols = getDependencies(expression);
 			symbol.setChildren(dependencySymbols);
-			this.dependencies.get(currentUri).addAll(dependencySymbols);
+			dependencies.addAll(dependencySymbols);
 		}
 		return symbol;
 	}
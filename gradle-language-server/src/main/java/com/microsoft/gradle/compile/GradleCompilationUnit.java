@@ -5,8 +5,11 @@ package com.microsoft.gradle.compile;
 
 import groovy.lang.GroovyClassLoader;
 import java.security.CodeSource;
+import org.codehaus.groovy.control.CompilationFailedException;
 import org.codehaus.groovy.control.CompilationUnit;
 import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.control.SourceUnit;
 
 public class GradleCompilationUnit extends CompilationUnit {
 	private Integer version;
@@ -20,4 +23,23 @@ public class GradleCompilationUnit extends CompilationUnit {
 	public Integer getVersion() {
 		return this.version;
 	}
+
+	@Override
+	public void compile(int throughPhase) throws CompilationFailedException {
+		// the classes are resolved from the semantic analysis on, the parsing
+		// phases do not need the resolver of the classpath
+		if (throughPhase >= Phases.SEMANTIC_ANALYSIS && !(this.classNodeResolver instanceof SharedClassNodeResolver)) {
+			setClassNodeResolver(SharedClassNodeResolver.get(getConfiguration()));
+		}
+		super.compile(throughPhase);
+	}
+
+	/**
+	 * Adds a source whose syntax tree is already built, without queueing it for
+	 * compilation.
+	 */
+	public void addParsedSource(SourceUnit source) {
+		this.sources.put(source.getName(), source);
+		getAST().addModule(source.getAST());
+	}
 }
@@ -8,9 +8,11 @@ import com.microsoft.gradle.semantictokens.TokenModifier;
 import com.microsoft.gradle.semantictokens.TokenType;
 import java.net.URI;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.codehaus.groovy.ast.ASTNode;
 import org.codehaus.groovy.ast.ClassCodeVisitorSupport;
 import org.codehaus.groovy.ast.ModuleNode;
@@ -20,73 +22,99 @@ import org.codehaus.groovy.ast.expr.PropertyExpression;
 import org.codehaus.groovy.ast.expr.VariableExpression;
 import org.codehaus.groovy.control.SourceUnit;
 
-public class SemanticTokenVisitor extends ClassCodeVisitorSupport {
+public class SemanticTokenVisitor {
 
-	private URI currentUri;
-	private Map<URI, List<SemanticToken>> tokens = new HashMap<>();
+	private static class TokenVisitor extends ClassCodeVisitorSupport {
+		private List<SemanticToken> tokens = new ArrayList<>();
 
-	public List<SemanticToken> getSemanticTokens(URI uri) {
-		return this.tokens.get(uri);
-	}
+		private void addToken(int line, int column, int length, TokenType tokenType, int modifiers) {
+			if (length > 0) {
+				this.tokens.add(new SemanticToken(line, column, length, tokenType, modifiers));
+			}
+		}
 
-	private void addToken(int line, int column, int length, TokenType tokenType, int modifiers) {
-		if (length > 0) {
-			tokens.get(currentUri).add(new SemanticToken(line, column, length, tokenType, modifiers));
+		private void addToken(ASTNode node, TokenType tokenType, int modifiers) {
+			addToken(node.getLineNumber(), node.getColumnNumber(), node.getLength(), tokenType, modifiers);
 		}
-	}
 
-	private void addToken(ASTNode node, TokenType tokenType, int modifiers) {
-		addToken(node.getLineNumber(), node.getColumnNumber(), node.getLength(), tokenType, modifiers);
-	}
+		private void addToken(ASTNode node, TokenType tokenType) {
+			addToken(node.getLineNumber(), node.getColumnNumber(), node.getLength(), tokenType, 0);
+		}
 
-	private void addToken(ASTNode node, TokenType tokenType) {
-		addToken(node.getLineNumber(), node.getColumnNumber(), node.getLength(), tokenType, 0);
-	}
+		public void visitModule(ModuleNode node) {
+			node.getClasses().forEach(classNode -> {
+				super.visitClass(classNode);
+			});
+		}
 
-	public void visitCompilationUnit(URI uri, GradleCompilationUnit compilationUnit) {
-		this.currentUri = uri;
-		compilationUnit.iterator().forEachRemaining(unit -> visitSourceUnit(uri, unit));
-	}
+		@Override
+		public void visitMethodCallExpression(MethodCallExpression node) {
+			if (TokenModifier.isDefaultLibrary(node.getMethod().getText())) {
+				addToken(node.getMethod(), TokenType.FUNCTION, TokenModifier.DEFAULT_LIBRARY.bitmask);
+			} else {
+				addToken(node.getMethod(), TokenType.FUNCTION);
+			}
+			super.visitMethodCallExpression(node);
+		}
 
-	public void visitSourceUnit(URI uri, SourceUnit unit) {
-		ModuleNode moduleNode = unit.getAST();
-		if (moduleNode != null) {
-			this.tokens.put(uri, new ArrayList<>());
-			visitModule(moduleNode);
+		@Override
+		public void visitMapEntryExpression(MapEntryExpression node) {
+			addToken(node.getKeyExpression(), TokenType.PARAMETER);
+			super.visitMapEntryExpression(node);
+		}
+
+		@Override
+		public void visitVariableExpression(VariableExpression node) {
+			addToken(node, TokenType.VARIABLE);
+			super.visitVariableExpression(node);
+		}
+
+		@Override
+		public void visitPropertyExpression(PropertyExpression node) {
+			addToken(node.getProperty(), TokenType.PROPERTY);
+			super.visitPropertyExpression(node);
 		}
 	}
 
-	public void visitModule(ModuleNode node) {
-		node.getClasses().forEach(classNode -> {
-			super.visitClass(classNode);
-		});
+	// <uri, tokens of the last visited version>
+	private Map<URI, List<SemanticToken>> tokens = new ConcurrentHashMap<>();
+
+	public List<SemanticToken> getSemanticTokens(URI uri) {
+		return this.tokens.get(uri);
 	}
 
-	@Override
-	public void visitMethodCallExpression(MethodCallExpression node) {
-		if (TokenModifier.isDefaultLibrary(node.getMethod().getText())) {
-			addToken(node.getMethod(), TokenType.FUNCTION, TokenModifier.DEFAULT_LIBRARY.bitmask);
-		} else {
-			addToken(node.getMethod(), TokenType.FUNCTION);
+	/**
+	 * Visits the compilation unit and returns its tokens, or the tokens of the
+	 * last visit if the unit has no AST.
+	 */
+	public List<SemanticToken> visitCompilationUnit(URI uri, GradleCompilationUnit compilationUnit) {
+		// answers from the tokens of this visit, a concurrent visit or eviction of
+		// the same uri may replace or drop the stored ones
+		List<SemanticToken> visited = null;
+		Iterator<SourceUnit> units = compilationUnit.iterator();
+		while (units.hasNext()) {
+			visited = visitSourceUnit(uri, units.next(), visited);
 		}
-		super.visitMethodCallExpression(node);
+		return visited == null ? this.tokens.get(uri) : visited;
 	}
 
-	@Override
-	public void visitMapEntryExpression(MapEntryExpression node) {
-		addToken(node.getKeyExpression(), TokenType.PARAMETER);
-		super.visitMapEntryExpression(node);
+	public void visitSourceUnit(URI uri, SourceUnit unit) {
+		visitSourceUnit(uri, unit, null);
 	}
 
-	@Override
-	public void visitVariableExpression(VariableExpression node) {
-		addToken(node, TokenType.VARIABLE);
-		super.visitVariableExpression(node);
+	private List<SemanticToken> visitSourceUnit(URI uri, SourceUnit unit, List<SemanticToken> previous) {
+		ModuleNode moduleNode = unit.getAST();
+		if (moduleNode == null) {
+			return previous;
+		}
+		TokenVisitor visitor = new TokenVisitor();
+		visitor.visitModule(moduleNode);
+		List<SemanticToken> tokens = Collections.unmodifiableList(visitor.tokens);
+		this.tokens.put(uri, tokens);
+		return tokens;
 	}
 
-	@Override
-	public void visitPropertyExpression(PropertyExpression node) {
-		addToken(node.getProperty(), TokenType.PROPERTY);
-		super.visitPropertyExpression(node);
+	public void remove(URI uri) {
+		this.tokens.remove(uri);
 	}
 }
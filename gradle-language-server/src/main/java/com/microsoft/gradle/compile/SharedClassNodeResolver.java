@@ -0,0 +1,65 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.compile;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.control.ClassNodeResolver;
+import org.codehaus.groovy.control.CompilerConfiguration;
+
+/**
+ * Resolves the class names of the scripts with a lookup cache shared by all
+ * the compilations of the same classpath.
+ *
+ * Every unresolved simple name is probed in each package of the default star
+ * imports, so most lookups fail. Both the classes found and the names not
+ * found are cached. A classpath is identified by its entries with their sizes
+ * and modification times, so a rebuilt entry gets a new cache.
+ */
+public class SharedClassNodeResolver extends ClassNodeResolver {
+
+	private static int MAX_CLASSPATHS = 16;
+	// <classpath fingerprint, resolver>, the least recently used classpath is
+	// dropped
+	private static Map<String, SharedClassNodeResolver> resolvers = Collections
+			.synchronizedMap(new LinkedHashMap<String, SharedClassNodeResolver>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, SharedClassNodeResolver> eldest) {
+					return size() > MAX_CLASSPATHS;
+				}
+			});
+
+	// <class name, class node or NO_CLASS>
+	private final Map<String, ClassNode> cachedClasses = new ConcurrentHashMap<>();
+
+	public static SharedClassNodeResolver get(CompilerConfiguration config) {
+		return resolvers.computeIfAbsent(getFingerprint(config.getClasspath()),
+				fingerprint -> new SharedClassNodeResolver());
+	}
+
+	private static String getFingerprint(List<String> classpath) {
+		StringBuilder builder = new StringBuilder();
+		for (String entry : classpath) {
+			File file = new File(entry);
+			builder.append(entry).append('|').append(file.lastModified()).append('|').append(file.length())
+					.append(File.pathSeparatorChar);
+		}
+		return builder.toString();
+	}
+
+	@Override
+	public void cacheClass(String name, ClassNode res) {
+		this.cachedClasses.put(name, res);
+	}
+
+	@Override
+	public ClassNode getFromClassCache(String name) {
+		return this.cachedClasses.get(name);
+	}
+}
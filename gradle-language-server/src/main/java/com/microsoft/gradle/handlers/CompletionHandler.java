@@ -4,6 +4,8 @@
 package com.microsoft.gradle.handlers;
 
 import com.microsoft.gradle.delegate.GradleDelegate;
+import com.microsoft.gradle.resolver.GradleClass;
+import com.microsoft.gradle.resolver.GradleClassIndex;
 import com.microsoft.gradle.resolver.GradleClosure;
 import com.microsoft.gradle.resolver.GradleField;
 import com.microsoft.gradle.resolver.GradleLibraryResolver;
@@ -16,12 +18,10 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import org.apache.bcel.classfile.Attribute;
-import org.apache.bcel.classfile.FieldOrMethod;
-import org.apache.bcel.classfile.JavaClass;
-import org.apache.bcel.classfile.Method;
-import org.apache.bcel.generic.ObjectType;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import org.codehaus.groovy.ast.expr.MethodCallExpression;
 import org.eclipse.lsp4j.Command;
 import org.eclipse.lsp4j.CompletionItem;
@@ -33,86 +33,150 @@ public class CompletionHandler {
 
 	private static String BUILD_GRADLE = "build.gradle";
 	private static String SETTING_GRADLE = "settings.gradle";
+	private static String BUILD_GRADLE_KTS = "build.gradle.kts";
+	private static String SETTING_GRADLE_KTS = "settings.gradle.kts";
 	private static String DEPENDENCYHANDLER_CLASS = "org.gradle.api.artifacts.dsl.DependencyHandler";
 
+	private static class ExtClosureTables {
+		private final List<GradleClosure> extClosures;
+		private final List<CompletionItem> closureItems;
+		// <closure name, completion items of the closure members>
+		private final Map<String, List<CompletionItem>> memberItems = new ConcurrentHashMap<>();
+
+		private ExtClosureTables(List<GradleClosure> extClosures) {
+			this.extClosures = extClosures;
+			this.closureItems = toTable(getCompletionItemsFromExtClosures(extClosures, new HashSet<>()));
+		}
+
+		private List<CompletionItem> getMemberItems(String closureName) {
+			return this.memberItems.computeIfAbsent(closureName, name -> toTable(
+					getCompletionItemsFromExtClosures(this.extClosures, name, new HashSet<>())));
+		}
+	}
+
+	// the completion items are built once per Gradle API and ext closures, the
+	// cached items are shared by the results and must not be modified
+	// <Gradle API, <delegate class name#javaPluginsIncluded, flattened completion
+	// items>>, the tables of an API are dropped with its index
+	private Map<GradleClassIndex, Map<String, List<CompletionItem>>> delegateTables = Collections
+			.synchronizedMap(new WeakHashMap<>());
+	// <projectPath, ext closure completion items>
+	private Map<String, ExtClosureTables> extClosureTables = new ConcurrentHashMap<>();
+
 	public List<CompletionItem> getCompletionItems(MethodCallExpression containingCall, String fileName,
 			GradleLibraryResolver resolver, boolean javaPluginsIncluded, String projectPath) {
-		List<CompletionItem> results = new ArrayList<>();
-		Set<String> resultSet = new HashSet<>();
+		return getBlockCompletionItems(containingCall == null ? null : containingCall.getMethodAsString(), fileName,
+				resolver, javaPluginsIncluded, projectPath);
+	}
+
+	/**
+	 * Returns the completion items inside the block of the method, or at the root
+	 * of the script if the method is null.
+	 */
+	public List<CompletionItem> getBlockCompletionItems(String methodName, String fileName,
+			GradleLibraryResolver resolver, boolean javaPluginsIncluded, String projectPath) {
+		ExtClosureTables extTables = getExtClosureTables(resolver, projectPath);
+		List<CompletionItem> extItems;
 		List<String> delegateClassNames = new ArrayList<>();
-		if (containingCall == null) {
-			if (fileName.equals(BUILD_GRADLE)) {
+		if (methodName == null) {
+			if (fileName.equals(BUILD_GRADLE) || fileName.equals(BUILD_GRADLE_KTS)) {
 				delegateClassNames.add(GradleDelegate.getDefault());
-			} else if (fileName.equals(SETTING_GRADLE)) {
+			} else if (fileName.equals(SETTING_GRADLE) || fileName.equals(SETTING_GRADLE_KTS)) {
 				delegateClassNames.add(GradleDelegate.getSettings());
 			}
-			results.addAll(getCompletionItemsFromExtClosures(resolver, projectPath, resultSet));
+			extItems = extTables.closureItems;
 		} else {
-			String methodName = containingCall.getMethodAsString();
-			List<CompletionItem> re = getCompletionItemsFromExtClosures(resolver, projectPath, methodName, resultSet);
-			results.addAll(re);
+			extItems = extTables.getMemberItems(methodName);
 			List<String> delegates = GradleDelegate.getDelegateMap().get(methodName);
 			if (delegates == null) {
-				results.forEach(result -> setSortText(result));
-				return results;
+				return new ArrayList<>(extItems);
 			}
 			delegateClassNames.addAll(delegates);
 		}
 		if (delegateClassNames.isEmpty()) {
 			return Collections.emptyList();
 		}
+		List<CompletionItem> results = new ArrayList<>(extItems);
+		Set<String> resultSet = new HashSet<>();
+		extItems.forEach(item -> resultSet.add(item.getLabel()));
 		for (String delegateClassName : delegateClassNames) {
-			JavaClass delegateClass = resolver.getGradleClasses().get(delegateClassName);
-			if (delegateClass == null) {
+			List<CompletionItem> delegateItems = getDelegateItems(delegateClassName, resolver, javaPluginsIncluded);
+			if (delegateItems == null) {
 				continue;
 			}
-			results.addAll(getCompletionItemsFromClass(delegateClass, resolver, javaPluginsIncluded, resultSet));
+			for (CompletionItem item : delegateItems) {
+				// ext closures win over the members of the delegate class
+				if (resultSet.isEmpty() || !resultSet.contains(item.getLabel())) {
+					results.add(item);
+				}
+			}
 			break;
 		}
-		results.forEach(result -> setSortText(result));
 		return results;
 	}
 
-	private List<CompletionItem> getCompletionItemsFromClass(JavaClass javaClass, GradleLibraryResolver resolver,
+	private List<CompletionItem> getDelegateItems(String delegateClassName, GradleLibraryResolver resolver,
+			boolean javaPluginsIncluded) {
+		GradleClassIndex gradleClasses = resolver.getGradleClasses();
+		Map<String, List<CompletionItem>> tables = this.delegateTables.computeIfAbsent(gradleClasses,
+				index -> new ConcurrentHashMap<>());
+		GradleClass delegateClass = gradleClasses.get(delegateClassName);
+		if (delegateClass == null) {
+			return null;
+		}
+		return tables.computeIfAbsent(delegateClassName + "#" + javaPluginsIncluded, key -> toTable(
+				getCompletionItemsFromClass(delegateClass, resolver, javaPluginsIncluded, new HashSet<>())));
+	}
+
+	private ExtClosureTables getExtClosureTables(GradleLibraryResolver resolver, String projectPath) {
+		List<GradleClosure> extClosures = resolver.getExtClosures(projectPath);
+		if (extClosures == null) {
+			extClosures = Collections.emptyList();
+		}
+		if (projectPath == null) {
+			return new ExtClosureTables(extClosures);
+		}
+		ExtClosureTables tables = this.extClosureTables.get(projectPath);
+		// the ext closures of a project are replaced as a whole when they change
+		if (tables == null || tables.extClosures != extClosures) {
+			tables = new ExtClosureTables(extClosures);
+			this.extClosureTables.put(projectPath, tables);
+		}
+		return tables;
+	}
+
+	private static List<CompletionItem> toTable(List<CompletionItem> items) {
+		items.forEach(item -> setSortText(item));
+		return Collections.unmodifiableList(items);
+	}
+
+	private List<CompletionItem> getCompletionItemsFromClass(GradleClass gradleClass, GradleLibraryResolver resolver,
 			boolean javaPluginsIncluded, Set<String> resultSet) {
-		if (javaClass == null) {
+		if (gradleClass == null) {
 			return Collections.emptyList();
 		}
 		List<CompletionItem> results = new ArrayList<>();
-		for (String superInterface : javaClass.getInterfaceNames()) {
-			if (resolver.getGradleClasses().containsKey(superInterface)) {
-				results.addAll(getCompletionItemsFromClass(resolver.getGradleClasses().get(superInterface), resolver,
+		GradleClassIndex gradleClasses = resolver.getGradleClasses();
+		for (String superInterface : gradleClass.interfaceNames) {
+			if (gradleClasses.contains(superInterface)) {
+				results.addAll(getCompletionItemsFromClass(gradleClasses.get(superInterface), resolver,
 						javaPluginsIncluded, resultSet));
 			}
 		}
-		String superClass = javaClass.getSuperclassName();
-		if (resolver.getGradleClasses().containsKey(superClass)) {
-			results.addAll(getCompletionItemsFromClass(resolver.getGradleClasses().get(superClass), resolver,
-					javaPluginsIncluded, resultSet));
+		String superClass = gradleClass.superclassName;
+		if (gradleClasses.contains(superClass)) {
+			results.addAll(getCompletionItemsFromClass(gradleClasses.get(superClass), resolver, javaPluginsIncluded,
+					resultSet));
 		}
-		List<String> methodNames = new ArrayList<>();
-		Method[] methods = javaClass.getMethods();
-		for (Method method : methods) {
-			boolean isMethodDeprecated = isDeprecated(method);
-			String methodName = method.getName();
-			// When parsing a abstract class, we'll get a "<init>" method which can't be
-			// called directly,
-			// So we filter it here.
-			if (methodName.equals("<init>")) {
-				continue;
-			}
-			methodNames.add(methodName);
-			List<String> arguments = new ArrayList<>();
-			Arrays.asList(method.getArgumentTypes()).forEach(type -> {
-				if (type instanceof ObjectType) {
-					arguments.add(((ObjectType) type).getClassName());
-				}
-			});
-			CompletionItem item = generateCompletionItemForMethod(methodName, arguments, isMethodDeprecated);
+		for (GradleMethod method : gradleClass.methods) {
+			boolean isMethodDeprecated = method.deprecated;
+			String methodName = method.name;
+			CompletionItem item = generateCompletionItemForMethod(methodName, Arrays.asList(method.parameterTypes),
+					isMethodDeprecated);
 			if (resultSet.add(item.getLabel())) {
 				results.add(item);
 			}
-			int modifiers = method.getModifiers();
+			int modifiers = method.modifiers;
 			// See:
 			// https://docs.gradle.org/current/userguide/custom_gradle_types.html#managed_properties
 			// we offer managed properties for an abstract getter method
@@ -134,7 +198,7 @@ public class CompletionHandler {
 				}
 			}
 		}
-		if (javaPluginsIncluded && javaClass.getClassName().equals(DEPENDENCYHANDLER_CLASS)) {
+		if (javaPluginsIncluded && gradleClass.name.equals(DEPENDENCYHANDLER_CLASS)) {
 			// for dependency {}, we offer java configurations if there is any applied java
 			// plugin
 			for (String plugin : resolver.getJavaConfigurations()) {
@@ -159,10 +223,9 @@ public class CompletionHandler {
 		return results;
 	}
 
-	private List<CompletionItem> getCompletionItemsFromExtClosures(GradleLibraryResolver resolver, String projectPath,
+	private static List<CompletionItem> getCompletionItemsFromExtClosures(List<GradleClosure> extClosures,
 			Set<String> resultSet) {
-		List<GradleClosure> extClosures = resolver.getExtClosures(projectPath);
-		if (extClosures == null || extClosures.isEmpty()) {
+		if (extClosures.isEmpty()) {
 			return Collections.emptyList();
 		}
 		List<CompletionItem> results = new ArrayList<>();
@@ -188,10 +251,9 @@ public class CompletionHandler {
 		return results;
 	}
 
-	private List<CompletionItem> getCompletionItemsFromExtClosures(GradleLibraryResolver resolver, String projectPath,
+	private static List<CompletionItem> getCompletionItemsFromExtClosures(List<GradleClosure> extClosures,
 			String closureName, Set<String> resultSet) {
-		List<GradleClosure> extClosures = resolver.getExtClosures(projectPath);
-		if (extClosures == null || extClosures.isEmpty()) {
+		if (extClosures.isEmpty()) {
 			return Collections.emptyList();
 		}
 		List<CompletionItem> results = new ArrayList<>();
@@ -232,8 +294,7 @@ public class CompletionHandler {
 		labelBuilder.append("(");
 		for (int i = 0; i < arguments.size(); i++) {
 			String type = arguments.get(i);
-			String[] classNameSplits = type.split("\\.");
-			String className = classNameSplits[classNameSplits.length - 1];
+			String className = type.substring(type.lastIndexOf('.') + 1);
 			String variableName = className.substring(0, 1).toLowerCase();
 			labelBuilder.append(className);
 			labelBuilder.append(" ");
@@ -266,15 +327,6 @@ public class CompletionHandler {
 		return item;
 	}
 
-	private static boolean isDeprecated(FieldOrMethod object) {
-		for (Attribute attribute : object.getAttributes()) {
-			if (attribute.toString().contains("Deprecated")) {
-				return true;
-			}
-		}
-		return false;
-	}
-
 	private static void setSortText(CompletionItem item) {
 		// priority: function > property
 		int kindValue = (item.getKind() == CompletionItemKind.Function) ? 0 : 1;
@@ -0,0 +1,62 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.handlers;
+
+import com.microsoft.gradle.compile.CompletionVisitor.DependencyItem;
+import com.microsoft.gradle.index.RepositoryIndexer;
+import com.microsoft.gradle.utils.CompletionUtils;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import org.eclipse.lsp4j.CompletionItem;
+import org.eclipse.lsp4j.Position;
+
+public class GradleCacheCompletionHandler {
+	private static String sequence = "1";
+	private static String INDEX_FILE = "gradle-modules.index";
+	private Path gradleUserHomePath;
+	private Path storagePath;
+	private boolean indexing;
+	private volatile RepositoryIndexer indexer;
+
+	public GradleCacheCompletionHandler() {
+		setGradleUserHomePath(Paths.get(System.getProperty("user.home"), ".gradle"));
+	}
+
+	/**
+	 * Index the dependencies Gradle downloaded to the module cache of this user
+	 * home.
+	 */
+	public synchronized void setGradleUserHomePath(Path gradleUserHomePath) {
+		if (gradleUserHomePath == null || gradleUserHomePath.equals(this.gradleUserHomePath)) {
+			return;
+		}
+		if (this.indexer != null) {
+			this.indexer.close();
+		}
+		this.gradleUserHomePath = gradleUserHomePath;
+		Path cachePath = gradleUserHomePath.resolve(Paths.get("caches", "modules-2", "files-2.1"));
+		this.indexer = new RepositoryIndexer(cachePath, RepositoryIndexer.Layout.GRADLE_CACHE);
+		if (this.indexing) {
+			startIndexing(this.storagePath);
+		}
+	}
+
+	/**
+	 * Persist the index under the storage path and start indexing in the
+	 * background.
+	 */
+	public synchronized void startIndexing(Path storagePath) {
+		this.storagePath = storagePath;
+		this.indexing = true;
+		if (storagePath != null) {
+			this.indexer.setStorageFile(storagePath.resolve(INDEX_FILE));
+		}
+		this.indexer.refresh();
+	}
+
+	public List<CompletionItem> getDependencyCompletionItems(DependencyItem dependency, Position position) {
+		return CompletionUtils.getDependencyCompletions(this.indexer.getIndex(), dependency, position, sequence);
+	}
+}
@@ -3,21 +3,24 @@
 
 package com.microsoft.gradle.handlers;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.microsoft.gradle.compile.CompletionVisitor.DependencyItem;
+import com.microsoft.gradle.index.DependencyIndex;
+import com.microsoft.gradle.index.MavenCentralClient;
 import com.microsoft.gradle.utils.CompletionUtils;
 import com.microsoft.gradle.utils.CompletionUtils.CompletionKinds;
 import com.microsoft.gradle.utils.LSPUtils;
-import java.io.InputStreamReader;
-import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.sql.Date;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import org.eclipse.lsp4j.Command;
 import org.eclipse.lsp4j.CompletionItem;
 import org.eclipse.lsp4j.CompletionItemKind;
@@ -27,13 +30,31 @@ import org.eclipse.lsp4j.TextEdit;
 import org.eclipse.lsp4j.jsonrpc.messages.Either;
 
 public class MavenCentralCompletionHandler {
-	private static String sequence = "2";
-	private static String URL_BASIC_SEARCH = "https://search.maven.org/solrsearch/select?q=";
-	private enum DependencyCompletionKind {
-		GROUPID, ARTIFACTID, VERSION
+	private static String sequence = "3";
+	// how long a completion request waits for the remote results, slower results
+	// are cached for the next request of the incomplete completion list
+	private static long REMOTE_BUDGET = 300;
+	private MavenCentralClient client;
+
+	public MavenCentralCompletionHandler() {
+		this(new MavenCentralClient());
+	}
+
+	public MavenCentralCompletionHandler(MavenCentralClient client) {
+		this.client = client;
 	}
 
-	public List<CompletionItem> getDependencyCompletionItems(DependencyItem dependency, Position position) {
+	/**
+	 * Returns the remote results available within the completion budget.
+	 */
+	public CompletableFuture<List<CompletionItem>> getDependencyCompletionItems(DependencyItem dependency,
+			Position position) {
+		return getRemoteCompletionItems(dependency, position).completeOnTimeout(Collections.emptyList(),
+				REMOTE_BUDGET, TimeUnit.MILLISECONDS);
+	}
+
+	private CompletableFuture<List<CompletionItem>> getRemoteCompletionItems(DependencyItem dependency,
+			Position position) {
 		Range range = new Range(dependency.getRange().getStart(), position);
 		String validText = LSPUtils.getStringBeforePosition(dependency.getText(), dependency.getRange(), position);
 		String[] validTexts = validText.split(":", -1);
@@ -41,120 +62,116 @@ public class MavenCentralCompletionHandler {
 			case 1 :
 				return getGroupIdCompletions(validTexts[0], range);
 			case 2 :
-				return getArtifactIdCompletions(validTexts[0], range);
+				return getArtifactIdCompletions(validTexts[0], validTexts[1], range);
 			case 3 :
 				return getVersionCompletions(validTexts[0], validTexts[1], range);
 			default :
-				return Collections.emptyList();
+				return CompletableFuture.completedFuture(Collections.emptyList());
 		}
 	}
 
-	private List<CompletionItem> getGroupIdCompletions(String group, Range range) {
+	private CompletableFuture<List<CompletionItem>> getGroupIdCompletions(String group, Range range) {
 		if (group.length() < 3) {
-			return Collections.emptyList();
+			return CompletableFuture.completedFuture(Collections.emptyList());
 		}
 		StringBuilder builder = new StringBuilder();
-		builder.append(URL_BASIC_SEARCH);
-		builder.append(group);
+		builder.append("q=");
+		builder.append(encode(group));
 		// limit the number of result to 50
 		builder.append("&rows=50&wt=json");
-		return getDependenciesFromRestAPI(builder.toString(), DependencyCompletionKind.GROUPID, range);
+		return this.client.search(builder.toString()).thenApply(docs -> {
+			DependencyIndex index = toIndex(docs);
+			return CompletionUtils.getGroupIdCompletions(range,
+					rank(index.searchGroupIds(group, CompletionUtils.MAX_DEPENDENCY_RESULTS),
+							index.searchGroupIds("", CompletionUtils.MAX_DEPENDENCY_RESULTS)),
+					sequence);
+		});
 	}
 
-	private List<CompletionItem> getArtifactIdCompletions(String group, Range range) {
+	private CompletableFuture<List<CompletionItem>> getArtifactIdCompletions(String group, String artifact,
+			Range range) {
 		if (group.length() < 3) {
-			return Collections.emptyList();
+			return CompletableFuture.completedFuture(Collections.emptyList());
 		}
 		StringBuilder builder = new StringBuilder();
-		builder.append(URL_BASIC_SEARCH);
-		builder.append("g:%22");
-		builder.append(group);
+		builder.append("q=g:%22");
+		builder.append(encode(group));
 		// limit the number of result to 50
 		builder.append("%22&rows=50&wt=json");
-		return getDependenciesFromRestAPI(builder.toString(), DependencyCompletionKind.ARTIFACTID, range);
+		return this.client.search(builder.toString()).thenApply(docs -> {
+			DependencyIndex index = toIndex(docs);
+			return CompletionUtils.getArtifactIdCompletions(group, range,
+					rank(index.searchArtifactIds(group, artifact, CompletionUtils.MAX_DEPENDENCY_RESULTS),
+							index.searchArtifactIds(group, "", CompletionUtils.MAX_DEPENDENCY_RESULTS)),
+					sequence);
+		});
 	}
 
-	private List<CompletionItem> getVersionCompletions(String group, String artifact, Range range) {
+	private CompletableFuture<List<CompletionItem>> getVersionCompletions(String group, String artifact,
+			Range range) {
 		if (group.length() < 3 || artifact.length() < 3) {
-			return Collections.emptyList();
+			return CompletableFuture.completedFuture(Collections.emptyList());
 		}
 		StringBuilder builder = new StringBuilder();
-		builder.append(URL_BASIC_SEARCH);
-		builder.append("g:%22");
-		builder.append(group);
+		builder.append("q=g:%22");
+		builder.append(encode(group));
 		builder.append("%22+AND+a:%22");
-		builder.append(artifact);
+		builder.append(encode(artifact));
 		// limit the number of result to 50
 		builder.append("%22&core=gav&rows=50&wt=json");
-		return getDependenciesFromRestAPI(builder.toString(), DependencyCompletionKind.VERSION, range);
+		return this.client.search(builder.toString()).thenApply(docs -> toVersionCompletions(docs, range));
+	}
+
+	private static List<CompletionItem> toVersionCompletions(List<JsonObject> docs, Range range) {
+		List<CompletionItem> completions = new ArrayList<>();
+		for (int i = 0; i < docs.size(); i++) {
+			JsonObject doc = docs.get(i);
+			String groupId = doc.get("g").getAsJsonPrimitive().getAsString();
+			String artifactId = doc.get("a").getAsJsonPrimitive().getAsString();
+			String version = doc.get("v").getAsJsonPrimitive().getAsString();
+			String timestampValue = doc.get("timestamp").getAsJsonPrimitive().getAsString();
+			Timestamp timestamp = new Timestamp(Long.parseLong(timestampValue));
+			Date date = new Date(timestamp.getTime());
+			// ${groupId}:${artifactId}:${version}
+			int character = range.getStart().getCharacter() + groupId.length() + 1 + artifactId.length() + 1;
+			Range replaceRange = new Range(new Position(range.getStart().getLine(), character), range.getEnd());
+			CompletionItem completionItem = new CompletionItem();
+			TextEdit textEdit = new TextEdit(replaceRange, version);
+			completionItem.setTextEdit(Either.forLeft(textEdit));
+			completionItem.setLabel(version);
+			completionItem.setKind(CompletionItemKind.Constant);
+			completionItem.setDetail("Updated: " + date.toString());
+			List<Object> arguments = new ArrayList<>();
+			arguments.add(CompletionKinds.DEPENDENCY_VERSION.toString());
+			arguments.add(groupId + ":" + artifactId + ":" + version);
+			completionItem.setCommand(
+					new Command(CompletionUtils.completionTitle, CompletionUtils.completionCommand, arguments));
+			completionItem.setSortText(sequence + String.format("%08d", i));
+			completions.add(completionItem);
+		}
+		return completions;
+	}
+
+	private static List<String> rank(List<String> matches, List<String> all) {
+		// the remote search also matches the text against other fields, keep those
+		// results after the ones matching the text
+		Set<String> results = new LinkedHashSet<>(matches);
+		results.addAll(all);
+		return new ArrayList<>(results);
 	}
 
-	private List<CompletionItem> getDependenciesFromRestAPI(String url, DependencyCompletionKind kind, Range range) {
-		try (InputStreamReader reader = new InputStreamReader(new URL(url).openStream())) {
-			JsonObject jsonResult = new Gson().fromJson(reader, JsonObject.class);
-			JsonObject response = jsonResult.getAsJsonObject("response");
-			JsonArray docs = response.getAsJsonArray("docs");
-			List<CompletionItem> completions = new ArrayList<>();
-			for (int i = 0; i < docs.size(); i++) {
-				JsonElement element = docs.get(i);
-				if (element instanceof JsonObject) {
-					CompletionItem completionItem = new CompletionItem();
-					String groupId = ((JsonObject) element).get("g").getAsJsonPrimitive().getAsString();
-					String artifactId = ((JsonObject) element).get("a").getAsJsonPrimitive().getAsString();
-					List<Object> arguments = new ArrayList<>();
-					if (kind == DependencyCompletionKind.GROUPID) {
-						TextEdit textEdit = new TextEdit(range, groupId + ":");
-						completionItem.setTextEdit(Either.forLeft(textEdit));
-						completionItem.setLabel(groupId);
-						completionItem.setKind(CompletionItemKind.Module);
-						completionItem.setDetail("GroupID: " + groupId);
-						completionItem.setCommand(
-								new Command(CompletionUtils.completionTitle, CompletionUtils.completionCommand));
-						arguments.add(CompletionKinds.DEPENDENCY_GROUP.toString());
-						arguments.add(groupId);
-					} else if (kind == DependencyCompletionKind.ARTIFACTID) {
-						// ${groupId}:${artifactId}
-						int character = range.getStart().getCharacter() + groupId.length() + 1;
-						Range replaceRange = new Range(new Position(range.getStart().getLine(), character),
-								range.getEnd());
-						TextEdit textEdit = new TextEdit(replaceRange, artifactId + ":");
-						completionItem.setTextEdit(Either.forLeft(textEdit));
-						completionItem.setLabel(artifactId);
-						completionItem.setKind(CompletionItemKind.Module);
-						completionItem.setDetail("ArtifactID: " + artifactId);
-						completionItem.setCommand(
-								new Command(CompletionUtils.completionTitle, CompletionUtils.completionCommand));
-						arguments.add(CompletionKinds.DEPENDENCY_ARTIFACT.toString());
-						arguments.add(groupId + ":" + artifactId);
-					} else if (kind == DependencyCompletionKind.VERSION) {
-						String version = ((JsonObject) element).get("v").getAsJsonPrimitive().getAsString();
-						String timestampValue = ((JsonObject) element).get("timestamp").getAsJsonPrimitive()
-								.getAsString();
-						Timestamp timestamp = new Timestamp(Long.parseLong(timestampValue));
-						Date date = new Date(timestamp.getTime());
-						// ${groupId}:${artifactId}:${version}
-						int character = range.getStart().getCharacter() + groupId.length() + 1 + artifactId.length()
-								+ 1;
-						Range replaceRange = new Range(new Position(range.getStart().getLine(), character),
-								range.getEnd());
-						TextEdit textEdit = new TextEdit(replaceRange, version);
-						completionItem.setTextEdit(Either.forLeft(textEdit));
-						completionItem.setLabel(version);
-						completionItem.setKind(CompletionItemKind.Constant);
-						completionItem.setDetail("Updated: " + date.toString());
-						arguments.add(CompletionKinds.DEPENDENCY_VERSION.toString());
-						arguments.add(groupId + ":" + artifactId + ":" + version);
-					}
-					completionItem.setCommand(
-							new Command(CompletionUtils.completionTitle, CompletionUtils.completionCommand, arguments));
-					completionItem.setSortText(sequence + String.format("%08d", i));
-					completions.add(completionItem);
-				}
-			}
-			return completions;
-		} catch (Exception e) {
-			// TODO
+	private static DependencyIndex toIndex(List<JsonObject> docs) {
+		// the search results are sorted by relevance, keep it as the usage weight
+		DependencyIndex.Builder builder = new DependencyIndex.Builder();
+		for (int i = 0; i < docs.size(); i++) {
+			JsonObject doc = docs.get(i);
+			builder.add(doc.get("g").getAsJsonPrimitive().getAsString(),
+					doc.get("a").getAsJsonPrimitive().getAsString(), docs.size() - i);
 		}
-		return Collections.emptyList();
+		return builder.build();
+	}
+
+	private static String encode(String text) {
+		return URLEncoder.encode(text, StandardCharsets.UTF_8);
 	}
 }
@@ -0,0 +1,69 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.handlers;
+
+import com.microsoft.gradle.index.VersionCatalog;
+import com.microsoft.gradle.index.VersionCatalog.Entry;
+import com.microsoft.gradle.index.VersionCatalog.Kind;
+import com.microsoft.gradle.utils.CompletionUtils;
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.lsp4j.CompletionItem;
+import org.eclipse.lsp4j.CompletionItemKind;
+import org.eclipse.lsp4j.CompletionList;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.TextEdit;
+import org.eclipse.lsp4j.jsonrpc.messages.Either;
+
+public class VersionCatalogCompletionHandler {
+
+	/**
+	 * Completes the catalog accessor before the position, such as
+	 * {@code libs.spring.}. Returns null if the text before the position is not
+	 * an accessor of the catalogs.
+	 */
+	public CompletionList getCompletionList(List<VersionCatalog> catalogs, String lineText, Position position) {
+		int start = lineText.length();
+		while (start > 0 && isAccessorCharacter(lineText.charAt(start - 1))) {
+			start--;
+		}
+		String text = lineText.substring(start);
+		int dot = text.indexOf('.');
+		if (dot <= 0) {
+			return null;
+		}
+		String name = text.substring(0, dot);
+		for (VersionCatalog catalog : catalogs) {
+			if (catalog.getName().equals(name)) {
+				Range range = new Range(new Position(position.getLine(), start), position);
+				List<Entry> entries = catalog.search(text, CompletionUtils.MAX_DEPENDENCY_RESULTS);
+				List<CompletionItem> items = new ArrayList<>();
+				for (int i = 0; i < entries.size(); i++) {
+					items.add(getCompletionItem(entries.get(i), range, i));
+				}
+				return new CompletionList(entries.size() >= CompletionUtils.MAX_DEPENDENCY_RESULTS, items);
+			}
+		}
+		return null;
+	}
+
+	private static CompletionItem getCompletionItem(Entry entry, Range range, int index) {
+		CompletionItem item = new CompletionItem();
+		item.setLabel(entry.getAccessor());
+		item.setFilterText(entry.getAccessor());
+		item.setTextEdit(Either.forLeft(new TextEdit(range, entry.getAccessor())));
+		item.setKind(entry.getKind() == Kind.VERSION ? CompletionItemKind.Constant : CompletionItemKind.Module);
+		String detail = entry.getDetail();
+		if (detail != null) {
+			item.setDetail(detail);
+		}
+		item.setSortText(String.format("%08d", index));
+		return item;
+	}
+
+	private static boolean isAccessorCharacter(char c) {
+		return Character.isLetterOrDigit(c) || c == '_' || c == '.';
+	}
+}
@@ -0,0 +1,299 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.index;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The usage of the Maven Central artifacts, in a binary layout generated by
+ * the build from {@code ArtifactUsage.json} and read in place, so nothing is
+ * parsed when the language server starts.
+ *
+ * The layout is a header, the groups sorted by name, the artifacts of every
+ * group sorted by name, the groups ranked by usage, the artifacts of every
+ * group ranked by usage, and the UTF-8 names. The usage of a group is the sum
+ * of the usage of its artifacts.
+ */
+public class ArtifactUsageIndex {
+
+	private static int MAGIC = 0x47415549;
+	private static int VERSION = 1;
+	private static int HEADER_SIZE = 16;
+	// name offset, name length, usage, first artifact, artifact count
+	private static int GROUP_SIZE = 20;
+	// name offset, name length, usage
+	private static int ARTIFACT_SIZE = 12;
+
+	public static final ArtifactUsageIndex EMPTY = open(ByteBuffer.wrap(toBytes(Collections.emptyMap())));
+
+	private final ByteBuffer buffer;
+	private final int groupCount;
+	private final int artifactCount;
+	private final int artifactsStart;
+	private final int groupRanksStart;
+	private final int artifactRanksStart;
+	private final int stringsStart;
+	// names decoded on their first lookup
+	private final String[] groupNames;
+	private final String[] artifactNames;
+
+	private ArtifactUsageIndex(ByteBuffer buffer) {
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			throw new IllegalArgumentException("Not an artifact usage index");
+		}
+		this.buffer = buffer;
+		this.groupCount = buffer.getInt(8);
+		this.artifactCount = buffer.getInt(12);
+		this.artifactsStart = HEADER_SIZE + this.groupCount * GROUP_SIZE;
+		this.groupRanksStart = this.artifactsStart + this.artifactCount * ARTIFACT_SIZE;
+		this.artifactRanksStart = this.groupRanksStart + this.groupCount * 4;
+		this.stringsStart = this.artifactRanksStart + this.artifactCount * 4;
+		this.groupNames = new String[this.groupCount];
+		this.artifactNames = new String[this.artifactCount];
+	}
+
+	/**
+	 * Opens the index of a resource. The file of a resource is memory-mapped, the
+	 * entry of a jar is read as is.
+	 */
+	public static ArtifactUsageIndex open(URL resource) throws IOException {
+		if ("file".equals(resource.getProtocol())) {
+			try (FileChannel channel = FileChannel.open(Paths.get(resource.toURI()), StandardOpenOption.READ)) {
+				return new ArtifactUsageIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+			} catch (URISyntaxException e) {
+				throw new IOException(e);
+			}
+		}
+		try (InputStream input = resource.openStream()) {
+			return new ArtifactUsageIndex(ByteBuffer.wrap(input.readAllBytes()));
+		}
+	}
+
+	public static ArtifactUsageIndex open(ByteBuffer buffer) {
+		return new ArtifactUsageIndex(buffer);
+	}
+
+	public int size() {
+		return this.groupCount;
+	}
+
+	/**
+	 * Returns the usage of the group, or -1 if it is unknown.
+	 */
+	public int getGroupUsage(String groupId) {
+		int group = find(groupId, 0, this.groupCount, true);
+		return group < 0 ? -1 : this.buffer.getInt(HEADER_SIZE + group * GROUP_SIZE + 8);
+	}
+
+	/**
+	 * Searches the groupIds like {@link CoordinateIndex#search}: the groupId equal
+	 * to the text, then those starting with it, then those containing it, each
+	 * ranked by usage.
+	 */
+	public List<String> searchGroupIds(String text, int limit) {
+		return search(text, limit, 0, this.groupCount, true);
+	}
+
+	public List<String> searchArtifactIds(String groupId, String text, int limit) {
+		int group = find(groupId, 0, this.groupCount, true);
+		if (group < 0) {
+			return Collections.emptyList();
+		}
+		int record = HEADER_SIZE + group * GROUP_SIZE;
+		return search(text, limit, this.buffer.getInt(record + 12), this.buffer.getInt(record + 16), false);
+	}
+
+	private List<String> search(String text, int limit, int start, int count, boolean groups) {
+		List<String> results = new ArrayList<>(Math.min(Math.max(limit, 0), count));
+		if (limit <= 0) {
+			return results;
+		}
+		int exact = find(text, start, count, groups);
+		if (exact >= 0) {
+			results.add(text);
+		}
+		int ranksStart = groups ? this.groupRanksStart : this.artifactRanksStart;
+		// the prefix matches first, then the other matches
+		for (int pass = 0; pass < 2; pass++) {
+			for (int i = start; i < start + count && results.size() < limit; i++) {
+				int index = this.buffer.getInt(ranksStart + i * 4);
+				if (index == exact) {
+					continue;
+				}
+				String name = getName(index, groups);
+				boolean prefix = name.startsWith(text);
+				if (pass == 0 ? prefix : !prefix && name.contains(text)) {
+					results.add(name);
+				}
+			}
+		}
+		return results;
+	}
+
+	private int find(String name, int start, int count, boolean groups) {
+		int low = start;
+		int high = start + count - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int result = getName(middle, groups).compareTo(name);
+			if (result < 0) {
+				low = middle + 1;
+			} else if (result > 0) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+
+	private String getName(int index, boolean groups) {
+		String[] names = groups ? this.groupNames : this.artifactNames;
+		String name = names[index];
+		if (name == null) {
+			int record = groups ? HEADER_SIZE + index * GROUP_SIZE : this.artifactsStart + index * ARTIFACT_SIZE;
+			byte[] bytes = new byte[this.buffer.getInt(record + 4)];
+			this.buffer.get(this.stringsStart + this.buffer.getInt(record), bytes);
+			name = new String(bytes, StandardCharsets.UTF_8);
+			names[index] = name;
+		}
+		return name;
+	}
+
+	/**
+	 * Writes the index of the usage of the artifacts, by groupId:artifactId.
+	 */
+	public static void write(Map<String, Integer> usages, OutputStream output) throws IOException {
+		// <groupId, <artifactId, usage>>
+		TreeMap<String, TreeMap<String, Integer>> groups = new TreeMap<>();
+		for (Map.Entry<String, Integer> entry : usages.entrySet()) {
+			String[] ids = entry.getKey().split(":");
+			if (ids.length < 2 || entry.getValue() == null) {
+				continue;
+			}
+			groups.computeIfAbsent(ids[0], key -> new TreeMap<>()).merge(ids[1], entry.getValue(), Integer::sum);
+		}
+		ByteArrayOutputStream strings = new ByteArrayOutputStream();
+		Map<String, Integer> stringOffsets = new HashMap<>();
+		int artifactCount = groups.values().stream().mapToInt(Map::size).sum();
+		int[] groupRecords = new int[groups.size() * 5];
+		int[] artifactRecords = new int[artifactCount * 3];
+		Integer[] groupRanks = new Integer[groups.size()];
+		Integer[] artifactRanks = new Integer[artifactCount];
+		int group = 0;
+		int artifact = 0;
+		for (Map.Entry<String, TreeMap<String, Integer>> entry : groups.entrySet()) {
+			int first = artifact;
+			int groupUsage = 0;
+			for (Map.Entry<String, Integer> artifactUsage : entry.getValue().entrySet()) {
+				addString(artifactUsage.getKey(), strings, stringOffsets, artifactRecords, artifact * 3);
+				artifactRecords[artifact * 3 + 2] = artifactUsage.getValue();
+				artifactRanks[artifact] = artifact;
+				groupUsage += artifactUsage.getValue();
+				artifact++;
+			}
+			addString(entry.getKey(), strings, stringOffsets, groupRecords, group * 5);
+			groupRecords[group * 5 + 2] = groupUsage;
+			groupRecords[group * 5 + 3] = first;
+			groupRecords[group * 5 + 4] = artifact - first;
+			// the artifacts of a group are ranked within its range
+			Arrays.sort(artifactRanks, first, artifact, byUsage(artifactRecords, 3));
+			groupRanks[group] = group;
+			group++;
+		}
+		Arrays.sort(groupRanks, byUsage(groupRecords, 5));
+		DataOutputStream data = new DataOutputStream(output);
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeInt(groups.size());
+		data.writeInt(artifactCount);
+		for (int value : groupRecords) {
+			data.writeInt(value);
+		}
+		for (int value : artifactRecords) {
+			data.writeInt(value);
+		}
+		for (int value : groupRanks) {
+			data.writeInt(value);
+		}
+		for (int value : artifactRanks) {
+			data.writeInt(value);
+		}
+		strings.writeTo(data);
+		data.flush();
+	}
+
+	private static void addString(String name, ByteArrayOutputStream strings, Map<String, Integer> offsets,
+			int[] records, int record) {
+		byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		Integer offset = offsets.get(name);
+		if (offset == null) {
+			offset = strings.size();
+			offsets.put(name, offset);
+			strings.write(bytes, 0, bytes.length);
+		}
+		records[record] = offset;
+		records[record + 1] = bytes.length;
+	}
+
+	/**
+	 * Orders the records by decreasing usage, then by name.
+	 */
+	private static Comparator<Integer> byUsage(int[] records, int recordSize) {
+		return Comparator.<Integer>comparingInt(index -> -records[index * recordSize + 2])
+				.thenComparingInt(index -> index);
+	}
+
+	private static byte[] toBytes(Map<String, Integer> usages) {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try {
+			write(usages, output);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return output.toByteArray();
+	}
+
+	/**
+	 * Generates the index of the build.
+	 *
+	 * Usage: ArtifactUsageIndex [ArtifactUsage.json] [output file]
+	 */
+	public static void main(String[] args) throws IOException {
+		Map<String, Integer> usages;
+		try (Reader reader = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+			usages = new Gson().fromJson(reader, new TypeToken<Map<String, Integer>>() {
+			}.getType());
+		}
+		Path output = Paths.get(args[1]);
+		Files.createDirectories(output.toAbsolutePath().getParent());
+		try (OutputStream stream = Files.newOutputStream(output)) {
+			write(usages, stream);
+		}
+	}
+}
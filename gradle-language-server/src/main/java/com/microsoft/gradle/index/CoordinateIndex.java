@@ -0,0 +1,266 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * An immutable, usage-weighted index of coordinate parts (groupIds or
+ * artifactIds).
+ *
+ * Keys are kept in a sorted array, so all keys sharing a prefix form one
+ * contiguous slice, and a max-weight tree over that array returns the top
+ * ranked keys of any slice without scanning it. Substring matches are answered
+ * from a trigram side index when the index is large enough to need one.
+ */
+public class CoordinateIndex {
+
+	private static int GRAM_LENGTH = 3;
+	// below this size a linear scan is cheaper than maintaining trigram postings
+	private static int GRAM_INDEX_THRESHOLD = 64;
+
+	public static final CoordinateIndex EMPTY = new Builder().build();
+
+	private final String[] keys;
+	private final int[] weights;
+	// iterative segment tree, each node stores the index of the heaviest key
+	private final int[] maxTree;
+	private final int leaves;
+	private final Map<Long, int[]> grams;
+
+	private CoordinateIndex(String[] keys, int[] weights) {
+		this.keys = keys;
+		this.weights = weights;
+		int size = 1;
+		while (size < keys.length) {
+			size <<= 1;
+		}
+		this.leaves = size;
+		this.maxTree = new int[size * 2];
+		Arrays.fill(this.maxTree, -1);
+		for (int i = 0; i < keys.length; i++) {
+			this.maxTree[size + i] = i;
+		}
+		for (int i = size - 1; i > 0; i--) {
+			this.maxTree[i] = heavier(this.maxTree[2 * i], this.maxTree[2 * i + 1]);
+		}
+		this.grams = keys.length >= GRAM_INDEX_THRESHOLD ? buildGrams(keys) : null;
+	}
+
+	public int size() {
+		return this.keys.length;
+	}
+
+	public boolean contains(String key) {
+		return Arrays.binarySearch(this.keys, key) >= 0;
+	}
+
+	public int getWeight(String key) {
+		int index = Arrays.binarySearch(this.keys, key);
+		return index >= 0 ? this.weights[index] : -1;
+	}
+
+	/**
+	 * Search the keys matching the text. The priority is: key equals text > text
+	 * is the prefix of key > key contains text, and keys of the same priority are
+	 * ranked by weight.
+	 */
+	public List<String> search(String text, int limit) {
+		if (limit <= 0 || this.keys.length == 0) {
+			return Collections.emptyList();
+		}
+		List<String> results = new ArrayList<>(Math.min(limit, this.keys.length));
+		int low = lowerBound(text);
+		int high = lowerBound(text + Character.MAX_VALUE);
+		int exact = -1;
+		if (low < high && this.keys[low].equals(text)) {
+			exact = low;
+			results.add(text);
+		}
+		addTopWeighted(exact == -1 ? low : low + 1, high, limit, results);
+		if (results.size() < limit && !text.isEmpty()) {
+			addContaining(text, low, high, limit, results);
+		}
+		return results;
+	}
+
+	private void addTopWeighted(int from, int to, int limit, List<String> results) {
+		if (from >= to) {
+			return;
+		}
+		// each entry is {from, to, heaviest index in [from, to)}
+		PriorityQueue<int[]> queue = new PriorityQueue<>(
+				(a, b) -> a[2] == b[2] ? 0 : (heavier(a[2], b[2]) == a[2] ? -1 : 1));
+		queue.add(new int[]{from, to, maxIndex(from, to)});
+		while (!queue.isEmpty() && results.size() < limit) {
+			int[] slice = queue.poll();
+			int index = slice[2];
+			results.add(this.keys[index]);
+			if (slice[0] < index) {
+				queue.add(new int[]{slice[0], index, maxIndex(slice[0], index)});
+			}
+			if (index + 1 < slice[1]) {
+				queue.add(new int[]{index + 1, slice[1], maxIndex(index + 1, slice[1])});
+			}
+		}
+	}
+
+	private void addContaining(String text, int prefixFrom, int prefixTo, int limit, List<String> results) {
+		// keep only the heaviest matches, the lightest one on top of the queue
+		int capacity = limit - results.size();
+		PriorityQueue<Integer> matches = new PriorityQueue<>(capacity + 1,
+				(a, b) -> a.equals(b) ? 0 : (heavier(a, b) == a ? 1 : -1));
+		if (this.grams != null && text.length() >= GRAM_LENGTH) {
+			// every match contains all trigrams of the text, so the shortest posting list
+			// is enough to enumerate the candidates
+			int[] candidates = null;
+			for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+				int[] postings = this.grams.get(gram(text, i));
+				if (postings == null) {
+					return;
+				}
+				if (candidates == null || postings.length < candidates.length) {
+					candidates = postings;
+				}
+			}
+			for (int candidate : candidates) {
+				if (candidate < prefixFrom || candidate >= prefixTo) {
+					addMatch(candidate, text, capacity, matches);
+				}
+			}
+		} else {
+			for (int i = 0; i < this.keys.length; i++) {
+				if (i < prefixFrom || i >= prefixTo) {
+					addMatch(i, text, capacity, matches);
+				}
+			}
+		}
+		String[] sorted = new String[matches.size()];
+		for (int i = sorted.length - 1; i >= 0; i--) {
+			sorted[i] = this.keys[matches.poll()];
+		}
+		results.addAll(Arrays.asList(sorted));
+	}
+
+	private void addMatch(int index, String text, int capacity, PriorityQueue<Integer> matches) {
+		if (matches.size() == capacity && heavier(matches.peek(), index) != index) {
+			return;
+		}
+		if (!this.keys[index].contains(text)) {
+			return;
+		}
+		matches.add(index);
+		if (matches.size() > capacity) {
+			matches.poll();
+		}
+	}
+
+	private int lowerBound(String text) {
+		int low = 0;
+		int high = this.keys.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (this.keys[middle].compareTo(text) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	private int maxIndex(int from, int to) {
+		int result = -1;
+		for (int l = from + this.leaves, r = to + this.leaves; l < r; l >>= 1, r >>= 1) {
+			if ((l & 1) == 1) {
+				result = heavier(result, this.maxTree[l++]);
+			}
+			if ((r & 1) == 1) {
+				result = heavier(result, this.maxTree[--r]);
+			}
+		}
+		return result;
+	}
+
+	private int heavier(int a, int b) {
+		if (a == -1) {
+			return b;
+		}
+		if (b == -1) {
+			return a;
+		}
+		if (this.weights[a] != this.weights[b]) {
+			return this.weights[a] > this.weights[b] ? a : b;
+		}
+		// same weight, keep the alphabetical order
+		return Math.min(a, b);
+	}
+
+	private static Map<Long, int[]> buildGrams(String[] keys) {
+		Map<Long, IntList> postings = new HashMap<>();
+		for (int i = 0; i < keys.length; i++) {
+			String key = keys[i];
+			for (int j = 0; j + GRAM_LENGTH <= key.length(); j++) {
+				postings.computeIfAbsent(gram(key, j), k -> new IntList()).addUnique(i);
+			}
+		}
+		Map<Long, int[]> grams = new HashMap<>(postings.size() * 4 / 3 + 1);
+		for (Map.Entry<Long, IntList> entry : postings.entrySet()) {
+			grams.put(entry.getKey(), entry.getValue().toArray());
+		}
+		return grams;
+	}
+
+	private static long gram(String text, int start) {
+		return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+	}
+
+	private static class IntList {
+		private int[] values = new int[4];
+		private int size;
+
+		private void addUnique(int value) {
+			// ids are added in increasing order, so a duplicate can only be the last one
+			if (this.size > 0 && this.values[this.size - 1] == value) {
+				return;
+			}
+			if (this.size == this.values.length) {
+				this.values = Arrays.copyOf(this.values, this.size * 2);
+			}
+			this.values[this.size++] = value;
+		}
+
+		private int[] toArray() {
+			return Arrays.copyOf(this.values, this.size);
+		}
+	}
+
+	public static class Builder {
+		private final Map<String, Integer> weights = new HashMap<>();
+
+		/**
+		 * Add a key, the weights of a key added several times are summed up.
+		 */
+		public Builder add(String key, int weight) {
+			this.weights.merge(key, weight, Integer::sum);
+			return this;
+		}
+
+		public CoordinateIndex build() {
+			String[] keys = this.weights.keySet().toArray(new String[0]);
+			Arrays.sort(keys);
+			int[] weights = new int[keys.length];
+			for (int i = 0; i < keys.length; i++) {
+				weights[i] = this.weights.get(keys[i]);
+			}
+			return new CoordinateIndex(keys, weights);
+		}
+	}
+}
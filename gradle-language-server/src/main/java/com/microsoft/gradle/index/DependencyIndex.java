@@ -0,0 +1,165 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Coordinate index shared by the dependency completion handlers: one index for
+ * the groupIds, one index of artifactIds per groupId, and the known versions
+ * of every artifact.
+ */
+public class DependencyIndex {
+
+	public static final DependencyIndex EMPTY = new Builder().build();
+
+	private final CoordinateIndex groupIds;
+	// <groupId, artifactIds>
+	private final Map<String, CoordinateIndex> artifactIds;
+	// <groupId:artifactId, versions sorted from the newest>
+	private final Map<String, String[]> versions;
+
+	private DependencyIndex(CoordinateIndex groupIds, Map<String, CoordinateIndex> artifactIds,
+			Map<String, String[]> versions) {
+		this.groupIds = groupIds;
+		this.artifactIds = artifactIds;
+		this.versions = versions;
+	}
+
+	public int size() {
+		return this.groupIds.size();
+	}
+
+	public boolean containsGroup(String groupId) {
+		return this.artifactIds.containsKey(groupId);
+	}
+
+	public List<String> searchGroupIds(String text, int limit) {
+		return this.groupIds.search(text, limit);
+	}
+
+	public List<String> searchArtifactIds(String groupId, String text, int limit) {
+		CoordinateIndex index = this.artifactIds.get(groupId);
+		if (index == null) {
+			return Collections.emptyList();
+		}
+		return index.search(text, limit);
+	}
+
+	/**
+	 * Returns the versions of the artifact starting with the text, from the newest
+	 * to the oldest.
+	 */
+	public List<String> searchVersions(String groupId, String artifactId, String text, int limit) {
+		String[] artifactVersions = this.versions.get(groupId + ":" + artifactId);
+		if (artifactVersions == null) {
+			return Collections.emptyList();
+		}
+		List<String> results = new ArrayList<>();
+		for (String version : artifactVersions) {
+			if (results.size() >= limit) {
+				break;
+			}
+			if (version.startsWith(text)) {
+				results.add(version);
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Compares versions segment by segment, numeric segments are compared by
+	 * value, so that 1.10 is newer than 1.9 and 2.0 is newer than 2.0-rc1.
+	 */
+	static int compareVersions(String a, String b) {
+		String[] left = a.split("[.\\-_+]");
+		String[] right = b.split("[.\\-_+]");
+		for (int i = 0; i < Math.min(left.length, right.length); i++) {
+			int result = compareSegments(left[i], right[i]);
+			if (result != 0) {
+				return result;
+			}
+		}
+		if (left.length != right.length) {
+			// a qualifier makes a pre-release (1.0-beta), a number a later release (1.0.1)
+			String[] longer = left.length > right.length ? left : right;
+			boolean release = isNumeric(longer[Math.min(left.length, right.length)]);
+			int sign = left.length > right.length ? 1 : -1;
+			return release ? sign : -sign;
+		}
+		return a.compareTo(b);
+	}
+
+	private static int compareSegments(String a, String b) {
+		boolean numericA = isNumeric(a);
+		boolean numericB = isNumeric(b);
+		if (numericA && numericB) {
+			// compare by length first to avoid overflowing on long numbers
+			String trimmedA = a.replaceFirst("^0+(?=.)", "");
+			String trimmedB = b.replaceFirst("^0+(?=.)", "");
+			if (trimmedA.length() != trimmedB.length()) {
+				return Integer.compare(trimmedA.length(), trimmedB.length());
+			}
+			return trimmedA.compareTo(trimmedB);
+		}
+		if (numericA != numericB) {
+			// 1.0.1 is newer than 1.0.beta
+			return numericA ? 1 : -1;
+		}
+		return a.compareToIgnoreCase(b);
+	}
+
+	private static boolean isNumeric(String segment) {
+		if (segment.isEmpty()) {
+			return false;
+		}
+		for (int i = 0; i < segment.length(); i++) {
+			if (!Character.isDigit(segment.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public static class Builder {
+		private final CoordinateIndex.Builder groupIds = new CoordinateIndex.Builder();
+		private final Map<String, CoordinateIndex.Builder> artifactIds = new HashMap<>();
+		private final Map<String, Set<String>> versions = new HashMap<>();
+
+		/**
+		 * Add an artifact, the usage of a group is the sum of its artifacts' usage.
+		 */
+		public Builder add(String groupId, String artifactId, int usage) {
+			this.groupIds.add(groupId, usage);
+			this.artifactIds.computeIfAbsent(groupId, k -> new CoordinateIndex.Builder()).add(artifactId, usage);
+			return this;
+		}
+
+		public Builder addVersion(String groupId, String artifactId, String version) {
+			this.versions.computeIfAbsent(groupId + ":" + artifactId, k -> new HashSet<>()).add(version);
+			return this;
+		}
+
+		public DependencyIndex build() {
+			Map<String, CoordinateIndex> artifactIds = new HashMap<>(this.artifactIds.size() * 4 / 3 + 1);
+			for (Map.Entry<String, CoordinateIndex.Builder> entry : this.artifactIds.entrySet()) {
+				artifactIds.put(entry.getKey(), entry.getValue().build());
+			}
+			Map<String, String[]> versions = new HashMap<>(this.versions.size() * 4 / 3 + 1);
+			for (Map.Entry<String, Set<String>> entry : this.versions.entrySet()) {
+				String[] sorted = entry.getValue().toArray(new String[0]);
+				Arrays.sort(sorted, (a, b) -> compareVersions(b, a));
+				versions.put(entry.getKey(), sorted);
+			}
+			return new DependencyIndex(this.groupIds.build(), artifactIds, versions);
+		}
+	}
+}
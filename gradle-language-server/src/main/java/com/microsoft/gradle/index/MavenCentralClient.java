@@ -0,0 +1,172 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.index;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous client of the Maven Central search API.
+ *
+ * Responses are kept in an LRU cache for a while, concurrent searches of the
+ * same query share one request, and the number of requests in flight is
+ * bounded. After a failure (offline, timeout) remote searches are skipped for
+ * a while, so a missing network never slows down completion.
+ */
+public class MavenCentralClient {
+
+	public static String DEFAULT_URL = "https://search.maven.org/solrsearch/select";
+
+	private static int CACHE_SIZE = 256;
+	private static long CACHE_TTL = TimeUnit.MINUTES.toMillis(10);
+	private static long FAILURE_BACKOFF = TimeUnit.SECONDS.toMillis(30);
+	private static int MAX_REQUESTS_IN_FLIGHT = 4;
+
+	private static class CacheEntry {
+		private final List<JsonObject> docs;
+		private final long timestamp;
+
+		private CacheEntry(List<JsonObject> docs, long timestamp) {
+			this.docs = docs;
+			this.timestamp = timestamp;
+		}
+	}
+
+	private final String url;
+	private final Duration timeout;
+	private final HttpClient httpClient;
+	// <query, response docs>, in access order
+	private final Map<String, CacheEntry> cache = new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+	private final Map<String, CompletableFuture<List<JsonObject>>> inFlight = new ConcurrentHashMap<>();
+	private volatile long lastFailure;
+
+	public MavenCentralClient() {
+		this(DEFAULT_URL, Duration.ofSeconds(3));
+	}
+
+	public MavenCentralClient(String url, Duration timeout) {
+		this.url = url;
+		this.timeout = timeout;
+		this.httpClient = HttpClient.newBuilder().connectTimeout(timeout)
+				.executor(Executors.newCachedThreadPool(runnable -> {
+					Thread thread = new Thread(runnable, "Maven Central Client");
+					thread.setDaemon(true);
+					return thread;
+				})).build();
+	}
+
+	/**
+	 * Returns the cached response docs of the query, or null if the query is not
+	 * cached.
+	 */
+	public List<JsonObject> getCached(String query) {
+		synchronized (this.cache) {
+			CacheEntry entry = this.cache.get(query);
+			if (entry == null) {
+				return null;
+			}
+			if (System.currentTimeMillis() - entry.timestamp > CACHE_TTL) {
+				this.cache.remove(query);
+				return null;
+			}
+			return entry.docs;
+		}
+	}
+
+	/**
+	 * Search the query (such as "q=g:junit&rows=50&wt=json"). The returned future
+	 * never completes exceptionally, failures result in an empty list. Cancelling
+	 * it does not abort the request, whose response is still cached for the next
+	 * search.
+	 */
+	public CompletableFuture<List<JsonObject>> search(String query) {
+		List<JsonObject> cached = getCached(query);
+		if (cached != null) {
+			return CompletableFuture.completedFuture(cached);
+		}
+		if (System.currentTimeMillis() - this.lastFailure < FAILURE_BACKOFF) {
+			return CompletableFuture.completedFuture(Collections.emptyList());
+		}
+		CompletableFuture<List<JsonObject>> request = this.inFlight.get(query);
+		if (request == null) {
+			if (this.inFlight.size() >= MAX_REQUESTS_IN_FLIGHT) {
+				return CompletableFuture.completedFuture(Collections.emptyList());
+			}
+			CompletableFuture<List<JsonObject>> newRequest = new CompletableFuture<>();
+			request = this.inFlight.putIfAbsent(query, newRequest);
+			if (request == null) {
+				request = newRequest;
+				send(query, newRequest);
+			}
+		}
+		// each caller gets its own future, so that cancelling it keeps the shared
+		// request alive
+		return request.thenApply(docs -> docs);
+	}
+
+	private void send(String query, CompletableFuture<List<JsonObject>> request) {
+		HttpRequest httpRequest;
+		try {
+			httpRequest = HttpRequest.newBuilder(URI.create(this.url + "?" + query)).timeout(this.timeout).GET()
+					.build();
+		} catch (IllegalArgumentException e) {
+			this.inFlight.remove(query);
+			request.complete(Collections.emptyList());
+			return;
+		}
+		this.httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofString()).handle((response, error) -> {
+			List<JsonObject> docs = null;
+			if (error == null && response.statusCode() == 200) {
+				docs = parseDocs(response.body());
+			}
+			if (docs == null) {
+				this.lastFailure = System.currentTimeMillis();
+			} else {
+				synchronized (this.cache) {
+					this.cache.put(query, new CacheEntry(docs, System.currentTimeMillis()));
+				}
+			}
+			this.inFlight.remove(query);
+			request.complete(docs == null ? Collections.emptyList() : docs);
+			return null;
+		});
+	}
+
+	private static List<JsonObject> parseDocs(String body) {
+		try {
+			JsonObject jsonResult = new Gson().fromJson(body, JsonObject.class);
+			JsonArray docs = jsonResult.getAsJsonObject("response").getAsJsonArray("docs");
+			List<JsonObject> results = new ArrayList<>();
+			for (JsonElement element : docs) {
+				if (element instanceof JsonObject) {
+					results.add((JsonObject) element);
+				}
+			}
+			return Collections.unmodifiableList(results);
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,348 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Indexes a local artifact repository (such as ~/.m2/repository or the Gradle
+ * module cache) in the background.
+ *
+ * Every directory is recorded with its modification time. A rescan only lists
+ * the directories whose modification time changed and reuses the records of
+ * the others, so refreshing an unchanged repository costs one stat per
+ * directory. The records are persisted, the next start serves completions from
+ * them right away while the repository is rescanned.
+ */
+public class RepositoryIndexer {
+
+	private static int MAGIC = 0x47524958;
+	private static int FORMAT_VERSION = 2;
+	private static long REFRESH_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+
+	public enum Layout {
+		// GroupIds/ArtifactId/Version/*.pom, such as ~/.m2/repository
+		MAVEN,
+		// GroupId/ArtifactId/Version/Hash/*, such as
+		// ~/.gradle/caches/modules-2/files-2.1
+		GRADLE_CACHE
+	}
+
+	private enum Kind {
+		CONTAINER,
+		// the children of an artifact directory are its versions
+		ARTIFACT,
+		// a version directory directly contains the pom file
+		VERSION
+	}
+
+	private static class DirectoryRecord {
+		private final long lastModified;
+		private final Kind kind;
+		private final String[] children;
+
+		private DirectoryRecord(long lastModified, Kind kind, String[] children) {
+			this.lastModified = lastModified;
+			this.kind = kind;
+			this.children = children;
+		}
+	}
+
+	private final Path root;
+	private final Layout layout;
+	private final ExecutorService executor;
+	private final AtomicReference<CompletableFuture<Void>> runningScan = new AtomicReference<>();
+	private volatile DependencyIndex index = DependencyIndex.EMPTY;
+	private volatile long lastScan;
+	private volatile Path storageFile;
+	// <relative path, record>, only accessed from the indexer thread
+	private Map<String, DirectoryRecord> records;
+
+	public RepositoryIndexer(Path root, Layout layout) {
+		this.root = root;
+		this.layout = layout;
+		this.executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "Repository Indexer: " + root);
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	public void setStorageFile(Path storageFile) {
+		this.storageFile = storageFile;
+	}
+
+	/**
+	 * Returns the last good index, and schedules a background rescan when it is
+	 * outdated.
+	 */
+	public DependencyIndex getIndex() {
+		if (System.currentTimeMillis() - this.lastScan >= REFRESH_INTERVAL) {
+			refresh();
+		}
+		return this.index;
+	}
+
+	/**
+	 * Schedules a rescan, a scan which is already running is reused.
+	 */
+	public CompletableFuture<Void> refresh() {
+		while (true) {
+			CompletableFuture<Void> running = this.runningScan.get();
+			if (running != null) {
+				return running;
+			}
+			CompletableFuture<Void> scan = new CompletableFuture<>();
+			if (this.runningScan.compareAndSet(null, scan)) {
+				if (this.executor.isShutdown()) {
+					// closed indexers keep serving their last index
+					this.runningScan.set(null);
+					scan.complete(null);
+					return scan;
+				}
+				this.executor.execute(() -> {
+					Throwable failure = null;
+					try {
+						scan();
+					} catch (Throwable e) {
+						failure = e;
+					}
+					this.lastScan = System.currentTimeMillis();
+					this.runningScan.set(null);
+					if (failure == null) {
+						scan.complete(null);
+					} else {
+						scan.completeExceptionally(failure);
+					}
+				});
+				return scan;
+			}
+		}
+	}
+
+	/**
+	 * Stops indexing, a running scan is finished first.
+	 */
+	public void close() {
+		this.executor.shutdown();
+	}
+
+	private void scan() {
+		if (this.records == null) {
+			this.records = load();
+			if (!this.records.isEmpty()) {
+				// serve the persisted index while scanning
+				this.index = buildIndex(this.records);
+			}
+		}
+		Map<String, DirectoryRecord> newRecords = new HashMap<>();
+		boolean changed = false;
+		if (Files.isDirectory(this.root)) {
+			changed = scanDirectory(this.root, "", 0, newRecords);
+		}
+		changed = changed || newRecords.size() != this.records.size();
+		this.records = newRecords;
+		if (changed || this.index == DependencyIndex.EMPTY) {
+			this.index = buildIndex(newRecords);
+			persist();
+		}
+	}
+
+	/**
+	 * Returns true if the directory or any of its sub directories changed since
+	 * the previous scan.
+	 */
+	private boolean scanDirectory(Path directory, String relativePath, int depth,
+			Map<String, DirectoryRecord> newRecords) {
+		long lastModified;
+		try {
+			lastModified = Files.readAttributes(directory, BasicFileAttributes.class).lastModifiedTime().toMillis();
+		} catch (IOException e) {
+			return true;
+		}
+		DirectoryRecord record = this.records.get(relativePath);
+		boolean changed = false;
+		if (record == null || record.lastModified != lastModified) {
+			record = listDirectory(directory, depth, lastModified);
+			changed = true;
+		}
+		newRecords.put(relativePath, record);
+		if (record.kind != Kind.CONTAINER) {
+			return changed;
+		}
+		for (String child : record.children) {
+			String childPath = relativePath.isEmpty() ? child : relativePath + "/" + child;
+			changed |= scanDirectory(directory.resolve(child), childPath, depth + 1, newRecords);
+		}
+		return changed;
+	}
+
+	private DirectoryRecord listDirectory(Path directory, int depth, long lastModified) {
+		List<String> children = new ArrayList<>();
+		boolean containsPom = false;
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+			for (Path entry : stream) {
+				String name = entry.getFileName().toString();
+				if (Files.isDirectory(entry)) {
+					children.add(name);
+				} else if (name.endsWith(".pom")) {
+					containsPom = true;
+				}
+			}
+		} catch (IOException e) {
+			// treat unreadable directories as empty
+		}
+		String[] childNames = children.toArray(new String[0]);
+		if (this.layout == Layout.GRADLE_CACHE && depth == 2) {
+			return new DirectoryRecord(lastModified, Kind.ARTIFACT, childNames);
+		} else if (this.layout == Layout.MAVEN && containsPom) {
+			// nothing to index below a version directory
+			return new DirectoryRecord(lastModified, Kind.VERSION, new String[0]);
+		}
+		return new DirectoryRecord(lastModified, Kind.CONTAINER, childNames);
+	}
+
+	private static DependencyIndex buildIndex(Map<String, DirectoryRecord> records) {
+		DependencyIndex.Builder builder = new DependencyIndex.Builder();
+		for (Map.Entry<String, DirectoryRecord> entry : records.entrySet()) {
+			DirectoryRecord record = entry.getValue();
+			String[] segments = entry.getKey().split("/");
+			int count = segments.length;
+			// local artifacts have no usage info, they are ranked alphabetically
+			if (record.kind == Kind.VERSION && count >= 3) {
+				String groupId = String.join(".", Arrays.asList(segments).subList(0, count - 2));
+				builder.add(groupId, segments[count - 2], 0);
+				builder.addVersion(groupId, segments[count - 2], segments[count - 1]);
+			} else if (record.kind == Kind.ARTIFACT && count == 2) {
+				builder.add(segments[0], segments[1], 0);
+				for (String version : record.children) {
+					builder.addVersion(segments[0], segments[1], version);
+				}
+			}
+		}
+		return builder.build();
+	}
+
+	private Map<String, DirectoryRecord> load() {
+		Path file = this.storageFile;
+		if (file == null || !Files.isRegularFile(file)) {
+			return new HashMap<>();
+		}
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION
+					|| !input.readUTF().equals(this.root.toString())) {
+				return new HashMap<>();
+			}
+			int size = input.readInt();
+			String[] paths = new String[size];
+			long[] lastModified = new long[size];
+			Kind[] kinds = new Kind[size];
+			String[][] versions = new String[size][];
+			String previous = "";
+			for (int i = 0; i < size; i++) {
+				// paths are sorted and stored as <shared prefix length, suffix>
+				int shared = input.readUnsignedShort();
+				paths[i] = previous.substring(0, shared) + input.readUTF();
+				lastModified[i] = input.readLong();
+				kinds[i] = Kind.values()[input.readByte()];
+				if (kinds[i] == Kind.ARTIFACT) {
+					versions[i] = new String[input.readInt()];
+					for (int j = 0; j < versions[i].length; j++) {
+						versions[i][j] = input.readUTF();
+					}
+				}
+				previous = paths[i];
+			}
+			Map<String, List<String>> children = new HashMap<>();
+			for (String path : paths) {
+				int index = path.lastIndexOf('/');
+				String parent = index < 0 ? "" : path.substring(0, index);
+				if (!path.isEmpty()) {
+					children.computeIfAbsent(parent, k -> new ArrayList<>()).add(path.substring(index + 1));
+				}
+			}
+			Map<String, DirectoryRecord> records = new HashMap<>(size * 4 / 3 + 1);
+			for (int i = 0; i < size; i++) {
+				List<String> names = children.get(paths[i]);
+				String[] childNames = names == null ? new String[0] : names.toArray(new String[0]);
+				if (kinds[i] == Kind.ARTIFACT) {
+					// versions of an artifact are not recorded as directories
+					childNames = versions[i];
+				}
+				records.put(paths[i], new DirectoryRecord(lastModified[i], kinds[i], childNames));
+			}
+			return records;
+		} catch (IOException | RuntimeException e) {
+			// corrupted index, rebuild it from scratch
+			return new HashMap<>();
+		}
+	}
+
+	private void persist() {
+		Path file = this.storageFile;
+		if (file == null) {
+			return;
+		}
+		try {
+			Files.createDirectories(file.getParent());
+			Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+			String[] paths = this.records.keySet().toArray(new String[0]);
+			Arrays.sort(paths);
+			try (DataOutputStream output = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				output.writeInt(MAGIC);
+				output.writeInt(FORMAT_VERSION);
+				output.writeUTF(this.root.toString());
+				output.writeInt(paths.length);
+				String previous = "";
+				for (String path : paths) {
+					int shared = sharedPrefixLength(previous, path);
+					DirectoryRecord record = this.records.get(path);
+					output.writeShort(shared);
+					output.writeUTF(path.substring(shared));
+					output.writeLong(record.lastModified);
+					output.writeByte(record.kind.ordinal());
+					if (record.kind == Kind.ARTIFACT) {
+						output.writeInt(record.children.length);
+						for (String version : record.children) {
+							output.writeUTF(version);
+						}
+					}
+					previous = path;
+				}
+			}
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			// the index is rebuilt by the next start
+		}
+	}
+
+	private static int sharedPrefixLength(String a, String b) {
+		int max = Math.min(Math.min(a.length(), b.length()), 0xFFFF);
+		int i = 0;
+		while (i < max && a.charAt(i) == b.charAt(i)) {
+			i++;
+		}
+		return i;
+	}
+}
@@ -0,0 +1,330 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.index;
+
+import com.google.gson.Gson;
+import com.microsoft.gradle.compile.DocumentSymbolVisitor;
+import com.microsoft.gradle.compile.GradleCompilationUnit;
+import com.microsoft.gradle.kotlin.KotlinScript;
+import com.microsoft.gradle.manager.GradleFilesManager;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
+import org.eclipse.lsp4j.DocumentSymbol;
+
+/**
+ * Indexes the symbols and dependencies of all Gradle scripts of the workspace
+ * in the background, so that they can be answered without opening and
+ * compiling the scripts.
+ *
+ * Scripts are only parsed, no class is resolved. A script is indexed again
+ * when its modification time or size changes. The entries are persisted, the
+ * next start only parses the scripts changed in between.
+ */
+public class ScriptIndexer {
+
+	private static int FORMAT_VERSION = 1;
+	private static int INDEX_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+	private static class ScriptEntry {
+		private long lastModified;
+		private long size;
+		private List<DocumentSymbol> symbols;
+		private List<DocumentSymbol> dependencies;
+
+		private ScriptEntry(long lastModified, long size, List<DocumentSymbol> symbols,
+				List<DocumentSymbol> dependencies) {
+			this.lastModified = lastModified;
+			this.size = size;
+			this.symbols = symbols;
+			this.dependencies = dependencies;
+		}
+	}
+
+	private static class PersistedIndex {
+		private int version;
+		// <script path, entry>
+		private Map<String, ScriptEntry> scripts;
+	}
+
+	private final ExecutorService executor;
+	private final Set<Path> roots = ConcurrentHashMap.newKeySet();
+	// <script path, entry>
+	private final Map<Path, ScriptEntry> entries = new ConcurrentHashMap<>();
+	// <script path, last scheduled indexing>, later changes of a script are
+	// indexed after the running one
+	private final Map<Path, CompletableFuture<Void>> pending = new ConcurrentHashMap<>();
+	private final AtomicBoolean dirty = new AtomicBoolean();
+	private volatile CompletableFuture<Void> loaded = CompletableFuture.completedFuture(null);
+	private volatile Path storageFile;
+
+	public ScriptIndexer() {
+		this.executor = Executors.newFixedThreadPool(INDEX_THREADS, runnable -> {
+			Thread thread = new Thread(runnable, "Gradle Script Indexer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Sets the file persisting the index and loads its entries in the
+	 * background.
+	 */
+	public void setStorageFile(Path storageFile) {
+		this.storageFile = storageFile;
+		if (storageFile != null) {
+			this.loaded = CompletableFuture.runAsync(this::load, this.executor);
+		}
+	}
+
+	/**
+	 * Indexes the scripts of the workspace folder, the returned future completes
+	 * once they are all indexed.
+	 */
+	public CompletableFuture<Void> addWorkspaceFolder(Path root) {
+		this.roots.add(root);
+		return this.loaded.thenComposeAsync(ignored -> {
+			Set<Path> scripts = findScripts(root);
+			// drop the scripts deleted since the last start
+			for (Path path : this.entries.keySet()) {
+				if (path.startsWith(root) && !scripts.contains(path)) {
+					this.entries.remove(path);
+					this.dirty.set(true);
+				}
+			}
+			List<CompletableFuture<Void>> futures = new ArrayList<>();
+			for (Path script : scripts) {
+				futures.add(index(script));
+			}
+			return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+		}, this.executor).whenComplete((result, error) -> persist());
+	}
+
+	public void removeWorkspaceFolder(Path root) {
+		this.roots.remove(root);
+		// keep the entries of nested roots
+		this.entries.keySet().removeIf(path -> path.startsWith(root) && getRoot(path) == null);
+		this.dirty.set(true);
+		persist();
+	}
+
+	/**
+	 * Indexes a created or changed script of the workspace.
+	 */
+	public CompletableFuture<Void> scriptChanged(Path script) {
+		if (getRoot(script) == null) {
+			return CompletableFuture.completedFuture(null);
+		}
+		return index(script).whenComplete((result, error) -> persist());
+	}
+
+	public void scriptDeleted(Path script) {
+		if (this.entries.remove(script) != null) {
+			this.dirty.set(true);
+			persist();
+		}
+	}
+
+	/**
+	 * Returns the top level symbols of the script, or null if it is not indexed.
+	 */
+	public List<DocumentSymbol> getSymbols(Path script) {
+		ScriptEntry entry = this.entries.get(script);
+		return entry == null ? null : entry.symbols;
+	}
+
+	/**
+	 * Returns the dependencies declared by the script. Scripts which are not
+	 * indexed yet, such as scripts outside of the workspace, are indexed first.
+	 */
+	public List<DocumentSymbol> getDependencies(Path script) {
+		ScriptEntry entry = this.entries.get(script);
+		if (entry == null) {
+			entry = indexScript(script);
+		}
+		return entry == null ? null : entry.dependencies;
+	}
+
+	public int size() {
+		return this.entries.size();
+	}
+
+	public void close() {
+		this.executor.shutdown();
+	}
+
+	private CompletableFuture<Void> index(Path script) {
+		CompletableFuture<Void> future = this.pending.compute(script, (path, previous) -> {
+			CompletableFuture<Void> start = previous == null ? this.loaded : previous;
+			return start.handleAsync((result, error) -> {
+				indexScript(path);
+				return null;
+			}, this.executor);
+		});
+		future.whenComplete((result, error) -> this.pending.remove(script, future));
+		return future;
+	}
+
+	private ScriptEntry indexScript(Path script) {
+		BasicFileAttributes attributes;
+		try {
+			attributes = Files.readAttributes(script, BasicFileAttributes.class);
+		} catch (IOException e) {
+			scriptDeleted(script);
+			return null;
+		}
+		long lastModified = attributes.lastModifiedTime().toMillis();
+		ScriptEntry entry = this.entries.get(script);
+		if (entry != null && entry.lastModified == lastModified && entry.size == attributes.size()) {
+			return entry;
+		}
+		String content;
+		try {
+			content = new String(Files.readAllBytes(script), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			return null;
+		}
+		URI uri = script.toUri();
+		List<DocumentSymbol> symbols;
+		List<DocumentSymbol> dependencies;
+		if (GradleFilesManager.isKotlinScript(uri)) {
+			KotlinScript kotlinScript = KotlinScript.parse(content);
+			symbols = kotlinScript.getDocumentSymbols();
+			dependencies = kotlinScript.getDependencies();
+		} else {
+			GradleCompilationUnit unit = GradleFilesManager.createCompilationUnit(uri, content,
+					new CompilerConfiguration(), 0);
+			try {
+				// the syntax tree is all the symbols need
+				unit.compile(Phases.CONVERSION);
+			} catch (CompilationFailedException e) {
+				// index what could be parsed
+			}
+			DocumentSymbolVisitor visitor = new DocumentSymbolVisitor();
+			symbols = visitor.visitCompilationUnit(uri, unit);
+			dependencies = visitor.getDependencies(uri);
+		}
+		entry = new ScriptEntry(lastModified, attributes.size(),
+				symbols == null ? Collections.emptyList() : symbols,
+				dependencies == null ? Collections.emptyList() : dependencies);
+		this.entries.put(script, entry);
+		this.dirty.set(true);
+		return entry;
+	}
+
+	private Path getRoot(Path script) {
+		for (Path root : this.roots) {
+			if (script.startsWith(root)) {
+				return root;
+			}
+		}
+		return null;
+	}
+
+	private static Set<Path> findScripts(Path root) {
+		Set<Path> scripts = new HashSet<>();
+		if (!Files.isDirectory(root)) {
+			return scripts;
+		}
+		try {
+			Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+					String name = dir.getFileName() == null ? "" : dir.getFileName().toString();
+					// skip build outputs and tool folders such as .gradle and .git
+					if (!dir.equals(root)
+							&& (name.startsWith(".") || name.equals("build") || name.equals("node_modules"))) {
+						return FileVisitResult.SKIP_SUBTREE;
+					}
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+					String name = file.getFileName().toString();
+					if (attrs.isRegularFile() && (name.endsWith(".gradle") || name.endsWith(".gradle.kts"))) {
+						scripts.add(file);
+					}
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFileFailed(Path file, IOException e) {
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		} catch (IOException e) {
+			// index the scripts found so far
+		}
+		return scripts;
+	}
+
+	private void load() {
+		Path file = this.storageFile;
+		if (file == null || !Files.isRegularFile(file)) {
+			return;
+		}
+		try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			PersistedIndex index = new Gson().fromJson(reader, PersistedIndex.class);
+			if (index == null || index.version != FORMAT_VERSION || index.scripts == null) {
+				return;
+			}
+			for (Map.Entry<String, ScriptEntry> entry : index.scripts.entrySet()) {
+				ScriptEntry script = entry.getValue();
+				if (script != null && script.symbols != null && script.dependencies != null) {
+					this.entries.putIfAbsent(Paths.get(entry.getKey()), script);
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			// corrupted index, the scripts are indexed again
+		}
+	}
+
+	private synchronized void persist() {
+		Path file = this.storageFile;
+		if (file == null || !this.dirty.compareAndSet(true, false)) {
+			return;
+		}
+		PersistedIndex index = new PersistedIndex();
+		index.version = FORMAT_VERSION;
+		index.scripts = new HashMap<>();
+		for (Map.Entry<Path, ScriptEntry> entry : this.entries.entrySet()) {
+			index.scripts.put(entry.getKey().toString(), entry.getValue());
+		}
+		try {
+			Files.createDirectories(file.getParent());
+			Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+			try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+				new Gson().toJson(index, writer);
+			}
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			// the changed scripts are indexed again by the next start
+		}
+	}
+}
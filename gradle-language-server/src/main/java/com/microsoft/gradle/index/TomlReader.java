@@ -0,0 +1,244 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.index;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the subset of TOML used by version catalogs into nested maps: tables,
+ * dotted keys, strings, inline tables and arrays. Other values are kept as
+ * their text. Malformed lines are skipped instead of failing the whole file.
+ */
+class TomlReader {
+
+	private final String content;
+	private int offset;
+
+	private TomlReader(String content) {
+		this.content = content;
+	}
+
+	static Map<String, Object> read(String content) {
+		return new TomlReader(content).read();
+	}
+
+	private Map<String, Object> read() {
+		Map<String, Object> root = new LinkedHashMap<>();
+		Map<String, Object> table = root;
+		while (true) {
+			skipWhitespacesAndComments();
+			if (this.offset >= this.content.length()) {
+				return root;
+			}
+			if (peek() == '[') {
+				// [table] or [[array of tables]], which catalogs do not use
+				while (peek() == '[') {
+					this.offset++;
+				}
+				List<String> keys = readKey();
+				table = keys.isEmpty() ? new LinkedHashMap<>() : getTable(root, keys);
+			} else {
+				List<String> keys = readKey();
+				skipSpaces();
+				if (!keys.isEmpty() && peek() == '=') {
+					this.offset++;
+					Object value = readValue();
+					if (value != null) {
+						put(table, keys, value);
+					}
+				}
+			}
+			skipLine();
+		}
+	}
+
+	private List<String> readKey() {
+		List<String> keys = new ArrayList<>();
+		while (true) {
+			skipSpaces();
+			char c = peek();
+			if (c == '"' || c == '\'') {
+				keys.add(readString());
+			} else {
+				int start = this.offset;
+				while (this.offset < this.content.length() && isBareKeyCharacter(peek())) {
+					this.offset++;
+				}
+				if (start == this.offset) {
+					return keys;
+				}
+				keys.add(this.content.substring(start, this.offset));
+			}
+			skipSpaces();
+			if (peek() != '.') {
+				return keys;
+			}
+			this.offset++;
+		}
+	}
+
+	private Object readValue() {
+		skipSpaces();
+		char c = peek();
+		if (c == '"' || c == '\'') {
+			return readString();
+		} else if (c == '{') {
+			return readInlineTable();
+		} else if (c == '[') {
+			return readArray();
+		}
+		int start = this.offset;
+		while (this.offset < this.content.length() && !Character.isWhitespace(peek()) && peek() != ','
+				&& peek() != ']' && peek() != '}' && peek() != '#') {
+			this.offset++;
+		}
+		return start == this.offset ? null : this.content.substring(start, this.offset);
+	}
+
+	private Map<String, Object> readInlineTable() {
+		Map<String, Object> table = new LinkedHashMap<>();
+		this.offset++;
+		while (this.offset < this.content.length()) {
+			skipSpaces();
+			if (peek() == '}') {
+				this.offset++;
+				break;
+			}
+			List<String> keys = readKey();
+			skipSpaces();
+			if (keys.isEmpty() || peek() != '=') {
+				break;
+			}
+			this.offset++;
+			Object value = readValue();
+			if (value == null) {
+				break;
+			}
+			put(table, keys, value);
+			skipSpaces();
+			if (peek() == ',') {
+				this.offset++;
+			} else if (peek() != '}') {
+				break;
+			}
+		}
+		return table;
+	}
+
+	private List<Object> readArray() {
+		List<Object> array = new ArrayList<>();
+		this.offset++;
+		while (this.offset < this.content.length()) {
+			// arrays may span lines
+			skipWhitespacesAndComments();
+			if (peek() == ']') {
+				this.offset++;
+				break;
+			}
+			Object value = readValue();
+			if (value == null) {
+				break;
+			}
+			array.add(value);
+			skipWhitespacesAndComments();
+			if (peek() == ',') {
+				this.offset++;
+			}
+		}
+		return array;
+	}
+
+	private String readString() {
+		char quote = peek();
+		String quotes = String.valueOf(new char[]{quote, quote, quote});
+		boolean multiline = this.content.startsWith(quotes, this.offset);
+		this.offset += multiline ? 3 : 1;
+		StringBuilder builder = new StringBuilder();
+		while (this.offset < this.content.length()) {
+			char c = this.content.charAt(this.offset);
+			if (multiline ? this.content.startsWith(quotes, this.offset) : c == quote) {
+				this.offset += multiline ? 3 : 1;
+				break;
+			}
+			if (!multiline && c == '\n') {
+				// not closed
+				break;
+			}
+			if (c == '\\' && quote == '"' && this.offset + 1 < this.content.length()) {
+				this.offset++;
+				builder.append(unescape(this.content.charAt(this.offset)));
+			} else {
+				builder.append(c);
+			}
+			this.offset++;
+		}
+		return builder.toString();
+	}
+
+	private static char unescape(char c) {
+		switch (c) {
+			case 'n' :
+				return '\n';
+			case 't' :
+				return '\t';
+			case 'r' :
+				return '\r';
+			default :
+				return c;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> getTable(Map<String, Object> root, List<String> keys) {
+		Map<String, Object> table = root;
+		for (String key : keys) {
+			Object child = table.get(key);
+			if (!(child instanceof Map)) {
+				child = new LinkedHashMap<String, Object>();
+				table.put(key, child);
+			}
+			table = (Map<String, Object>) child;
+		}
+		return table;
+	}
+
+	private static void put(Map<String, Object> table, List<String> keys, Object value) {
+		getTable(table, keys.subList(0, keys.size() - 1)).put(keys.get(keys.size() - 1), value);
+	}
+
+	private static boolean isBareKeyCharacter(char c) {
+		return Character.isLetterOrDigit(c) || c == '_' || c == '-';
+	}
+
+	private char peek() {
+		return this.offset < this.content.length() ? this.content.charAt(this.offset) : '\0';
+	}
+
+	private void skipSpaces() {
+		while (peek() == ' ' || peek() == '\t') {
+			this.offset++;
+		}
+	}
+
+	private void skipWhitespacesAndComments() {
+		while (this.offset < this.content.length()) {
+			if (Character.isWhitespace(peek())) {
+				this.offset++;
+			} else if (peek() == '#') {
+				skipLine();
+			} else {
+				return;
+			}
+		}
+	}
+
+	private void skipLine() {
+		while (this.offset < this.content.length() && peek() != '\n') {
+			this.offset++;
+		}
+	}
+}
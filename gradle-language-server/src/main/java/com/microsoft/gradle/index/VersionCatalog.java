@@ -0,0 +1,261 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable Gradle version catalog, such as {@code gradle/libs.versions.toml}.
+ *
+ * Every alias is exposed by the accessor Gradle generates for it, such as
+ * {@code libs.spring.boot.starter} or {@code libs.versions.junit}. The
+ * accessors are kept in a prefix index, so completion does not scan the
+ * catalog.
+ */
+public class VersionCatalog {
+
+	private static String VERSIONS = "versions";
+	private static String LIBRARIES = "libraries";
+	private static String PLUGINS = "plugins";
+	private static String BUNDLES = "bundles";
+	// libraries are listed before the versions, plugins and bundles of a prefix
+	private static int LIBRARY_WEIGHT = 2;
+	private static int OTHER_WEIGHT = 1;
+
+	public enum Kind {
+		LIBRARY, VERSION, PLUGIN, BUNDLE
+	}
+
+	public static class Entry {
+		private final Kind kind;
+		private final String alias;
+		private final String accessor;
+		private final String module;
+		private final String version;
+		private final List<String> libraries;
+
+		private Entry(Kind kind, String alias, String accessor, String module, String version,
+				List<String> libraries) {
+			this.kind = kind;
+			this.alias = alias;
+			this.accessor = accessor;
+			this.module = module;
+			this.version = version;
+			this.libraries = libraries;
+		}
+
+		public Kind getKind() {
+			return this.kind;
+		}
+
+		public String getAlias() {
+			return this.alias;
+		}
+
+		public String getAccessor() {
+			return this.accessor;
+		}
+
+		/**
+		 * Returns the group:name of a library or the id of a plugin, or null.
+		 */
+		public String getModule() {
+			return this.module;
+		}
+
+		/**
+		 * Returns the resolved version, or null if there is none.
+		 */
+		public String getVersion() {
+			return this.version;
+		}
+
+		/**
+		 * Returns the library aliases of a bundle.
+		 */
+		public List<String> getLibraries() {
+			return this.libraries;
+		}
+
+		/**
+		 * Returns what the accessor resolves to, such as
+		 * {@code org.junit.jupiter:junit-jupiter:5.9.0}.
+		 */
+		public String getDetail() {
+			if (this.kind == Kind.BUNDLE) {
+				return String.join(", ", this.libraries);
+			}
+			if (this.module == null) {
+				return this.version;
+			}
+			return this.version == null ? this.module : this.module + ":" + this.version;
+		}
+	}
+
+	private final String name;
+	// <accessor, entry>
+	private final Map<String, Entry> entries;
+	private final CoordinateIndex accessors;
+
+	private VersionCatalog(String name, Map<String, Entry> entries, CoordinateIndex accessors) {
+		this.name = name;
+		this.entries = entries;
+		this.accessors = accessors;
+	}
+
+	/**
+	 * Parses a catalog, the name is the root of its accessors, such as
+	 * {@code libs}.
+	 */
+	public static VersionCatalog parse(String name, String content) {
+		Map<String, Object> toml = TomlReader.read(content);
+		Map<String, Object> versions = getTable(toml, VERSIONS);
+		Map<String, Entry> entries = new HashMap<>();
+		CoordinateIndex.Builder builder = new CoordinateIndex.Builder();
+		for (Map.Entry<String, Object> version : versions.entrySet()) {
+			String accessor = toAccessor(name, VERSIONS, version.getKey());
+			entries.put(accessor, new Entry(Kind.VERSION, version.getKey(), accessor, null,
+					getVersion(version.getValue()), null));
+			builder.add(accessor, OTHER_WEIGHT);
+		}
+		for (Map.Entry<String, Object> library : getTable(toml, LIBRARIES).entrySet()) {
+			String accessor = toAccessor(name, null, library.getKey());
+			entries.put(accessor, getLibrary(library.getKey(), accessor, library.getValue(), versions));
+			builder.add(accessor, LIBRARY_WEIGHT);
+		}
+		for (Map.Entry<String, Object> plugin : getTable(toml, PLUGINS).entrySet()) {
+			String accessor = toAccessor(name, PLUGINS, plugin.getKey());
+			entries.put(accessor, getPlugin(plugin.getKey(), accessor, plugin.getValue(), versions));
+			builder.add(accessor, OTHER_WEIGHT);
+		}
+		for (Map.Entry<String, Object> bundle : getTable(toml, BUNDLES).entrySet()) {
+			String accessor = toAccessor(name, BUNDLES, bundle.getKey());
+			List<String> libraries = new ArrayList<>();
+			if (bundle.getValue() instanceof List) {
+				for (Object library : (List<?>) bundle.getValue()) {
+					libraries.add(String.valueOf(library));
+				}
+			}
+			entries.put(accessor, new Entry(Kind.BUNDLE, bundle.getKey(), accessor, null, null,
+					Collections.unmodifiableList(libraries)));
+			builder.add(accessor, OTHER_WEIGHT);
+		}
+		return new VersionCatalog(name, entries, builder.build());
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	public int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * Returns the entry of the accessor, or null if the catalog has none.
+	 */
+	public Entry resolve(String accessor) {
+		return this.entries.get(accessor);
+	}
+
+	/**
+	 * Returns the entries whose accessors start with the text first, then those
+	 * containing it.
+	 */
+	public List<Entry> search(String text, int limit) {
+		List<Entry> results = new ArrayList<>();
+		for (String accessor : this.accessors.search(text, limit)) {
+			results.add(this.entries.get(accessor));
+		}
+		return results;
+	}
+
+	/**
+	 * Returns the accessor Gradle generates for the alias, the separators -, _
+	 * and . of an alias all become dots.
+	 */
+	public static String toAccessor(String name, String kind, String alias) {
+		StringBuilder builder = new StringBuilder(name);
+		builder.append('.');
+		if (kind != null) {
+			builder.append(kind);
+			builder.append('.');
+		}
+		builder.append(alias.replace('-', '.').replace('_', '.'));
+		return builder.toString();
+	}
+
+	private static Entry getLibrary(String alias, String accessor, Object value, Map<String, Object> versions) {
+		String module = null;
+		String version = null;
+		if (value instanceof String) {
+			// "group:name:version" or "group:name"
+			String[] parts = ((String) value).split(":");
+			module = parts.length >= 2 ? parts[0] + ":" + parts[1] : (String) value;
+			version = parts.length >= 3 ? parts[2] : null;
+		} else if (value instanceof Map) {
+			Map<?, ?> table = (Map<?, ?>) value;
+			if (table.get("module") instanceof String) {
+				module = (String) table.get("module");
+			} else if (table.get("group") instanceof String && table.get("name") instanceof String) {
+				module = table.get("group") + ":" + table.get("name");
+			}
+			version = resolveVersion(table.get("version"), versions);
+		}
+		return new Entry(Kind.LIBRARY, alias, accessor, module, version, null);
+	}
+
+	private static Entry getPlugin(String alias, String accessor, Object value, Map<String, Object> versions) {
+		String id = null;
+		String version = null;
+		if (value instanceof String) {
+			// "id:version" or "id"
+			String[] parts = ((String) value).split(":");
+			id = parts[0];
+			version = parts.length >= 2 ? parts[1] : null;
+		} else if (value instanceof Map) {
+			Map<?, ?> table = (Map<?, ?>) value;
+			id = table.get("id") instanceof String ? (String) table.get("id") : null;
+			version = resolveVersion(table.get("version"), versions);
+		}
+		return new Entry(Kind.PLUGIN, alias, accessor, id, version, null);
+	}
+
+	/**
+	 * Resolves a version declaration of a library or a plugin: a version, a
+	 * version.ref, or a rich version.
+	 */
+	private static String resolveVersion(Object version, Map<String, Object> versions) {
+		if (version instanceof Map && ((Map<?, ?>) version).get("ref") instanceof String) {
+			return getVersion(versions.get(((Map<?, ?>) version).get("ref")));
+		}
+		return getVersion(version);
+	}
+
+	private static String getVersion(Object version) {
+		if (version instanceof String) {
+			return (String) version;
+		}
+		if (version instanceof Map) {
+			// { strictly = "[1.0, 2.0[", prefer = "1.5" }
+			Map<?, ?> richVersion = (Map<?, ?>) version;
+			for (String key : new String[]{"require", "strictly", "prefer"}) {
+				if (richVersion.get(key) instanceof String) {
+					return (String) richVersion.get(key);
+				}
+			}
+		}
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> getTable(Map<String, Object> toml, String name) {
+		Object table = toml.get(name);
+		return table instanceof Map ? (Map<String, Object>) table : Collections.emptyMap();
+	}
+}
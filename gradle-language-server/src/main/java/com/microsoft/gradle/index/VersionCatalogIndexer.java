@@ -0,0 +1,111 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.index;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the version catalogs of the builds in the workspace, which are the
+ * {@code *.versions.toml} files of their {@code gradle} folders.
+ *
+ * A catalog is parsed the first time a script of its build asks for it, and
+ * again only after it changes on disk.
+ */
+public class VersionCatalogIndexer {
+
+	private static String CATALOG_FOLDER = "gradle";
+	private static String CATALOG_SUFFIX = ".versions.toml";
+
+	private final Set<Path> roots = ConcurrentHashMap.newKeySet();
+	// <build folder, catalogs of its gradle folder>, folders without catalogs
+	// keep an empty list
+	private final Map<Path, List<VersionCatalog>> catalogs = new ConcurrentHashMap<>();
+
+	public static boolean isCatalog(Path path) {
+		Path fileName = path.getFileName();
+		return fileName != null && fileName.toString().endsWith(CATALOG_SUFFIX);
+	}
+
+	public void addWorkspaceFolder(Path root) {
+		this.roots.add(root);
+	}
+
+	public void removeWorkspaceFolder(Path root) {
+		this.roots.remove(root);
+		this.catalogs.keySet().removeIf(folder -> folder.startsWith(root));
+	}
+
+	/**
+	 * Returns the catalogs of the build of the script: those of the nearest
+	 * folder above the script which has any, up to the workspace root.
+	 */
+	public List<VersionCatalog> getCatalogs(Path script) {
+		Path root = getRoot(script);
+		for (Path folder = script.getParent(); folder != null; folder = folder.getParent()) {
+			List<VersionCatalog> folderCatalogs = this.catalogs.computeIfAbsent(folder,
+					VersionCatalogIndexer::loadCatalogs);
+			if (!folderCatalogs.isEmpty() || folder.equals(root)) {
+				return folderCatalogs;
+			}
+		}
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Drops the catalogs of the build of a created, changed or deleted catalog
+	 * file, they are parsed again on the next request.
+	 */
+	public void catalogChanged(Path catalog) {
+		Path folder = catalog.getParent();
+		if (folder != null && folder.getParent() != null) {
+			this.catalogs.remove(folder.getParent());
+		}
+	}
+
+	private Path getRoot(Path script) {
+		Path result = null;
+		for (Path root : this.roots) {
+			// the innermost root owns the scripts of nested roots
+			if (script.startsWith(root) && (result == null || root.startsWith(result))) {
+				result = root;
+			}
+		}
+		return result;
+	}
+
+	private static List<VersionCatalog> loadCatalogs(Path folder) {
+		Path catalogFolder = folder.resolve(CATALOG_FOLDER);
+		if (!Files.isDirectory(catalogFolder)) {
+			return Collections.emptyList();
+		}
+		List<VersionCatalog> results = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(catalogFolder, "*" + CATALOG_SUFFIX)) {
+			for (Path file : files) {
+				String fileName = file.getFileName().toString();
+				String name = fileName.substring(0, fileName.length() - CATALOG_SUFFIX.length());
+				try {
+					String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+					results.add(VersionCatalog.parse(name, content));
+				} catch (IOException e) {
+					// skip the catalogs which cannot be read
+				}
+			}
+		} catch (IOException e) {
+			return Collections.emptyList();
+		}
+		results.sort(Comparator.comparing(VersionCatalog::getName));
+		return Collections.unmodifiableList(results);
+	}
+}
@@ -0,0 +1,136 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.kotlin;
+
+import java.util.Collections;
+import java.util.List;
+import org.eclipse.lsp4j.Range;
+
+/**
+ * A statement of a Kotlin script: a call such as
+ * {@code tasks.register("name") { ... }}, or an assignment such as
+ * {@code version = "1.0"}.
+ */
+public class KotlinCall {
+
+	public static class Argument {
+		private final String name;
+		private final String text;
+		private final boolean string;
+		private final Range range;
+		private final KotlinCall call;
+
+		Argument(String name, String text, boolean string, Range range, KotlinCall call) {
+			this.name = name;
+			this.text = text;
+			this.string = string;
+			this.range = range;
+			this.call = call;
+		}
+
+		/**
+		 * Returns the name of a named argument, or null.
+		 */
+		public String getName() {
+			return this.name;
+		}
+
+		/**
+		 * Returns the content of a string, or the source text of the expression.
+		 */
+		public String getText() {
+			return this.text;
+		}
+
+		public boolean isString() {
+			return this.string;
+		}
+
+		/**
+		 * Returns the range of the string content without its quotes, or of the
+		 * expression.
+		 */
+		public Range getRange() {
+			return this.range;
+		}
+
+		/**
+		 * Returns the call the argument is made of, such as {@code platform("...")}.
+		 */
+		public KotlinCall getCall() {
+			return this.call;
+		}
+	}
+
+	private final String name;
+	private final List<Argument> arguments;
+	private final List<KotlinCall> children;
+	private final Argument value;
+	private final Range range;
+	private final Range nameRange;
+	private final Range bodyRange;
+
+	KotlinCall(String name, List<Argument> arguments, List<KotlinCall> children, Argument value, Range range,
+			Range nameRange, Range bodyRange) {
+		this.name = name;
+		this.arguments = Collections.unmodifiableList(arguments);
+		this.children = children == null ? null : Collections.unmodifiableList(children);
+		this.value = value;
+		this.range = range;
+		this.nameRange = nameRange;
+		this.bodyRange = bodyRange;
+	}
+
+	/**
+	 * Returns the dotted name of the call, such as {@code tasks.register}.
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Returns the last part of the name, which is the called method.
+	 */
+	public String getMethodName() {
+		return this.name.substring(this.name.lastIndexOf('.') + 1);
+	}
+
+	public List<Argument> getArguments() {
+		return this.arguments;
+	}
+
+	/**
+	 * Returns the statements of the trailing lambda, or null if there is none.
+	 */
+	public List<KotlinCall> getChildren() {
+		return this.children;
+	}
+
+	public boolean isAssignment() {
+		return this.value != null;
+	}
+
+	/**
+	 * Returns the assigned value of an assignment, or null.
+	 */
+	public Argument getValue() {
+		return this.value;
+	}
+
+	public Range getRange() {
+		return this.range;
+	}
+
+	public Range getNameRange() {
+		return this.nameRange;
+	}
+
+	/**
+	 * Returns the range of the arguments and the trailing lambda, or null if the
+	 * call has neither.
+	 */
+	public Range getBodyRange() {
+		return this.bodyRange;
+	}
+}
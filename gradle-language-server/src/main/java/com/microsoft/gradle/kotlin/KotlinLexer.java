@@ -0,0 +1,261 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.kotlin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a Kotlin script into the tokens the script model needs. Comments and
+ * white spaces are dropped, string templates are kept as part of their string.
+ */
+class KotlinLexer {
+
+	enum TokenType {
+		IDENTIFIER, STRING, NUMBER, SYMBOL, EOF
+	}
+
+	static class Token {
+		final TokenType type;
+		// the identifier without backticks, the symbol, or the string content
+		final String text;
+		final int start;
+		final int end;
+		final int line;
+		final int column;
+		final int endLine;
+		final int endColumn;
+
+		private Token(TokenType type, String text, int start, int end, int line, int column, int endLine,
+				int endColumn) {
+			this.type = type;
+			this.text = text;
+			this.start = start;
+			this.end = end;
+			this.line = line;
+			this.column = column;
+			this.endLine = endLine;
+			this.endColumn = endColumn;
+		}
+
+		boolean is(String symbol) {
+			return this.type == TokenType.SYMBOL && this.text.equals(symbol);
+		}
+
+		boolean isIdentifier(String name) {
+			return this.type == TokenType.IDENTIFIER && this.text.equals(name);
+		}
+	}
+
+	private static String[] OPERATORS = {"?.", "::", "->", "==", "!=", "<=", ">=", "&&", "||", "+=", "-=", "*=", "/=",
+			"..", "!!", "?:"};
+
+	private final String content;
+	private int offset;
+	private int line;
+	private int column;
+
+	private KotlinLexer(String content) {
+		this.content = content;
+	}
+
+	static List<Token> tokenize(String content) {
+		return new KotlinLexer(content).tokenize();
+	}
+
+	private List<Token> tokenize() {
+		List<Token> tokens = new ArrayList<>();
+		while (true) {
+			skipWhitespacesAndComments();
+			if (this.offset >= this.content.length()) {
+				tokens.add(new Token(TokenType.EOF, "", this.offset, this.offset, this.line, this.column, this.line,
+						this.column));
+				return tokens;
+			}
+			int start = this.offset;
+			int startLine = this.line;
+			int startColumn = this.column;
+			char c = this.content.charAt(this.offset);
+			TokenType type;
+			String text;
+			if (c == '"') {
+				type = TokenType.STRING;
+				text = readString();
+			} else if (c == '\'') {
+				type = TokenType.STRING;
+				text = readCharacter();
+			} else if (c == '`') {
+				type = TokenType.IDENTIFIER;
+				advance();
+				int nameStart = this.offset;
+				while (this.offset < this.content.length() && this.content.charAt(this.offset) != '`'
+						&& this.content.charAt(this.offset) != '\n') {
+					advance();
+				}
+				text = this.content.substring(nameStart, this.offset);
+				if (this.offset < this.content.length() && this.content.charAt(this.offset) == '`') {
+					advance();
+				}
+			} else if (Character.isJavaIdentifierStart(c)) {
+				type = TokenType.IDENTIFIER;
+				while (this.offset < this.content.length()
+						&& Character.isJavaIdentifierPart(this.content.charAt(this.offset))) {
+					advance();
+				}
+				text = this.content.substring(start, this.offset);
+			} else if (Character.isDigit(c)) {
+				type = TokenType.NUMBER;
+				while (this.offset < this.content.length()
+						&& (Character.isLetterOrDigit(this.content.charAt(this.offset))
+								|| this.content.charAt(this.offset) == '_'
+								|| (this.content.charAt(this.offset) == '.' && this.offset + 1 < this.content.length()
+										&& Character.isDigit(this.content.charAt(this.offset + 1))))) {
+					advance();
+				}
+				text = this.content.substring(start, this.offset);
+			} else {
+				type = TokenType.SYMBOL;
+				text = String.valueOf(c);
+				for (String operator : OPERATORS) {
+					if (this.content.startsWith(operator, this.offset)) {
+						text = operator;
+						break;
+					}
+				}
+				for (int i = 0; i < text.length(); i++) {
+					advance();
+				}
+			}
+			tokens.add(new Token(type, text, start, this.offset, startLine, startColumn, this.line, this.column));
+		}
+	}
+
+	private void skipWhitespacesAndComments() {
+		while (this.offset < this.content.length()) {
+			char c = this.content.charAt(this.offset);
+			if (Character.isWhitespace(c)) {
+				advance();
+			} else if (this.content.startsWith("//", this.offset)
+					|| (this.offset == 0 && this.content.startsWith("#!", this.offset))) {
+				while (this.offset < this.content.length() && this.content.charAt(this.offset) != '\n') {
+					advance();
+				}
+			} else if (this.content.startsWith("/*", this.offset)) {
+				// block comments nest in Kotlin
+				int depth = 0;
+				while (this.offset < this.content.length()) {
+					if (this.content.startsWith("/*", this.offset)) {
+						depth++;
+						advance();
+					} else if (this.content.startsWith("*/", this.offset)) {
+						depth--;
+						advance();
+						if (depth == 0) {
+							advance();
+							break;
+						}
+					}
+					advance();
+				}
+			} else {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Reads a string or a raw string and returns its content. Templates are kept
+	 * in the content, a string which is not closed ends with its line.
+	 */
+	private String readString() {
+		boolean raw = this.content.startsWith("\"\"\"", this.offset);
+		int quotes = raw ? 3 : 1;
+		for (int i = 0; i < quotes; i++) {
+			advance();
+		}
+		int contentStart = this.offset;
+		while (this.offset < this.content.length()) {
+			char c = this.content.charAt(this.offset);
+			if (raw && this.content.startsWith("\"\"\"", this.offset)) {
+				String text = this.content.substring(contentStart, this.offset);
+				// a raw string may end with more quotes, which belong to its content
+				while (this.content.startsWith("\"\"\"\"", this.offset)) {
+					advance();
+				}
+				for (int i = 0; i < quotes; i++) {
+					advance();
+				}
+				return text;
+			} else if (!raw && c == '"') {
+				String text = this.content.substring(contentStart, this.offset);
+				advance();
+				return text;
+			} else if (!raw && c == '\n') {
+				return this.content.substring(contentStart, this.offset);
+			} else if (!raw && c == '\\') {
+				advance();
+				advance();
+			} else if (c == '$' && this.content.startsWith("${", this.offset)) {
+				skipTemplate();
+			} else {
+				advance();
+			}
+		}
+		return this.content.substring(contentStart);
+	}
+
+	private void skipTemplate() {
+		int depth = 0;
+		while (this.offset < this.content.length()) {
+			char c = this.content.charAt(this.offset);
+			if (c == '{') {
+				depth++;
+			} else if (c == '}') {
+				depth--;
+				if (depth == 0) {
+					advance();
+					return;
+				}
+			} else if (c == '"') {
+				readString();
+				continue;
+			} else if (c == '\n') {
+				return;
+			}
+			advance();
+		}
+	}
+
+	private String readCharacter() {
+		advance();
+		int contentStart = this.offset;
+		while (this.offset < this.content.length()) {
+			char c = this.content.charAt(this.offset);
+			if (c == '\'') {
+				String text = this.content.substring(contentStart, this.offset);
+				advance();
+				return text;
+			} else if (c == '\n') {
+				break;
+			} else if (c == '\\') {
+				advance();
+			}
+			advance();
+		}
+		return this.content.substring(contentStart, this.offset);
+	}
+
+	private void advance() {
+		if (this.offset >= this.content.length()) {
+			return;
+		}
+		if (this.content.charAt(this.offset) == '\n') {
+			this.line++;
+			this.column = 0;
+		} else {
+			this.column++;
+		}
+		this.offset++;
+	}
+}
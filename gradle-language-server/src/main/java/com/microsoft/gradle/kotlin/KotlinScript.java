@@ -0,0 +1,253 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.kotlin;
+
+import com.microsoft.gradle.compile.CompletionVisitor.DependencyItem;
+import com.microsoft.gradle.kotlin.KotlinCall.Argument;
+import com.microsoft.gradle.kotlin.KotlinLexer.Token;
+import com.microsoft.gradle.kotlin.KotlinLexer.TokenType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.eclipse.lsp4j.DocumentSymbol;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.SymbolKind;
+import org.eclipse.lsp4j.util.Ranges;
+
+/**
+ * The block model of a Gradle Kotlin DSL script. It is built by a lightweight
+ * parser instead of the Kotlin compiler, and is never modified once parsed, so
+ * requests can read it on any thread.
+ */
+public class KotlinScript {
+
+	private final List<KotlinCall> statements;
+	private final List<Range> strings;
+	private final List<DocumentSymbol> documentSymbols = new ArrayList<>();
+	private final List<DocumentSymbol> dependencies = new ArrayList<>();
+	private final List<DependencyItem> dependencyItems = new ArrayList<>();
+	private final List<KotlinCall> calls = new ArrayList<>();
+	private final Set<String> plugins = new HashSet<>();
+
+	private KotlinScript(List<KotlinCall> statements, List<Range> strings) {
+		this.statements = Collections.unmodifiableList(statements);
+		this.strings = Collections.unmodifiableList(strings);
+		for (KotlinCall statement : statements) {
+			DocumentSymbol symbol = getDocumentSymbol(statement);
+			this.documentSymbols.add(symbol);
+			if (statement.getName().equals("plugins")) {
+				this.plugins.addAll(getPlugins(statement));
+			} else if (statement.getName().equals("apply")) {
+				// apply(plugin = "${id}")
+				for (Argument argument : statement.getArguments()) {
+					if ("plugin".equals(argument.getName()) && argument.isString()) {
+						this.plugins.add(argument.getText());
+					}
+				}
+			}
+		}
+		visitCalls(statements);
+	}
+
+	public static KotlinScript parse(String content) {
+		List<Token> tokens = KotlinLexer.tokenize(content);
+		List<Range> strings = new ArrayList<>();
+		for (Token token : tokens) {
+			if (token.type == TokenType.STRING) {
+				strings.add(new Range(new Position(token.line, token.column),
+						new Position(token.endLine, token.endColumn)));
+			}
+		}
+		return new KotlinScript(new KotlinScriptParser(content, tokens).parse(), strings);
+	}
+
+	public List<KotlinCall> getStatements() {
+		return this.statements;
+	}
+
+	public List<DocumentSymbol> getDocumentSymbols() {
+		return Collections.unmodifiableList(this.documentSymbols);
+	}
+
+	public List<DocumentSymbol> getDependencies() {
+		return Collections.unmodifiableList(this.dependencies);
+	}
+
+	/**
+	 * Returns the strings of the calls in the dependencies blocks, which are
+	 * completed with artifact coordinates.
+	 */
+	public List<DependencyItem> getDependencyItems() {
+		return Collections.unmodifiableList(this.dependencyItems);
+	}
+
+	public Set<String> getPlugins() {
+		return Collections.unmodifiableSet(this.plugins);
+	}
+
+	public boolean isInString(Position position) {
+		for (Range range : this.strings) {
+			if (Ranges.containsPosition(range, position)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the innermost call whose arguments or lambda contain the position,
+	 * or null at the root of the script.
+	 */
+	public KotlinCall getContainingCall(Position position) {
+		KotlinCall containingCall = null;
+		for (KotlinCall call : this.calls) {
+			if (Ranges.containsPosition(call.getBodyRange(), position) && (containingCall == null
+					|| Ranges.containsRange(containingCall.getBodyRange(), call.getBodyRange()))) {
+				containingCall = call;
+			}
+		}
+		return containingCall;
+	}
+
+	private void visitCalls(List<KotlinCall> statements) {
+		for (KotlinCall call : statements) {
+			visitCall(call);
+		}
+	}
+
+	private void visitCall(KotlinCall call) {
+		if (call.getBodyRange() != null) {
+			this.calls.add(call);
+		}
+		for (Argument argument : call.getArguments()) {
+			if (argument.getCall() != null) {
+				visitCall(argument.getCall());
+			}
+		}
+		if (call.getValue() != null && call.getValue().getCall() != null) {
+			visitCall(call.getValue().getCall());
+		}
+		if (call.getChildren() != null) {
+			if (call.getMethodName().equals("dependencies")) {
+				for (KotlinCall child : call.getChildren()) {
+					if (!child.isAssignment()) {
+						this.dependencyItems.addAll(getDependencyItems(child));
+					}
+				}
+			}
+			visitCalls(call.getChildren());
+		}
+	}
+
+	private DocumentSymbol getDocumentSymbol(KotlinCall statement) {
+		DocumentSymbol symbol = new DocumentSymbol();
+		symbol.setName(statement.getName());
+		symbol.setRange(statement.getRange());
+		symbol.setSelectionRange(statement.getRange());
+		if (statement.isAssignment()) {
+			symbol.setKind(SymbolKind.Property);
+			if (statement.getValue().isString()) {
+				symbol.setDetail(statement.getValue().getText());
+			}
+			return symbol;
+		}
+		symbol.setKind(SymbolKind.Function);
+		String detail = getSymbolDetail(statement);
+		if (detail != null) {
+			symbol.setDetail(detail);
+		}
+		if (statement.getName().equals("dependencies") && statement.getChildren() != null) {
+			List<DocumentSymbol> dependencySymbols = new ArrayList<>();
+			for (KotlinCall child : statement.getChildren()) {
+				if (!child.isAssignment()) {
+					dependencySymbols.add(getDependency(child));
+				}
+			}
+			symbol.setChildren(dependencySymbols);
+			this.dependencies.addAll(dependencySymbols);
+		}
+		return symbol;
+	}
+
+	private static String getSymbolDetail(KotlinCall call) {
+		List<Argument> arguments = call.getArguments();
+		if (arguments.isEmpty() || !arguments.get(0).isString()) {
+			return null;
+		}
+		Argument argument = arguments.get(0);
+		if (argument.getName() == null) {
+			// if first arg is a string, show it as detail
+			return argument.getText();
+		}
+		return argument.getName() + ": " + argument.getText();
+	}
+
+	private static DocumentSymbol getDependency(KotlinCall call) {
+		DocumentSymbol symbol = new DocumentSymbol();
+		symbol.setName(call.getMethodName());
+		String detail = getDetail(call);
+		if (detail != null) {
+			symbol.setDetail(detail);
+		}
+		symbol.setKind(SymbolKind.Constant);
+		symbol.setRange(call.getRange());
+		symbol.setSelectionRange(call.getRange());
+		return symbol;
+	}
+
+	private static String getDetail(KotlinCall call) {
+		List<String> coordinates = new ArrayList<>();
+		for (Argument argument : call.getArguments()) {
+			if (argument.getName() != null) {
+				// group = "...", name = "...", version = "..."
+				if (argument.isString()) {
+					coordinates.add(argument.getText());
+				}
+			} else if (argument.getCall() != null) {
+				return getDetail(argument.getCall());
+			} else if (argument.isString()) {
+				return argument.getText();
+			}
+		}
+		return coordinates.isEmpty() ? null : String.join(":", coordinates);
+	}
+
+	private static List<DependencyItem> getDependencyItems(KotlinCall call) {
+		List<DependencyItem> results = new ArrayList<>();
+		for (Argument argument : call.getArguments()) {
+			if (argument.getCall() != null) {
+				// platform("...")
+				results.addAll(getDependencyItems(argument.getCall()));
+			} else if (argument.isString() && argument.getName() == null) {
+				results.add(new DependencyItem(argument.getText(), argument.getRange()));
+			}
+		}
+		return results;
+	}
+
+	private static List<String> getPlugins(KotlinCall call) {
+		List<String> results = new ArrayList<>();
+		if (call.getChildren() == null) {
+			return results;
+		}
+		for (KotlinCall child : call.getChildren()) {
+			List<Argument> arguments = child.getArguments();
+			if (child.isAssignment()) {
+				continue;
+			}
+			if (child.getName().equals("id") && !arguments.isEmpty() && arguments.get(0).isString()) {
+				results.add(arguments.get(0).getText());
+			} else if (child.getName().equals("kotlin") && !arguments.isEmpty() && arguments.get(0).isString()) {
+				results.add("org.jetbrains.kotlin." + arguments.get(0).getText());
+			} else if (arguments.isEmpty() && child.getChildren() == null) {
+				// java, `java-library`
+				results.add(child.getName());
+			}
+		}
+		return results;
+	}
+}
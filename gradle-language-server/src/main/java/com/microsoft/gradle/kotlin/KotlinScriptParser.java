@@ -0,0 +1,420 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.kotlin;
+
+import com.microsoft.gradle.kotlin.KotlinCall.Argument;
+import com.microsoft.gradle.kotlin.KotlinLexer.Token;
+import com.microsoft.gradle.kotlin.KotlinLexer.TokenType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+
+/**
+ * Parses the statements of a Kotlin script into calls. Only the shape of the
+ * Gradle DSL is understood: calls with arguments and trailing lambdas,
+ * assignments and property declarations. Anything else is skipped up to the end
+ * of its statement, so that the parser never fails.
+ */
+class KotlinScriptParser {
+
+	private static Set<String> DECLARATIONS = new HashSet<>(
+			Arrays.asList("fun", "class", "interface", "object", "typealias", "enum"));
+	private static Set<String> MODIFIERS = new HashSet<>(Arrays.asList("private", "public", "internal", "protected",
+			"abstract", "open", "final", "data", "sealed", "inline", "const", "lateinit", "override", "suspend",
+			"operator", "infix", "tailrec", "annotation", "inner", "value"));
+	private static Set<String> CONTINUATIONS = new HashSet<>(Arrays.asList(".", "?.", "=", "+", "-", "*", "/", "%",
+			"&&", "||", "?:", ",", "->", "::", "..", "==", "!=", "<=", ">=", "+=", "-=", "*=", "/="));
+
+	private final String content;
+	private final List<Token> tokens;
+	private int position;
+
+	KotlinScriptParser(String content, List<Token> tokens) {
+		this.content = content;
+		this.tokens = tokens;
+	}
+
+	List<KotlinCall> parse() {
+		return parseStatements(false);
+	}
+
+	private List<KotlinCall> parseStatements(boolean block) {
+		List<KotlinCall> statements = new ArrayList<>();
+		if (block) {
+			skipLambdaParameters();
+		}
+		while (peek().type != TokenType.EOF) {
+			Token token = peek();
+			if (token.is("}")) {
+				if (block) {
+					return statements;
+				}
+				// an unbalanced brace of a broken script
+				this.position++;
+				continue;
+			}
+			if (token.is(";")) {
+				this.position++;
+				continue;
+			}
+			int start = this.position;
+			KotlinCall statement = parseStatement();
+			if (statement != null) {
+				statements.add(statement);
+			}
+			if (this.position == start) {
+				this.position++;
+			}
+		}
+		return statements;
+	}
+
+	private KotlinCall parseStatement() {
+		int start = this.position;
+		Token first = peek();
+		while (first.is("@")) {
+			// annotations
+			this.position++;
+			skipName();
+			if (peek().is("(")) {
+				skipGroup();
+			}
+			first = peek();
+		}
+		if (first.type != TokenType.IDENTIFIER) {
+			skipStatement(start);
+			return null;
+		}
+		if (first.isIdentifier("import") || first.isIdentifier("package")) {
+			skipStatement(start);
+			return null;
+		}
+		while (MODIFIERS.contains(peek().text) && peek(1).type == TokenType.IDENTIFIER
+				&& peek(1).line == peek().line) {
+			this.position++;
+		}
+		Token keyword = peek();
+		if (DECLARATIONS.contains(keyword.text) && keyword.type == TokenType.IDENTIFIER) {
+			skipStatement(start);
+			return null;
+		}
+		if ((keyword.isIdentifier("val") || keyword.isIdentifier("var"))
+				&& peek(1).type == TokenType.IDENTIFIER) {
+			return parseProperty(first, start);
+		}
+		KotlinCall call = parseCall(first, true);
+		skipStatement(start);
+		return withRange(call, first);
+	}
+
+	private KotlinCall parseProperty(Token first, int start) {
+		this.position++;
+		Token name = next();
+		while (!isStatementEnd(start) && !peek().is("=") && !peek().isIdentifier("by")) {
+			// the declared type
+			if (isOpening(peek())) {
+				skipGroup();
+			} else {
+				this.position++;
+			}
+		}
+		Argument value = null;
+		if (peek().is("=") || peek().isIdentifier("by")) {
+			this.position++;
+			value = parseValue();
+		}
+		skipStatement(start);
+		Token last = previous();
+		if (value == null) {
+			value = new Argument(null, "", false, new Range(getEnd(last), getEnd(last)), null);
+		}
+		return new KotlinCall(name.text, Collections.emptyList(), null, value, getRange(first, last),
+				getRange(name, name), null);
+	}
+
+	/**
+	 * Parses a call chain starting at the identifier, such as
+	 * {@code tasks.named<Test>("test") { ... }}.
+	 */
+	private KotlinCall parseCall(Token first, boolean statement) {
+		StringBuilder name = new StringBuilder(first.text);
+		Token nameEnd = first;
+		this.position++;
+		List<Argument> arguments = null;
+		List<KotlinCall> children = null;
+		Token bodyStart = null;
+		boolean closed = true;
+		while (true) {
+			Token token = peek();
+			if ((token.is(".") || token.is("?.")) && peek(1).type == TokenType.IDENTIFIER) {
+				this.position++;
+				nameEnd = next();
+				name.append('.');
+				name.append(nameEnd.text);
+			} else if (token.is("<") && token.start == previous().end) {
+				skipTypeArguments();
+			} else if (token.is("(") && token.line == previous().endLine) {
+				bodyStart = bodyStart == null ? token : bodyStart;
+				List<Argument> parsedArguments = parseArguments();
+				arguments = arguments == null ? parsedArguments : arguments;
+				closed = previous().is(")");
+			} else if (token.is("{") && token.line == previous().endLine) {
+				bodyStart = bodyStart == null ? token : bodyStart;
+				this.position++;
+				children = parseStatements(true);
+				closed = peek().is("}");
+				if (closed) {
+					this.position++;
+				}
+			} else {
+				break;
+			}
+		}
+		Argument value = null;
+		if (statement && peek().is("=")) {
+			this.position++;
+			value = parseValue();
+		}
+		Token last = previous();
+		// a body which is not closed goes on to the end of the script
+		Position bodyEnd = closed || peek().type != TokenType.EOF ? getEnd(last) : getStart(peek());
+		Range bodyRange = bodyStart == null ? null : new Range(getStart(bodyStart), bodyEnd);
+		return new KotlinCall(name.toString(), arguments == null ? Collections.emptyList() : arguments, children,
+				value, getRange(first, last), getRange(first, nameEnd), bodyRange);
+	}
+
+	private KotlinCall withRange(KotlinCall call, Token first) {
+		// the statement may go on after the call, such as id("...") version "1.0"
+		if (getEnd(previous()).equals(call.getRange().getEnd())) {
+			return call;
+		}
+		return new KotlinCall(call.getName(), call.getArguments(), call.getChildren(), call.getValue(),
+				getRange(first, previous()), call.getNameRange(), call.getBodyRange());
+	}
+
+	private List<Argument> parseArguments() {
+		List<Argument> arguments = new ArrayList<>();
+		// skip the opening parenthesis
+		this.position++;
+		while (true) {
+			Token token = peek();
+			if (token.is(")")) {
+				this.position++;
+				break;
+			}
+			if (token.type == TokenType.EOF || token.is("}")) {
+				// not closed
+				break;
+			}
+			String name = null;
+			if (token.type == TokenType.IDENTIFIER && peek(1).is("=")) {
+				name = token.text;
+				this.position += 2;
+			}
+			arguments.add(parseArgument(name));
+			if (peek().is(",")) {
+				this.position++;
+			}
+		}
+		return arguments;
+	}
+
+	private Argument parseArgument(String name) {
+		int start = this.position;
+		Token first = peek();
+		// a string which is not closed ends at its line
+		if (first.type == TokenType.STRING
+				&& (peek(1).is(",") || peek(1).is(")") || peek(1).line > first.endLine)) {
+			this.position++;
+			return new Argument(name, first.text, true, getContentRange(first), null);
+		}
+		KotlinCall call = null;
+		if (first.type == TokenType.IDENTIFIER) {
+			call = parseCall(first, false);
+		}
+		while (true) {
+			Token token = peek();
+			if (token.type == TokenType.EOF || token.is(",") || token.is(")") || token.is("}")) {
+				break;
+			}
+			if (isOpening(token)) {
+				skipGroup();
+			} else {
+				this.position++;
+			}
+		}
+		return createArgument(name, start, call);
+	}
+
+	/**
+	 * Parses the value of an assignment up to the end of the statement.
+	 */
+	private Argument parseValue() {
+		int start = this.position;
+		Token first = peek();
+		if (first.type == TokenType.STRING) {
+			this.position++;
+			if (isStatementEnd(start)) {
+				return new Argument(null, first.text, true, getContentRange(first), null);
+			}
+		}
+		this.position = start;
+		KotlinCall call = null;
+		if (first.type == TokenType.IDENTIFIER) {
+			call = parseCall(first, false);
+		}
+		skipStatement(start);
+		return createArgument(null, start, call);
+	}
+
+	private Argument createArgument(String name, int start, KotlinCall call) {
+		if (this.position == start) {
+			Position position = getStart(peek());
+			return new Argument(name, "", false, new Range(position, position), null);
+		}
+		Token first = this.tokens.get(start);
+		Token last = previous();
+		return new Argument(name, this.content.substring(first.start, last.end), false, getRange(first, last), call);
+	}
+
+	private void skipLambdaParameters() {
+		// { a, b -> ... } or { task: Task -> ... }
+		int i = this.position;
+		while (i < this.tokens.size()) {
+			Token token = this.tokens.get(i);
+			if (token.is("->")) {
+				this.position = i + 1;
+				return;
+			}
+			if (token.type != TokenType.IDENTIFIER && !token.is(",") && !token.is(":") && !token.is(".")
+					&& !token.is("<") && !token.is(">") && !token.is("?")) {
+				return;
+			}
+			i++;
+		}
+	}
+
+	private void skipStatement(int start) {
+		while (!isStatementEnd(start)) {
+			if (isOpening(peek())) {
+				skipGroup();
+			} else {
+				this.position++;
+			}
+		}
+	}
+
+	private boolean isStatementEnd(int start) {
+		Token token = peek();
+		if (token.type == TokenType.EOF || token.is("}") || token.is(";")) {
+			return true;
+		}
+		if (this.position == start) {
+			return false;
+		}
+		Token previous = previous();
+		if (token.line == previous.endLine) {
+			return false;
+		}
+		// a statement goes on at the next line after an operator, or with an operator
+		boolean continued = previous.type == TokenType.SYMBOL && CONTINUATIONS.contains(previous.text);
+		continued |= token.type == TokenType.SYMBOL && !token.is("=") && CONTINUATIONS.contains(token.text);
+		return !continued;
+	}
+
+	private void skipGroup() {
+		int depth = 0;
+		while (peek().type != TokenType.EOF) {
+			Token token = next();
+			if (isOpening(token)) {
+				depth++;
+			} else if (token.is(")") || token.is("}") || token.is("]")) {
+				depth--;
+				if (depth <= 0) {
+					return;
+				}
+			}
+		}
+	}
+
+	private void skipTypeArguments() {
+		int depth = 0;
+		int line = peek().line;
+		while (peek().type != TokenType.EOF && peek().line == line) {
+			Token token = next();
+			if (token.is("<")) {
+				depth++;
+			} else if (token.is(">")) {
+				depth--;
+				if (depth <= 0) {
+					return;
+				}
+			}
+		}
+	}
+
+	private void skipName() {
+		while (peek().type == TokenType.IDENTIFIER) {
+			this.position++;
+			if (peek().is(".") || peek().is(":")) {
+				this.position++;
+			} else {
+				return;
+			}
+		}
+	}
+
+	private static boolean isOpening(Token token) {
+		return token.is("(") || token.is("{") || token.is("[");
+	}
+
+	private Token peek() {
+		return peek(0);
+	}
+
+	private Token peek(int offset) {
+		int index = Math.min(this.position + offset, this.tokens.size() - 1);
+		return this.tokens.get(index);
+	}
+
+	private Token next() {
+		Token token = peek();
+		if (this.position < this.tokens.size() - 1) {
+			this.position++;
+		}
+		return token;
+	}
+
+	private Token previous() {
+		return this.tokens.get(Math.max(0, this.position - 1));
+	}
+
+	private Range getContentRange(Token token) {
+		String quote = this.content.startsWith("\"\"\"", token.start) ? "\"\"\"" : this.content.substring(token.start,
+				token.start + 1);
+		int quotes = quote.length();
+		Position start = new Position(token.line, token.column + quotes);
+		boolean closed = token.end - token.start >= 2 * quotes
+				&& this.content.startsWith(quote, token.end - quotes);
+		Position end = closed ? new Position(token.endLine, token.endColumn - quotes) : getEnd(token);
+		return new Range(start, end);
+	}
+
+	private static Range getRange(Token first, Token last) {
+		return new Range(getStart(first), getEnd(last));
+	}
+
+	private static Position getStart(Token token) {
+		return new Position(token.line, token.column);
+	}
+
+	private static Position getEnd(Token token) {
+		return new Position(token.endLine, token.endColumn);
+	}
+}
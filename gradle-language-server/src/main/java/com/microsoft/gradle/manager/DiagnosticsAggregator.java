@@ -0,0 +1,90 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.manager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.eclipse.lsp4j.PublishDiagnosticsParams;
+
+/**
+ * Sends the diagnostics of the documents to the client.
+ *
+ * The diagnostics of the background analyses are collected for a short window
+ * and sent as one batch, where only the last diagnostics of each document are
+ * kept. Diagnostics equal to those the client already has are not sent again.
+ */
+public class DiagnosticsAggregator {
+
+	private static int BATCH_DELAY = 50;
+
+	private final Consumer<PublishDiagnosticsParams> publisher;
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Gradle Diagnostics");
+		thread.setDaemon(true);
+		return thread;
+	});
+	// <uri, diagnostics waiting for the batch>, guarded by this
+	private final Map<String, PublishDiagnosticsParams> pending = new LinkedHashMap<>();
+	// <uri, last diagnostics sent to the client>, guarded by this
+	private final Map<String, PublishDiagnosticsParams> published = new HashMap<>();
+	private ScheduledFuture<?> batch;
+
+	public DiagnosticsAggregator(Consumer<PublishDiagnosticsParams> publisher) {
+		this.publisher = publisher;
+	}
+
+	/**
+	 * Sends the diagnostics right away, they replace the pending diagnostics of
+	 * the document.
+	 */
+	public synchronized void publish(PublishDiagnosticsParams diagnostics) {
+		this.pending.remove(diagnostics.getUri());
+		send(diagnostics);
+	}
+
+	/**
+	 * Sends the diagnostics with the next batch, unless newer diagnostics of the
+	 * document come first.
+	 */
+	public synchronized void publishLater(PublishDiagnosticsParams diagnostics) {
+		this.pending.put(diagnostics.getUri(), diagnostics);
+		if (this.batch == null) {
+			this.batch = this.executor.schedule(this::flush, BATCH_DELAY, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Forgets a closed document, its diagnostics are sent again once it is
+	 * reopened.
+	 */
+	public synchronized void remove(String uri) {
+		this.pending.remove(uri);
+		this.published.remove(uri);
+	}
+
+	private synchronized void flush() {
+		this.batch = null;
+		List<PublishDiagnosticsParams> diagnostics = new ArrayList<>(this.pending.values());
+		this.pending.clear();
+		for (PublishDiagnosticsParams params : diagnostics) {
+			send(params);
+		}
+	}
+
+	private void send(PublishDiagnosticsParams diagnostics) {
+		if (diagnostics.equals(this.published.get(diagnostics.getUri()))) {
+			return;
+		}
+		this.published.put(diagnostics.getUri(), diagnostics);
+		this.publisher.accept(diagnostics);
+	}
+}
@@ -0,0 +1,91 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.manager;
+
+import java.net.URI;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Accounts the estimated memory of the syntax trees of the open documents and
+ * of what the requests derive from them, and evicts the least recently used
+ * documents once the total exceeds the limit.
+ *
+ * An evicted document keeps its content, its syntax tree is parsed again on
+ * its next request. The most recently used document is never evicted.
+ */
+public class DocumentCache {
+
+	// the retained size of a parsed build script is about 100 KB plus 40 to 120
+	// bytes per character, rounded up for the tokens and symbols of its requests
+	private static long UNIT_SIZE = 128 * 1024;
+	private static long CHARACTER_SIZE = 64;
+	private static long DEFAULT_LIMIT = 64 * 1024 * 1024;
+
+	private final Consumer<URI> evictor;
+	// <uri, estimated size> in access order, guarded by this
+	private final LinkedHashMap<URI, Long> sizes = new LinkedHashMap<>(16, 0.75f, true);
+	private long totalSize;
+	private long limit = DEFAULT_LIMIT;
+
+	/**
+	 * The evictor drops the cached data of a document, it is called while the
+	 * cache is locked and must not call it back.
+	 */
+	public DocumentCache(Consumer<URI> evictor) {
+		this.evictor = evictor;
+	}
+
+	public static long estimateSize(String content) {
+		return UNIT_SIZE + content.length() * CHARACTER_SIZE;
+	}
+
+	/**
+	 * Records the new syntax tree of a document as the most recently used one.
+	 */
+	public synchronized void put(URI uri, long size) {
+		Long previous = this.sizes.put(uri, size);
+		this.totalSize += size - (previous == null ? 0 : previous);
+		evict();
+	}
+
+	/**
+	 * Records a request of a document.
+	 */
+	public synchronized void touch(URI uri) {
+		this.sizes.get(uri);
+	}
+
+	public synchronized void remove(URI uri) {
+		Long size = this.sizes.remove(uri);
+		if (size != null) {
+			this.totalSize -= size;
+		}
+	}
+
+	public synchronized boolean contains(URI uri) {
+		return this.sizes.containsKey(uri);
+	}
+
+	public synchronized long getTotalSize() {
+		return this.totalSize;
+	}
+
+	public synchronized void setLimit(long limit) {
+		this.limit = limit;
+		evict();
+	}
+
+	private void evict() {
+		Iterator<Map.Entry<URI, Long>> iterator = this.sizes.entrySet().iterator();
+		while (this.totalSize > this.limit && this.sizes.size() > 1) {
+			Map.Entry<URI, Long> eldest = iterator.next();
+			iterator.remove();
+			this.totalSize -= eldest.getValue();
+			this.evictor.accept(eldest.getKey());
+		}
+	}
+}
@@ -5,17 +5,26 @@ package com.microsoft.gradle.manager;
 
 import com.microsoft.gradle.compile.GradleCompilationUnit;
 import com.microsoft.gradle.compile.GradleDefaultImport;
+import com.microsoft.gradle.kotlin.KotlinScript;
 import com.microsoft.gradle.utils.Utils;
 import groovy.lang.GroovyClassLoader;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.StringReader;
 import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import org.codehaus.groovy.control.CompilationFailedException;
 import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
 import org.codehaus.groovy.control.SourceUnit;
 import org.codehaus.groovy.control.customizers.ImportCustomizer;
 import org.codehaus.groovy.control.io.StringReaderSource;
@@ -23,12 +32,43 @@ import org.eclipse.lsp4j.Position;
 import org.eclipse.lsp4j.Range;
 import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
 
+/**
+ * Keeps the contents and the compiled units of the open documents.
+ *
+ * A compilation unit is only published once it is compiled and is not
+ * modified afterwards, so requests can read the published units on any thread
+ * while notifications replace them. The syntax trees of the documents not used
+ * recently are dropped once they exceed the size of the document cache, they
+ * are parsed again on their next request.
+ */
 public class GradleFilesManager {
-	private Map<URI, String> openFiles = new HashMap<>();
-	private Map<URI, GradleCompilationUnit> unitStorage = new HashMap<>();
-	private Map<String, CompilerConfiguration> configs = new HashMap<>();
-	private Map<String, List<String>> scriptClasspaths = new HashMap<>();
-	private List<String> gradleLibraries = new ArrayList<>();
+	// the key of the libraries of files outside any workspace root
+	private static Path DEFAULT_ROOT = Paths.get("");
+
+	private Map<URI, String> openFiles = new ConcurrentHashMap<>();
+	private Map<URI, GradleCompilationUnit> unitStorage = new ConcurrentHashMap<>();
+	// configurations are replaced instead of modified, a running compilation
+	// keeps the one it started with
+	private Map<String, CompilerConfiguration> configs = new ConcurrentHashMap<>();
+	private Map<String, List<String>> scriptClasspaths = new ConcurrentHashMap<>();
+	// <project path, open Groovy scripts of the project>, a project keeps its
+	// configuration while it has open scripts
+	private Map<String, Set<URI>> projectScripts = new ConcurrentHashMap<>();
+	// <workspace root, libraries of its Gradle distribution>
+	private Map<Path, List<String>> gradleLibraries = new ConcurrentHashMap<>();
+	private IncrementalParser parser = new IncrementalParser();
+	// <uri, model of the last version of a Kotlin DSL script>
+	private Map<URI, KotlinScript> kotlinScripts = new ConcurrentHashMap<>();
+	// <uri, version of the last published unit>, kept when the unit is evicted
+	private Map<URI, Integer> versions = new ConcurrentHashMap<>();
+	// guards the publication of the units and the Kotlin DSL models, so an
+	// eviction never drops a newer one
+	private DocumentCache documentCache = new DocumentCache(this::evict);
+	private volatile Consumer<URI> evictionListener;
+
+	public static boolean isKotlinScript(URI uri) {
+		return uri.getPath() != null && uri.getPath().endsWith(".kts");
+	}
 
 	private CompilerConfiguration createCompilerConfiguration() {
 		CompilerConfiguration config = new CompilerConfiguration();
@@ -39,35 +79,85 @@ public class GradleFilesManager {
 		return config;
 	}
 
-	public void setScriptClasspaths(String projectPath, List<String> scriptClasspaths) {
+	/**
+	 * Sets the classpath of the build scripts of a project. Returns the open
+	 * scripts of the project to analyze again, none if the classpath of their
+	 * compilation did not change.
+	 */
+	public Set<URI> setScriptClasspaths(String projectPath, List<String> scriptClasspaths) {
 		this.scriptClasspaths.put(projectPath, scriptClasspaths);
-		this.createOrUpdateConfig(projectPath);
+		Set<URI> scripts = this.projectScripts.get(projectPath);
+		if (scripts == null || scripts.isEmpty()) {
+			// created with the first script opened in the project
+			this.configs.remove(projectPath);
+			return Collections.emptySet();
+		}
+		if (!updateConfig(projectPath)) {
+			return Collections.emptySet();
+		}
+		return new HashSet<>(scripts);
 	}
 
-	public void setGradleLibraries(List<String> gradleLibraries) {
-		this.gradleLibraries = gradleLibraries;
+	public void setGradleLibraries(Path workspacePath, List<String> gradleLibraries) {
+		Path root = workspacePath == null ? DEFAULT_ROOT : workspacePath;
+		if (gradleLibraries == null) {
+			this.gradleLibraries.remove(root);
+		} else {
+			this.gradleLibraries.put(root, gradleLibraries);
+		}
 		for (String projectPath : this.configs.keySet()) {
-			this.createOrUpdateConfig(projectPath);
+			updateConfig(projectPath);
+		}
+	}
+
+	/**
+	 * Replaces the configuration of the project if its classpath changed,
+	 * returns false if it did not.
+	 */
+	private boolean updateConfig(String projectPath) {
+		CompilerConfiguration config = createConfig(projectPath);
+		CompilerConfiguration previous = this.configs.get(projectPath);
+		if (previous != null && previous.getClasspath().equals(config.getClasspath())) {
+			return false;
+		}
+		this.configs.put(projectPath, config);
+		return true;
+	}
+
+	private List<String> getGradleLibraries(String projectPath) {
+		Path path = Paths.get(projectPath);
+		Path workspacePath = null;
+		for (Path root : this.gradleLibraries.keySet()) {
+			// the innermost root owns the files of nested roots
+			if (path.startsWith(root) && (workspacePath == null || root.startsWith(workspacePath))) {
+				workspacePath = root;
+			}
+		}
+		List<String> libraries = this.gradleLibraries.get(workspacePath == null ? DEFAULT_ROOT : workspacePath);
+		return libraries == null ? Collections.emptyList() : libraries;
+	}
+
+	private CompilerConfiguration getConfig(String projectPath) {
+		if (projectPath == null) {
+			return createConfig(null);
 		}
+		return this.configs.computeIfAbsent(projectPath, this::createConfig);
 	}
 
-	private CompilerConfiguration createOrUpdateConfig(String projectPath) {
+	private CompilerConfiguration createConfig(String projectPath) {
 		List<String> classpathList = new ArrayList<>();
-		List<String> classpaths = this.scriptClasspaths.get(projectPath);
-		if (classpaths != null) {
-			classpathList.addAll(classpaths);
-		}
-		classpathList.addAll(this.gradleLibraries);
-		if (this.configs.containsKey(projectPath)) {
-			CompilerConfiguration config = this.configs.get(projectPath);
-			config.setClasspathList(classpathList);
-			return config;
+		if (projectPath != null) {
+			List<String> classpaths = this.scriptClasspaths.get(projectPath);
+			if (classpaths != null) {
+				classpathList.addAll(classpaths);
+			}
+			classpathList.addAll(getGradleLibraries(projectPath));
 		} else {
-			CompilerConfiguration config = createCompilerConfiguration();
-			config.setClasspathList(classpathList);
-			this.configs.put(projectPath, config);
-			return config;
+			classpathList.addAll(this.gradleLibraries.getOrDefault(DEFAULT_ROOT, Collections.emptyList()));
 		}
+		CompilerConfiguration config = createCompilerConfiguration();
+		config.setClasspathList(classpathList);
+		return config;
 	}
 
 	public Map<URI, GradleCompilationUnit> getUnitStorage() {
@@ -76,37 +166,50 @@ public class GradleFilesManager {
 
 	public void didOpen(URI uri, String content) {
 		openFiles.put(uri, content);
+		String projectPath = Utils.getFolderPath(uri);
+		if (projectPath != null && !isKotlinScript(uri)) {
+			this.projectScripts.computeIfAbsent(projectPath, key -> ConcurrentHashMap.newKeySet()).add(uri);
+		}
 	}
 
 	public void didChange(URI uri, TextDocumentContentChangeEvent change) {
-		String oldText = openFiles.get(uri);
 		Range range = change.getRange();
 		if (range == null) {
 			openFiles.put(uri, change.getText());
 		} else {
-			int offsetStart = getOffset(oldText, change.getRange().getStart());
-			int offsetEnd = getOffset(oldText, change.getRange().getEnd());
-			StringBuilder builder = new StringBuilder();
-			builder.append(oldText.substring(0, offsetStart));
-			builder.append(change.getText());
-			builder.append(oldText.substring(offsetEnd));
-			openFiles.put(uri, builder.toString());
+			openFiles.computeIfPresent(uri, (key, oldText) -> {
+				int offsetStart = getOffset(oldText, change.getRange().getStart());
+				int offsetEnd = getOffset(oldText, change.getRange().getEnd());
+				StringBuilder builder = new StringBuilder();
+				builder.append(oldText.substring(0, offsetStart));
+				builder.append(change.getText());
+				builder.append(oldText.substring(offsetEnd));
+				return builder.toString();
+			});
 		}
 	}
 
 	public void didClose(URI uri) {
-		openFiles.remove(uri);
-		this.unitStorage.remove(uri);
+		synchronized (this.documentCache) {
+			openFiles.remove(uri);
+			this.unitStorage.remove(uri);
+			this.kotlinScripts.remove(uri);
+			this.versions.remove(uri);
+			this.documentCache.remove(uri);
+		}
+		this.parser.remove(uri);
 		String projectPath = Utils.getFolderPath(uri);
-		this.configs.remove(projectPath);
-		this.scriptClasspaths.remove(projectPath);
+		if (projectPath != null && this.projectScripts.computeIfPresent(projectPath, (key, scripts) -> {
+			scripts.remove(uri);
+			return scripts.isEmpty() ? null : scripts;
+		}) == null) {
+			this.configs.remove(projectPath);
+			this.scriptClasspaths.remove(projectPath);
+		}
 	}
 
 	public String getContents(URI uri) {
-		if (openFiles.containsKey(uri)) {
-			return openFiles.get(uri);
-		}
-		return null;
+		return openFiles.get(uri);
 	}
 
 	public int getOffset(String string, Position position) {
@@ -138,30 +241,172 @@ public class GradleFilesManager {
 		return currentIndex + character;
 	}
 
+	/**
+	 * Returns the published unit of the version, or a new unit which is published
+	 * by {@link #setCompilationUnit} once it is compiled.
+	 */
 	public GradleCompilationUnit getCompilationUnit(URI uri, Integer version, boolean forceRecompile) {
-		if (!forceRecompile && this.unitStorage.containsKey(uri)
-				&& this.unitStorage.get(uri).getVersion().equals(version)) {
-			return this.unitStorage.get(uri);
+		GradleCompilationUnit storedUnit = this.unitStorage.get(uri);
+		if (!forceRecompile && storedUnit != null && storedUnit.getVersion().equals(version)) {
+			return storedUnit;
 		}
-		String projectPath = Utils.getFolderPath(uri);
-		CompilerConfiguration config = createOrUpdateConfig(projectPath);
+		String content = getContents(uri);
+		if (content == null) {
+			return null;
+		}
+		return createCompilationUnit(uri, content, getConfig(Utils.getFolderPath(uri)), version);
+	}
+
+	/**
+	 * Returns the published unit of the version, or a new unit parsed from the
+	 * changed statements of the document. The new unit is already parsed, it is
+	 * published by {@link #setCompilationUnit}.
+	 */
+	public GradleCompilationUnit parseCompilationUnit(URI uri, Integer version) {
+		GradleCompilationUnit storedUnit = this.unitStorage.get(uri);
+		if (storedUnit != null && storedUnit.getVersion().equals(version)) {
+			return storedUnit;
+		}
+		String content = getContents(uri);
+		if (content == null) {
+			return null;
+		}
+		return this.parser.parse(uri, content, getConfig(Utils.getFolderPath(uri)), version);
+	}
+
+	public static GradleCompilationUnit createCompilationUnit(URI uri, String content, CompilerConfiguration config,
+			Integer version) {
 		GroovyClassLoader classLoader = new GroovyClassLoader(ClassLoader.getSystemClassLoader().getParent(), config,
 				true);
 		GradleCompilationUnit unit = new GradleCompilationUnit(config, null, classLoader, version);
 		SourceUnit sourceUnit = new SourceUnit(uri.toString(),
-				new StringReaderSource(getContents(uri), unit.getConfiguration()), unit.getConfiguration(),
+				new StringReaderSource(content, unit.getConfiguration()), unit.getConfiguration(),
 				unit.getClassLoader(), unit.getErrorCollector());
 		unit.addSource(sourceUnit);
-		this.unitStorage.put(uri, unit);
 		return unit;
 	}
 
+	/**
+	 * Publishes the compiled unit of an open document.
+	 */
+	public void setCompilationUnit(URI uri, GradleCompilationUnit unit) {
+		synchronized (this.documentCache) {
+			String content = this.openFiles.get(uri);
+			if (content != null) {
+				this.unitStorage.put(uri, unit);
+				this.versions.put(uri, unit.getVersion());
+				this.documentCache.put(uri, DocumentCache.estimateSize(content));
+			}
+		}
+	}
+
+	/**
+	 * Parses the content of an open Kotlin DSL script and publishes its model.
+	 */
+	public KotlinScript parseKotlinScript(URI uri) {
+		String content = getContents(uri);
+		if (content == null) {
+			return null;
+		}
+		KotlinScript script = KotlinScript.parse(content);
+		synchronized (this.documentCache) {
+			if (this.openFiles.containsKey(uri)) {
+				this.kotlinScripts.put(uri, script);
+				this.documentCache.put(uri, DocumentCache.estimateSize(content));
+			}
+		}
+		return script;
+	}
+
+	public KotlinScript getKotlinScript(URI uri) {
+		KotlinScript script = this.kotlinScripts.get(uri);
+		if (script != null) {
+			this.documentCache.touch(uri);
+			return script;
+		}
+		// evicted from the document cache
+		String content = getContents(uri);
+		if (content == null || !isKotlinScript(uri)) {
+			return null;
+		}
+		return publishEvicted(uri, content, this.kotlinScripts, KotlinScript.parse(content));
+	}
+
 	public GradleCompilationUnit getCompilationUnit(URI uri) {
 		// if there is no version info provided, we return the newest version
 		// when the previous cu exists, otherwise return null
-		if (this.unitStorage.containsKey(uri)) {
-			return this.unitStorage.get(uri);
+		GradleCompilationUnit unit = this.unitStorage.get(uri);
+		if (unit != null) {
+			this.documentCache.touch(uri);
+			return unit;
+		}
+		return reparse(uri);
+	}
+
+	/**
+	 * Returns the version of the last published unit of an open document, also
+	 * when it is evicted from the document cache, which is not parsed again.
+	 */
+	public Integer getPublishedVersion(URI uri) {
+		return this.versions.get(uri);
+	}
+
+	/**
+	 * Parses an open document evicted from the document cache again, as the
+	 * version of its last published unit. Its diagnostics are already reported.
+	 */
+	private GradleCompilationUnit reparse(URI uri) {
+		Integer version = this.versions.get(uri);
+		String content = getContents(uri);
+		if (version == null || content == null) {
+			return null;
+		}
+		GradleCompilationUnit unit = createCompilationUnit(uri, content, getConfig(Utils.getFolderPath(uri)),
+				version);
+		try {
+			unit.compile(Phases.CONVERSION);
+		} catch (CompilationFailedException e) {
+			// published with its syntax errors, like the unit it replaces
+		}
+		return publishEvicted(uri, content, this.unitStorage, unit);
+	}
+
+	private <T> T publishEvicted(URI uri, String content, Map<URI, T> storage, T value) {
+		synchronized (this.documentCache) {
+			// a value published in the meantime is newer
+			T published = storage.get(uri);
+			if (published != null || !this.openFiles.containsKey(uri)) {
+				return published;
+			}
+			storage.put(uri, value);
+			this.documentCache.put(uri, DocumentCache.estimateSize(content));
+			return value;
+		}
+	}
+
+	/**
+	 * Sets the estimated memory the syntax trees of the open documents may use,
+	 * in bytes.
+	 */
+	public void setDocumentCacheSize(long size) {
+		this.documentCache.setLimit(size);
+	}
+
+	/**
+	 * Sets the listener dropping what the requests derived from the evicted
+	 * documents.
+	 */
+	public void setEvictionListener(Consumer<URI> evictionListener) {
+		this.evictionListener = evictionListener;
+	}
+
+	private void evict(URI uri) {
+		this.unitStorage.remove(uri);
+		this.parser.remove(uri);
+		this.kotlinScripts.remove(uri);
+		Consumer<URI> listener = this.evictionListener;
+		if (listener != null) {
+			listener.accept(uri);
 		}
-		return null;
 	}
 }
@@ -0,0 +1,381 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.manager;
+
+import com.microsoft.gradle.compile.GradleCompilationUnit;
+import groovy.lang.GroovyClassLoader;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.ImportNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.ast.stmt.Statement;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.ErrorCollector;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.groovy.control.io.StringReaderSource;
+
+/**
+ * Parses the documents by top level statement. A changed document only parses
+ * the statements whose text or position changed, the syntax trees of the
+ * others are reused.
+ *
+ * A statement which does not parse keeps the syntax tree of its last good
+ * version, so that the outline, the semantic tokens and the completion keep
+ * working while the user types. Its syntax errors are reported by a parse of
+ * the whole document, which also covers the scripts the statements are not
+ * split correctly for.
+ */
+public class IncrementalParser {
+
+	// states of the statement splitting
+	private static int CODE = 0;
+	private static int LINE_COMMENT = 1;
+	private static int BLOCK_COMMENT = 2;
+	private static int STRING = 3;
+	private static int TRIPLE_STRING = 4;
+
+	private static class Segment {
+		private final int startLine;
+		private final String text;
+		private final boolean parsed;
+		// the syntax tree of the text, or the last good one if it does not parse
+		private final List<Statement> statements;
+		private final List<MethodNode> methods;
+		private final List<ClassNode> classes;
+		private final List<ImportNode> imports;
+
+		private Segment(int startLine, String text) {
+			this(startLine, text, false, Collections.emptyList(), Collections.emptyList(), Collections.emptyList(),
+					Collections.emptyList());
+		}
+
+		private Segment(int startLine, String text, boolean parsed, List<Statement> statements,
+				List<MethodNode> methods, List<ClassNode> classes, List<ImportNode> imports) {
+			this.startLine = startLine;
+			this.text = text;
+			this.parsed = parsed;
+			this.statements = statements;
+			this.methods = methods;
+			this.classes = classes;
+			this.imports = imports;
+		}
+
+		private boolean isReusable() {
+			// method and class nodes are attached to the module of each version
+			return !this.parsed || (this.methods.isEmpty() && this.classes.isEmpty());
+		}
+
+		private int getEndLine() {
+			return this.startLine + countLines(this.text) + (this.text.endsWith("\n") ? 0 : 1);
+		}
+	}
+
+	private static class ParsedScript {
+		private final List<Segment> segments;
+		private final int lineCount;
+		// syntax errors of the whole script, null if it has none
+		private final ErrorCollector errors;
+
+		private ParsedScript(List<Segment> segments, int lineCount, ErrorCollector errors) {
+			this.segments = segments;
+			this.lineCount = lineCount;
+			this.errors = errors;
+		}
+	}
+
+	// a source unit whose syntax tree is assembled from the segments
+	private static class AssembledSourceUnit extends SourceUnit {
+		private AssembledSourceUnit(String name, String content, GradleCompilationUnit unit) {
+			super(name, new StringReaderSource(content, unit.getConfiguration()), unit.getConfiguration(),
+					unit.getClassLoader(), unit.getErrorCollector());
+		}
+
+		private void setAST(ModuleNode ast) {
+			this.ast = ast;
+		}
+	}
+
+	// <uri, last parsed version>
+	private Map<URI, ParsedScript> scripts = new ConcurrentHashMap<>();
+
+	/**
+	 * Parses the version of the document and returns a unit holding its syntax
+	 * tree and syntax errors. The unit is not meant to be compiled further.
+	 */
+	public GradleCompilationUnit parse(URI uri, String content, CompilerConfiguration config, Integer version) {
+		ParsedScript previous = this.scripts.get(uri);
+		// <start line, segment>
+		Map<Integer, Segment> previousSegments = new HashMap<>();
+		if (previous != null) {
+			for (Segment segment : previous.segments) {
+				previousSegments.put(segment.startLine, segment);
+			}
+		}
+		int lineCount = countLines(content);
+		List<Segment> segments = new ArrayList<>();
+		boolean broken = false;
+		boolean newErrors = false;
+		for (Segment segment : split(content)) {
+			Segment previousSegment = previousSegments.get(segment.startLine);
+			if (previousSegment != null && previousSegment.isReusable() && previousSegment.text.equals(segment.text)) {
+				segments.add(previousSegment);
+				broken |= !previousSegment.parsed;
+				continue;
+			}
+			Segment parsedSegment = parseSegment(uri, config, version, segment);
+			if (parsedSegment == null) {
+				// only an unchanged line count keeps the old positions right
+				List<Statement> statements = Collections.emptyList();
+				if (previous != null && previous.lineCount == lineCount) {
+					statements = getStatements(previous, segment.startLine, segment.getEndLine());
+				}
+				parsedSegment = new Segment(segment.startLine, segment.text, false, statements,
+						Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+				broken = true;
+				newErrors = true;
+			}
+			segments.add(parsedSegment);
+		}
+		ErrorCollector errors = null;
+		if (broken) {
+			if (!newErrors && previous != null && previous.errors != null) {
+				// the statements which do not parse are unchanged, so are the errors
+				errors = previous.errors;
+			} else {
+				GradleCompilationUnit unit = GradleFilesManager.createCompilationUnit(uri, content, config, version);
+				try {
+					unit.compile(Phases.CONVERSION);
+					// the statements are not split correctly for this script, it parses as a whole
+					this.scripts.put(uri, new ParsedScript(segments, lineCount, null));
+					return unit;
+				} catch (CompilationFailedException e) {
+					errors = unit.getErrorCollector();
+				}
+			}
+		}
+		this.scripts.put(uri, new ParsedScript(segments, lineCount, errors));
+		return assemble(uri, content, config, version, segments, errors);
+	}
+
+	public void remove(URI uri) {
+		this.scripts.remove(uri);
+	}
+
+	private static Segment parseSegment(URI uri, CompilerConfiguration config, Integer version, Segment segment) {
+		// leading line breaks keep the positions of the nodes in the document
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < segment.startLine; i++) {
+			builder.append('\n');
+		}
+		builder.append(segment.text);
+		GradleCompilationUnit unit = GradleFilesManager.createCompilationUnit(uri, builder.toString(), config,
+				version);
+		try {
+			unit.compile(Phases.CONVERSION);
+		} catch (CompilationFailedException e) {
+			return null;
+		}
+		ModuleNode module = unit.iterator().next().getAST();
+		if (module == null) {
+			return null;
+		}
+		List<ClassNode> classes = new ArrayList<>();
+		for (ClassNode classNode : module.getClasses()) {
+			if (!classNode.isScript()) {
+				classes.add(classNode);
+			}
+		}
+		List<ImportNode> imports = new ArrayList<>();
+		imports.addAll(module.getImports());
+		imports.addAll(module.getStarImports());
+		imports.addAll(module.getStaticImports().values());
+		imports.addAll(module.getStaticStarImports().values());
+		return new Segment(segment.startLine, segment.text, true,
+				new ArrayList<>(module.getStatementBlock().getStatements()), new ArrayList<>(module.getMethods()),
+				classes, imports);
+	}
+
+	private static List<Statement> getStatements(ParsedScript script, int startLine, int endLine) {
+		List<Statement> statements = new ArrayList<>();
+		for (Segment segment : script.segments) {
+			if (segment.startLine >= startLine && segment.startLine < endLine) {
+				statements.addAll(segment.statements);
+			}
+		}
+		return statements;
+	}
+
+	private static GradleCompilationUnit assemble(URI uri, String content, CompilerConfiguration config,
+			Integer version, List<Segment> segments, ErrorCollector errors) {
+		GroovyClassLoader classLoader = new GroovyClassLoader(ClassLoader.getSystemClassLoader().getParent(), config,
+				true);
+		GradleCompilationUnit unit = new GradleCompilationUnit(config, null, classLoader, version);
+		AssembledSourceUnit sourceUnit = new AssembledSourceUnit(uri.toString(), content, unit);
+		ModuleNode module = new ModuleNode(sourceUnit);
+		module.setDescription(sourceUnit.getName());
+		for (Segment segment : segments) {
+			for (ImportNode importNode : segment.imports) {
+				addImport(module, importNode);
+			}
+			for (Statement statement : segment.statements) {
+				module.addStatement(statement);
+			}
+			for (MethodNode method : segment.methods) {
+				module.addMethod(method);
+			}
+			for (ClassNode classNode : segment.classes) {
+				module.addClass(classNode);
+			}
+		}
+		sourceUnit.setAST(module);
+		// also creates the script class before the unit is shared with the requests
+		unit.addParsedSource(sourceUnit);
+		if (errors != null) {
+			unit.getErrorCollector().addCollectorContents(errors);
+		}
+		return unit;
+	}
+
+	private static void addImport(ModuleNode module, ImportNode importNode) {
+		if (importNode.isStatic() && importNode.isStar()) {
+			module.addStaticStarImport(importNode.getClassName(), importNode.getType());
+		} else if (importNode.isStatic()) {
+			module.addStaticImport(importNode.getType(), importNode.getFieldName(), importNode.getAlias());
+		} else if (importNode.isStar()) {
+			module.addStarImport(importNode.getPackageName());
+		} else {
+			module.addImport(importNode.getAlias(), importNode.getType());
+		}
+	}
+
+	private static int countLines(String text) {
+		int lines = 0;
+		for (int i = 0; i < text.length(); i++) {
+			if (text.charAt(i) == '\n') {
+				lines++;
+			}
+		}
+		return lines;
+	}
+
+	/**
+	 * Splits the script into its top level statements. A statement ends with a
+	 * line outside of any bracket, string or comment, unless the line or the next
+	 * one continues the expression. Blank lines and comments belong to the next
+	 * statement.
+	 */
+	private static List<Segment> split(String content) {
+		List<Segment> segments = new ArrayList<>();
+		int state = CODE;
+		char quote = 0;
+		int depth = 0;
+		int line = 0;
+		int segmentStart = 0;
+		int segmentLine = 0;
+		boolean hasContent = false;
+		char lastChar = 0;
+		// the end of the current statement, confirmed by the next line
+		int pendingEnd = -1;
+		int pendingLine = 0;
+		for (int i = 0; i < content.length(); i++) {
+			char c = content.charAt(i);
+			char next = i + 1 < content.length() ? content.charAt(i + 1) : 0;
+			if (c == '\n') {
+				line++;
+				if (state == LINE_COMMENT || state == STRING) {
+					// single line strings do not span lines, even when not closed
+					state = CODE;
+				}
+				if (state == CODE && depth <= 0 && hasContent && pendingEnd < 0 && !isContinuation(lastChar)) {
+					pendingEnd = i + 1;
+					pendingLine = line;
+					depth = 0;
+				}
+				lastChar = 0;
+				continue;
+			}
+			if (state == LINE_COMMENT) {
+				continue;
+			}
+			if (state == BLOCK_COMMENT) {
+				if (c == '*' && next == '/') {
+					state = CODE;
+					i++;
+				}
+				continue;
+			}
+			if (state == STRING || state == TRIPLE_STRING) {
+				if (c == '\\') {
+					i++;
+				} else if (c == quote && (state == STRING || content.startsWith(tripleQuote(quote), i))) {
+					i += state == TRIPLE_STRING ? 2 : 0;
+					state = CODE;
+				}
+				continue;
+			}
+			if ((c == '/' && next == '/') || (c == '#' && i == 0)) {
+				state = LINE_COMMENT;
+				continue;
+			}
+			if (c == '/' && next == '*') {
+				state = BLOCK_COMMENT;
+				i++;
+				continue;
+			}
+			if (Character.isWhitespace(c)) {
+				continue;
+			}
+			if (pendingEnd >= 0) {
+				if (isLeadingContinuation(c)) {
+					pendingEnd = -1;
+				} else {
+					segments.add(new Segment(segmentLine, content.substring(segmentStart, pendingEnd)));
+					segmentStart = pendingEnd;
+					segmentLine = pendingLine;
+					pendingEnd = -1;
+				}
+			}
+			hasContent = true;
+			lastChar = c;
+			if (c == '\'' || c == '"') {
+				quote = c;
+				if (content.startsWith(tripleQuote(c), i)) {
+					state = TRIPLE_STRING;
+					i += 2;
+				} else {
+					state = STRING;
+				}
+			} else if (c == '{' || c == '(' || c == '[') {
+				depth++;
+			} else if (c == '}' || c == ')' || c == ']') {
+				depth--;
+			}
+		}
+		if (segmentStart < content.length() || segments.isEmpty()) {
+			segments.add(new Segment(segmentLine, content.substring(segmentStart)));
+		}
+		return segments;
+	}
+
+	private static String tripleQuote(char quote) {
+		return new String(new char[]{quote, quote, quote});
+	}
+
+	private static boolean isContinuation(char lastChar) {
+		return "=+-*/%&|^<>?:,.\\".indexOf(lastChar) >= 0;
+	}
+
+	private static boolean isLeadingContinuation(char firstChar) {
+		return ".?:*&|+-".indexOf(firstChar) >= 0;
+	}
+}
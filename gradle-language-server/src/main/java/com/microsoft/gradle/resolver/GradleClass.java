@@ -0,0 +1,21 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.resolver;
+
+public class GradleClass {
+	public String name;
+	public String superclassName;
+	public String[] interfaceNames;
+	public GradleMethod[] methods;
+	public GradleField[] fields;
+
+	public GradleClass(String name, String superclassName, String[] interfaceNames, GradleMethod[] methods,
+			GradleField[] fields) {
+		this.name = name;
+		this.superclassName = superclassName;
+		this.interfaceNames = interfaceNames;
+		this.methods = methods;
+		this.fields = fields;
+	}
+}
@@ -0,0 +1,167 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.resolver;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binary cache file of the classes of a Gradle distribution.
+ *
+ * The file starts with a table of <class name, record offset>, followed by the
+ * class records. It is memory-mapped, and a record is only decoded when its
+ * class is looked up.
+ */
+class GradleClassCache {
+
+	private static int MAGIC = 0x47415049;
+	private static int FORMAT_VERSION = 1;
+
+	private final ByteBuffer buffer;
+
+	private GradleClassCache(ByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Maps the cache file and fills the entries with the record offset of every
+	 * class. Returns null if the file is missing, corrupted or written for
+	 * another key.
+	 */
+	static GradleClassCache open(Path file, String key, Map<String, Long> entries) {
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION || !readString(buffer).equals(key)) {
+				return null;
+			}
+			int count = buffer.getInt();
+			Map<String, Long> offsets = new HashMap<>(count * 4 / 3 + 1);
+			for (int i = 0; i < count; i++) {
+				offsets.put(readString(buffer), (long) buffer.getInt());
+			}
+			// record offsets are relative to the end of the table
+			int recordsStart = buffer.position();
+			for (Map.Entry<String, Long> entry : offsets.entrySet()) {
+				entries.put(entry.getKey(), recordsStart + entry.getValue());
+			}
+			return new GradleClassCache(buffer);
+		} catch (IOException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	GradleClass read(String className, long offset) {
+		ByteBuffer record = this.buffer.duplicate();
+		try {
+			record.position((int) offset);
+			String superclassName = readString(record);
+			String[] interfaceNames = new String[record.getShort()];
+			for (int i = 0; i < interfaceNames.length; i++) {
+				interfaceNames[i] = readString(record);
+			}
+			GradleMethod[] methods = new GradleMethod[record.getShort()];
+			for (int i = 0; i < methods.length; i++) {
+				String name = readString(record);
+				int modifiers = record.getInt();
+				boolean deprecated = record.get() != 0;
+				String[] parameterTypes = new String[record.getShort()];
+				for (int j = 0; j < parameterTypes.length; j++) {
+					parameterTypes[j] = readString(record).intern();
+				}
+				methods[i] = new GradleMethod(name, parameterTypes, deprecated, modifiers);
+			}
+			GradleField[] fields = new GradleField[record.getShort()];
+			for (int i = 0; i < fields.length; i++) {
+				String name = readString(record);
+				boolean deprecated = record.get() != 0;
+				String constantValue = record.get() != 0 ? readString(record) : null;
+				fields[i] = new GradleField(name, deprecated, constantValue);
+			}
+			return new GradleClass(className, superclassName, interfaceNames, methods, fields);
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the classes to the cache file, replacing it atomically.
+	 */
+	static void write(Path file, String key, Iterable<GradleClass> classes) throws IOException {
+		ByteArrayOutputStream records = new ByteArrayOutputStream();
+		DataOutputStream recordOutput = new DataOutputStream(records);
+		Map<String, Integer> offsets = new HashMap<>();
+		for (GradleClass gradleClass : classes) {
+			offsets.put(gradleClass.name, recordOutput.size());
+			writeString(recordOutput, gradleClass.superclassName);
+			recordOutput.writeShort(gradleClass.interfaceNames.length);
+			for (String interfaceName : gradleClass.interfaceNames) {
+				writeString(recordOutput, interfaceName);
+			}
+			recordOutput.writeShort(gradleClass.methods.length);
+			for (GradleMethod method : gradleClass.methods) {
+				writeString(recordOutput, method.name);
+				recordOutput.writeInt(method.modifiers);
+				recordOutput.writeBoolean(method.deprecated);
+				recordOutput.writeShort(method.parameterTypes.length);
+				for (String parameterType : method.parameterTypes) {
+					writeString(recordOutput, parameterType);
+				}
+			}
+			recordOutput.writeShort(gradleClass.fields.length);
+			for (GradleField field : gradleClass.fields) {
+				writeString(recordOutput, field.name);
+				recordOutput.writeBoolean(field.deprecated);
+				recordOutput.writeBoolean(field.constantValue != null);
+				if (field.constantValue != null) {
+					writeString(recordOutput, field.constantValue);
+				}
+			}
+		}
+		Files.createDirectories(file.getParent());
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+			output.writeInt(MAGIC);
+			output.writeInt(FORMAT_VERSION);
+			writeString(output, key);
+			output.writeInt(offsets.size());
+			for (Map.Entry<String, Integer> entry : offsets.entrySet()) {
+				writeString(output, entry.getKey());
+				output.writeInt(entry.getValue());
+			}
+			records.writeTo(output);
+		}
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static void writeString(DataOutputStream output, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0 || length > buffer.remaining()) {
+			throw new IllegalArgumentException("Invalid string length: " + length);
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,233 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.resolver;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.bcel.classfile.Attribute;
+import org.apache.bcel.classfile.ClassFormatException;
+import org.apache.bcel.classfile.ClassParser;
+import org.apache.bcel.classfile.Field;
+import org.apache.bcel.classfile.FieldOrMethod;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.classfile.Method;
+import org.apache.bcel.generic.ObjectType;
+import org.apache.bcel.generic.Type;
+
+/**
+ * Index of the classes in the Gradle API jars.
+ *
+ * Opening the index only reads the central directories of the memory-mapped
+ * jars. A class is parsed the first time it is looked up, and only its name,
+ * supertypes and public members are kept.
+ *
+ * When a cache folder is given, the classes of all jars are written to a
+ * cache file in the background, keyed by the jar paths and checksums. The
+ * next index of the same jars is served from the memory-mapped cache file
+ * without parsing any class file.
+ */
+public class GradleClassIndex {
+
+	public static final GradleClassIndex EMPTY = new GradleClassIndex(new MappedJar[0], null, Collections.emptyMap());
+
+	private static ExecutorService CACHE_WRITER = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Gradle API Cache Writer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final MappedJar[] jars;
+	private final GradleClassCache cache;
+	// <class name, record offset in the cache> or <class name, jar index << 32 |
+	// entry offset>
+	private final Map<String, Long> entries;
+	private final Map<String, GradleClass> classes = new ConcurrentHashMap<>();
+	private CompletableFuture<Void> cacheWriter = CompletableFuture.completedFuture(null);
+
+	private GradleClassIndex(MappedJar[] jars, GradleClassCache cache, Map<String, Long> entries) {
+		this.jars = jars;
+		this.cache = cache;
+		this.entries = entries;
+	}
+
+	public static GradleClassIndex open(List<Path> jarPaths) throws IOException {
+		return open(jarPaths, null);
+	}
+
+	public static GradleClassIndex open(List<Path> jarPaths, Path cacheFolder) throws IOException {
+		MappedJar[] jars = new MappedJar[jarPaths.size()];
+		StringBuilder key = new StringBuilder();
+		for (int i = 0; i < jars.length; i++) {
+			jars[i] = new MappedJar(jarPaths.get(i));
+			key.append(jarPaths.get(i).toAbsolutePath()).append('#').append(jars[i].checksum()).append(';');
+		}
+		Path cacheFile = null;
+		if (cacheFolder != null) {
+			String fileName = UUID.nameUUIDFromBytes(key.toString().getBytes(StandardCharsets.UTF_8)).toString();
+			cacheFile = cacheFolder.resolve("gradle-api-" + fileName + ".cache");
+			Map<String, Long> cachedEntries = new HashMap<>();
+			GradleClassCache cache = GradleClassCache.open(cacheFile, key.toString(), cachedEntries);
+			if (cache != null) {
+				return new GradleClassIndex(new MappedJar[0], cache, cachedEntries);
+			}
+		}
+		Map<String, Long> entries = new HashMap<>();
+		for (int i = 0; i < jars.length; i++) {
+			long jarIndex = i;
+			jars[i].forEachEntry((name, offset) -> {
+				if (name.endsWith(".class")) {
+					// a class of a later jar replaces the one of an earlier jar
+					entries.put(toClassName(name), (jarIndex << 32) | offset);
+				}
+			});
+		}
+		GradleClassIndex index = new GradleClassIndex(jars, null, entries);
+		if (cacheFile != null) {
+			Path file = cacheFile;
+			String cacheKey = key.toString();
+			index.cacheWriter = CompletableFuture.runAsync(() -> index.writeCache(file, cacheKey), CACHE_WRITER);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns true if the classes are read from a cache file instead of the jars.
+	 */
+	public boolean isCached() {
+		return this.cache != null;
+	}
+
+	CompletableFuture<Void> getCacheWriter() {
+		return this.cacheWriter;
+	}
+
+	public int size() {
+		return this.entries.size();
+	}
+
+	public boolean contains(String className) {
+		return className != null && this.entries.containsKey(className);
+	}
+
+	/**
+	 * Returns the class, parsing it on the first lookup, or null if the class is
+	 * unknown or can't be parsed.
+	 */
+	public GradleClass get(String className) {
+		if (className == null) {
+			return null;
+		}
+		GradleClass gradleClass = this.classes.get(className);
+		if (gradleClass != null) {
+			return gradleClass;
+		}
+		Long entry = this.entries.get(className);
+		if (entry == null) {
+			return null;
+		}
+		gradleClass = this.cache != null ? this.cache.read(className, entry) : parse(className, entry);
+		if (gradleClass == null) {
+			return null;
+		}
+		GradleClass previous = this.classes.putIfAbsent(className, gradleClass);
+		return previous == null ? gradleClass : previous;
+	}
+
+	private void writeCache(Path file, String key) {
+		// parse the classes without keeping them, the index stays lazy
+		List<GradleClass> parsedClasses = new ArrayList<>(this.entries.size());
+		for (Map.Entry<String, Long> entry : this.entries.entrySet()) {
+			GradleClass gradleClass = parse(entry.getKey(), entry.getValue());
+			if (gradleClass != null) {
+				parsedClasses.add(gradleClass);
+			}
+		}
+		try {
+			GradleClassCache.write(file, key, parsedClasses);
+		} catch (IOException e) {
+			// the cache is written again by the next start
+		}
+	}
+
+	private GradleClass parse(String className, long entry) {
+		try {
+			byte[] content = this.jars[(int) (entry >>> 32)].read((int) entry);
+			JavaClass javaClass = new ClassParser(new ByteArrayInputStream(content), className).parse();
+			return toGradleClass(javaClass);
+		} catch (IOException | ClassFormatException e) {
+			return null;
+		}
+	}
+
+	private static GradleClass toGradleClass(JavaClass javaClass) {
+		List<GradleMethod> methods = new ArrayList<>();
+		for (Method method : javaClass.getMethods()) {
+			String name = method.getName();
+			// constructors and static initializers can't be called directly
+			if (!method.isPublic() || name.equals("<init>") || name.equals("<clinit>")) {
+				continue;
+			}
+			List<String> parameterTypes = new ArrayList<>();
+			for (Type type : method.getArgumentTypes()) {
+				if (type instanceof ObjectType) {
+					parameterTypes.add(((ObjectType) type).getClassName().intern());
+				}
+			}
+			methods.add(new GradleMethod(name.intern(), parameterTypes.toArray(new String[0]), isDeprecated(method),
+					method.getModifiers() & (Modifier.PUBLIC | Modifier.STATIC | Modifier.ABSTRACT)));
+		}
+		List<GradleField> fields = new ArrayList<>();
+		for (Field field : javaClass.getFields()) {
+			if (!field.isPublic()) {
+				continue;
+			}
+			String constantValue = null;
+			if (field.getConstantValue() != null && field.getType().equals(Type.STRING)) {
+				constantValue = removeQuotes(field.getConstantValue().toString());
+			}
+			fields.add(new GradleField(field.getName(), isDeprecated(field), constantValue));
+		}
+		String[] interfaceNames = javaClass.getInterfaceNames();
+		for (int i = 0; i < interfaceNames.length; i++) {
+			interfaceNames[i] = interfaceNames[i].intern();
+		}
+		return new GradleClass(javaClass.getClassName(), javaClass.getSuperclassName().intern(), interfaceNames,
+				methods.toArray(new GradleMethod[0]), fields.toArray(new GradleField[0]));
+	}
+
+	private static boolean isDeprecated(FieldOrMethod object) {
+		for (Attribute attribute : object.getAttributes()) {
+			if (attribute.toString().contains("Deprecated")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String removeQuotes(String original) {
+		// for those fields parsed from class files, we get ""values"", so we remove the
+		// starting and ending quotes here
+		if (original.length() < 3) {
+			return original;
+		}
+		return original.substring(1, original.length() - 1);
+	}
+
+	private static String toClassName(String entryName) {
+		return entryName.substring(0, entryName.length() - ".class".length()).replace('/', '.');
+	}
+}
@@ -0,0 +1,60 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.resolver;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class indexes shared by the resolvers of all workspace roots. Roots using
+ * the same Gradle distribution share one index, which is dropped when the last
+ * root using it releases it.
+ */
+public class GradleClassIndexCache {
+
+	private static class Entry {
+		private final GradleClassIndex index;
+		private int references;
+
+		private Entry(GradleClassIndex index) {
+			this.index = index;
+		}
+	}
+
+	// <API jar paths, shared index>
+	private Map<List<Path>, Entry> entries = new HashMap<>();
+
+	public synchronized GradleClassIndex acquire(List<Path> jarPaths, Path cacheFolder) throws IOException {
+		Entry entry = this.entries.get(jarPaths);
+		if (entry == null) {
+			entry = new Entry(GradleClassIndex.open(jarPaths, cacheFolder));
+			this.entries.put(new ArrayList<>(jarPaths), entry);
+		}
+		entry.references++;
+		return entry.index;
+	}
+
+	public synchronized void release(GradleClassIndex index) {
+		Iterator<Entry> iterator = this.entries.values().iterator();
+		while (iterator.hasNext()) {
+			Entry entry = iterator.next();
+			if (entry.index == index) {
+				entry.references--;
+				if (entry.references <= 0) {
+					iterator.remove();
+				}
+				return;
+			}
+		}
+	}
+
+	public synchronized int size() {
+		return this.entries.size();
+	}
+}
@@ -6,9 +6,16 @@ package com.microsoft.gradle.resolver;
 public class GradleField {
 	public String name;
 	public boolean deprecated;
+	// the value of a String constant, null otherwise
+	public String constantValue;
 
 	public GradleField(String name, boolean deprecated) {
+		this(name, deprecated, null);
+	}
+
+	public GradleField(String name, boolean deprecated, String constantValue) {
 		this.name = name;
 		this.deprecated = deprecated;
+		this.constantValue = constantValue;
 	}
 }
@@ -13,19 +13,13 @@ import java.net.URL;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
-import java.util.Enumeration;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
-import org.apache.bcel.classfile.ClassFormatException;
-import org.apache.bcel.classfile.ClassParser;
-import org.apache.bcel.classfile.Field;
-import org.apache.bcel.classfile.JavaClass;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class GradleLibraryResolver {
 
@@ -42,13 +36,16 @@ public class GradleLibraryResolver {
 	private static String JAVA_PLUGIN = "org.gradle.api.plugins.JavaPlugin";
 
 	private GradleFilesManager gradleFilesManager;
-	private Map<String, JavaClass> gradleClasses = new HashMap<>();
-	private Set<String> javaConfigurations = new HashSet<>();
+	private GradleClassIndexCache classIndexCache;
+	// the class index and the configurations are replaced as a whole, requests
+	// read them without locking
+	private volatile GradleClassIndex gradleClasses = GradleClassIndex.EMPTY;
+	private volatile Set<String> javaConfigurations = Collections.emptySet();
 	private Set<String> javaPlugins = new HashSet<>();
 	// <projectPath, pluginsList>
-	private Map<String, List<String>> projectPlugins = new HashMap<>();
+	private Map<String, List<String>> projectPlugins = new ConcurrentHashMap<>();
 	// <projectPath, closureList>
-	private Map<String, List<GradleClosure>> extClosures = new HashMap<>();
+	private Map<String, List<GradleClosure>> extClosures = new ConcurrentHashMap<>();
 	private String gradleHome;
 	private String gradleVersion;
 	private boolean gradleWrapperEnabled;
@@ -57,9 +54,17 @@ public class GradleLibraryResolver {
 	private File pluginAPI;
 	private boolean needToLoadClasses;
 	private Path gradleUserHomePath;
+	private Path storagePath;
 
 	public GradleLibraryResolver(GradleFilesManager gradleFilesManager) {
+		this(gradleFilesManager, new GradleClassIndexCache(), null);
+	}
+
+	public GradleLibraryResolver(GradleFilesManager gradleFilesManager, GradleClassIndexCache classIndexCache,
+			Path workspacePath) {
 		this.gradleFilesManager = gradleFilesManager;
+		this.classIndexCache = classIndexCache;
+		this.workspacePath = workspacePath;
 		this.javaPlugins.addAll(Arrays.asList("java", "application", "groovy", "java-library", "war"));
 		this.needToLoadClasses = true;
 		this.gradleUserHomePath = Paths.get(System.getProperty("user.home"), ".gradle");
@@ -83,11 +88,23 @@ public class GradleLibraryResolver {
 				: Paths.get(System.getProperty("user.home"), ".gradle");
 	}
 
+	public Path getGradleUserHomePath() {
+		return this.gradleUserHomePath;
+	}
+
+	public void setStoragePath(Path storagePath) {
+		this.storagePath = storagePath;
+	}
+
 	public void setWorkspacePath(Path workspacePath) {
 		this.workspacePath = workspacePath;
 	}
 
-	public Map<String, JavaClass> getGradleClasses() {
+	public Path getWorkspacePath() {
+		return this.workspacePath;
+	}
+
+	public GradleClassIndex getGradleClasses() {
 		return this.gradleClasses;
 	}
 
@@ -96,14 +113,14 @@ public class GradleLibraryResolver {
 	}
 
 	public List<GradleClosure> getExtClosures(String projectPath) {
-		return this.extClosures.get(projectPath);
+		return projectPath == null ? null : this.extClosures.get(projectPath);
 	}
 
 	public boolean resolveGradleAPI() {
 		return resolveGradleAPI(null);
 	}
 
-	public boolean resolveGradleAPI(URI gradleFilePath) {
+	public synchronized boolean resolveGradleAPI(URI gradleFilePath) {
 		this.needToLoadClasses = true;
 		// step 1: find "lib" folder
 		File libFolder = null;
@@ -133,7 +150,7 @@ public class GradleLibraryResolver {
 			return false;
 		}
 
-		this.gradleFilesManager.setGradleLibraries(Utils.listAllFiles(libFolder));
+		this.gradleFilesManager.setGradleLibraries(this.workspacePath, Utils.listAllFiles(libFolder));
 		// step 2: find core API jar file
 		this.coreAPI = newAPI;
 		// step 3: find plugin API jar file
@@ -141,16 +158,20 @@ public class GradleLibraryResolver {
 		return Utils.isValidFile(this.pluginAPI);
 	}
 
-	public void loadGradleClasses(URI uri) {
+	public synchronized void loadGradleClasses(URI uri) {
 		boolean isAPIValid = Utils.isValidFile(this.coreAPI) && Utils.isValidFile(this.pluginAPI);
 		if (!this.needToLoadClasses || (!isAPIValid && !this.resolveGradleAPI(uri))) {
 			return;
 		}
 		try {
-			JarFile coreAPIJar = new JarFile(this.coreAPI);
-			loadClasses(this.coreAPI.toPath(), coreAPIJar);
-			JarFile pluginAPIJar = new JarFile(this.pluginAPI);
-			loadClasses(this.pluginAPI.toPath(), pluginAPIJar);
+			// classes are parsed on their first lookup, or read from the cache of a
+			// previous start
+			Path cacheFolder = this.storagePath == null ? null : this.storagePath.resolve("gradle-api");
+			// roots on the same distribution share the index
+			GradleClassIndex gradleClasses = this.classIndexCache
+					.acquire(Arrays.asList(this.coreAPI.toPath(), this.pluginAPI.toPath()), cacheFolder);
+			this.classIndexCache.release(this.gradleClasses);
+			this.gradleClasses = gradleClasses;
 			loadJavaConfigurations();
 			this.needToLoadClasses = false;
 		} catch (Exception e) {
@@ -158,6 +179,18 @@ public class GradleLibraryResolver {
 		}
 	}
 
+	/**
+	 * Releases the shared class index, called when the workspace root is removed.
+	 */
+	public synchronized void dispose() {
+		this.gradleFilesManager.setGradleLibraries(this.workspacePath, null);
+		this.classIndexCache.release(this.gradleClasses);
+		this.gradleClasses = GradleClassIndex.EMPTY;
+		this.coreAPI = null;
+		this.pluginAPI = null;
+		this.needToLoadClasses = true;
+	}
+
 	private DistInfo getWrapperPropertiesInfo(URI gradleFilePath) {
 		if (this.workspacePath == null && gradleFilePath == null) {
 			return null;
@@ -263,49 +296,23 @@ public class GradleLibraryResolver {
 		return null;
 	}
 
-	private void loadClasses(Path jarPath, JarFile jarFile) {
-		Enumeration<JarEntry> entries = jarFile.entries();
-		while (entries.hasMoreElements()) {
-			JarEntry entry = entries.nextElement();
-			if (!entry.getName().endsWith(".class")) {
-				continue;
-			}
-			ClassParser parser = new ClassParser(jarPath.toString(), entry.getName());
-			try {
-				JavaClass javaClass = parser.parse();
-				String className = javaClass.getClassName();
-				this.gradleClasses.put(className, javaClass);
-			} catch (IOException | ClassFormatException e) {
-				// Do Nothing
-			}
-		}
-	}
-
 	private void loadJavaConfigurations() {
-		JavaClass javaPluginClass = this.gradleClasses.get(GradleLibraryResolver.JAVA_PLUGIN);
-		if (javaPluginClass == null) {
-			return;
-		}
-		for (Field field : javaPluginClass.getFields()) {
-			if (field.getName().endsWith("CONFIGURATION_NAME")) {
-				this.javaConfigurations.add(removeQuotes(field.getConstantValue().toString()));
+		Set<String> javaConfigurations = new HashSet<>();
+		GradleClass javaPluginClass = this.gradleClasses.get(GradleLibraryResolver.JAVA_PLUGIN);
+		if (javaPluginClass != null) {
+			for (GradleField field : javaPluginClass.fields) {
+				if (field.name.endsWith("CONFIGURATION_NAME") && field.constantValue != null) {
+					javaConfigurations.add(field.constantValue);
+				}
 			}
 		}
+		this.javaConfigurations = Collections.unmodifiableSet(javaConfigurations);
 	}
 
 	public void setExtClosures(String projectPath, List<GradleClosure> closures) {
 		this.extClosures.put(projectPath, closures);
 	}
 
-	private static String removeQuotes(String original) {
-		// for those fields parsed from class files, we get ""values"", so we remove the
-		// starting and ending quotes here
-		if (original.length() < 3) {
-			return original;
-		}
-		return original.substring(1, original.length() - 1);
-	}
-
 	public void setProjectPlugins(String projectPath, List<String> plugins) {
 		this.projectPlugins.put(projectPath, plugins);
 	}
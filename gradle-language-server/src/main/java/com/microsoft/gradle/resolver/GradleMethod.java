@@ -7,10 +7,16 @@ public class GradleMethod {
 	public String name;
 	public String[] parameterTypes;
 	public boolean deprecated;
+	public int modifiers;
 
 	public GradleMethod(String name, String[] parameterTypes, boolean deprecated) {
+		this(name, parameterTypes, deprecated, 0);
+	}
+
+	public GradleMethod(String name, String[] parameterTypes, boolean deprecated, int modifiers) {
 		this.name = name;
 		this.parameterTypes = parameterTypes;
 		this.deprecated = deprecated;
+		this.modifiers = modifiers;
 	}
 }
@@ -0,0 +1,127 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.resolver;
+
+import com.microsoft.gradle.manager.GradleFilesManager;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds one library resolver per workspace root, so that each root resolves
+ * the API of its own Gradle distribution. Files outside of any root use the
+ * default resolver. Resolvers of roots on the same distribution share their
+ * class index.
+ */
+public class GradleResolverManager {
+
+	private GradleFilesManager gradleFilesManager;
+	private GradleClassIndexCache classIndexCache = new GradleClassIndexCache();
+	// <workspace root, resolver>
+	private Map<Path, GradleLibraryResolver> resolvers = new ConcurrentHashMap<>();
+	private GradleLibraryResolver defaultResolver;
+	private String gradleHome;
+	private String gradleVersion;
+	private Boolean gradleWrapperEnabled;
+	private String gradleUserHome;
+	private Path storagePath;
+
+	public GradleResolverManager(GradleFilesManager gradleFilesManager) {
+		this.gradleFilesManager = gradleFilesManager;
+		this.defaultResolver = createResolver(null);
+	}
+
+	public GradleClassIndexCache getClassIndexCache() {
+		return this.classIndexCache;
+	}
+
+	public void setStoragePath(Path storagePath) {
+		this.storagePath = storagePath;
+		for (GradleLibraryResolver resolver : getResolvers()) {
+			resolver.setStoragePath(storagePath);
+		}
+	}
+
+	public void applySettings(String gradleHome, String gradleVersion, Boolean gradleWrapperEnabled,
+			String gradleUserHome) {
+		this.gradleHome = gradleHome;
+		this.gradleVersion = gradleVersion;
+		this.gradleWrapperEnabled = gradleWrapperEnabled;
+		this.gradleUserHome = gradleUserHome;
+		for (GradleLibraryResolver resolver : getResolvers()) {
+			applySettings(resolver);
+		}
+		resolveGradleAPI();
+	}
+
+	public void resolveGradleAPI() {
+		for (GradleLibraryResolver resolver : getResolvers()) {
+			resolver.resolveGradleAPI();
+		}
+	}
+
+	public Path getGradleUserHomePath() {
+		return this.defaultResolver.getGradleUserHomePath();
+	}
+
+	public void addWorkspaceFolder(Path workspacePath) {
+		this.resolvers.computeIfAbsent(workspacePath, path -> {
+			GradleLibraryResolver resolver = createResolver(path);
+			resolver.resolveGradleAPI();
+			return resolver;
+		});
+	}
+
+	public void removeWorkspaceFolder(Path workspacePath) {
+		GradleLibraryResolver resolver = this.resolvers.remove(workspacePath);
+		if (resolver != null) {
+			resolver.dispose();
+		}
+	}
+
+	public GradleLibraryResolver getResolver(URI uri) {
+		return getResolver(Paths.get(uri));
+	}
+
+	public GradleLibraryResolver getResolver(String projectPath) {
+		return projectPath == null ? this.defaultResolver : getResolver(Paths.get(projectPath));
+	}
+
+	private GradleLibraryResolver getResolver(Path path) {
+		// the innermost root owns the file of nested roots
+		Path workspacePath = null;
+		for (Path root : this.resolvers.keySet()) {
+			if (path.startsWith(root) && (workspacePath == null || root.startsWith(workspacePath))) {
+				workspacePath = root;
+			}
+		}
+		GradleLibraryResolver resolver = workspacePath == null ? null : this.resolvers.get(workspacePath);
+		return resolver == null ? this.defaultResolver : resolver;
+	}
+
+	private List<GradleLibraryResolver> getResolvers() {
+		List<GradleLibraryResolver> resolvers = new ArrayList<>(this.resolvers.values());
+		resolvers.add(this.defaultResolver);
+		return resolvers;
+	}
+
+	private GradleLibraryResolver createResolver(Path workspacePath) {
+		GradleLibraryResolver resolver = new GradleLibraryResolver(this.gradleFilesManager, this.classIndexCache,
+				workspacePath);
+		resolver.setStoragePath(this.storagePath);
+		applySettings(resolver);
+		return resolver;
+	}
+
+	private void applySettings(GradleLibraryResolver resolver) {
+		resolver.setGradleHome(this.gradleHome);
+		resolver.setGradleVersion(this.gradleVersion);
+		resolver.setGradleWrapperEnabled(this.gradleWrapperEnabled);
+		resolver.setGradleUserHomePath(this.gradleUserHome);
+	}
+}
@@ -0,0 +1,156 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.resolver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.ObjIntConsumer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Read-only view of a jar file mapped into memory. Entries are addressed by the
+ * offset of their central directory record, so that callers can remember
+ * entries without keeping any per-entry object.
+ */
+class MappedJar {
+
+	private static int END_SIGNATURE = 0x06054b50;
+	private static int CENTRAL_SIGNATURE = 0x02014b50;
+	private static int LOCAL_SIGNATURE = 0x04034b50;
+	private static int END_SIZE = 22;
+	private static int CENTRAL_SIZE = 46;
+	private static int LOCAL_SIZE = 30;
+
+	private final ByteBuffer buffer;
+	private final int centralOffset;
+	private final int centralSize;
+	private final int entryCount;
+
+	MappedJar(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Jar file too large: " + path);
+			}
+			// the mapping stays valid after the channel is closed
+			this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+					.order(ByteOrder.LITTLE_ENDIAN);
+		}
+		int end = findEndRecord();
+		if (end < 0) {
+			throw new IOException("Invalid jar file: " + path);
+		}
+		this.entryCount = Short.toUnsignedInt(this.buffer.getShort(end + 10));
+		long size = Integer.toUnsignedLong(this.buffer.getInt(end + 12));
+		long offset = Integer.toUnsignedLong(this.buffer.getInt(end + 16));
+		if (this.entryCount == 0xFFFF || offset == 0xFFFFFFFFL || offset + size > end) {
+			// ZIP64 archives are not expected for the Gradle API jars
+			throw new IOException("Unsupported jar file: " + path);
+		}
+		this.centralOffset = (int) offset;
+		this.centralSize = (int) size;
+	}
+
+	/**
+	 * Returns a checksum of the central directory. It contains the name, size
+	 * and CRC of every entry, so it changes whenever the content of the jar
+	 * changes.
+	 */
+	long checksum() {
+		ByteBuffer central = this.buffer.duplicate();
+		central.position(this.centralOffset);
+		central.limit(this.centralOffset + this.centralSize);
+		CRC32 crc = new CRC32();
+		crc.update(central);
+		return crc.getValue();
+	}
+
+	/**
+	 * Calls the consumer with the name and the central directory offset of every
+	 * entry.
+	 */
+	void forEachEntry(ObjIntConsumer<String> consumer) throws IOException {
+		int offset = this.centralOffset;
+		for (int i = 0; i < this.entryCount; i++) {
+			if (this.buffer.getInt(offset) != CENTRAL_SIGNATURE) {
+				throw new IOException("Invalid central directory record at " + offset);
+			}
+			int nameLength = Short.toUnsignedInt(this.buffer.getShort(offset + 28));
+			int extraLength = Short.toUnsignedInt(this.buffer.getShort(offset + 30));
+			int commentLength = Short.toUnsignedInt(this.buffer.getShort(offset + 32));
+			consumer.accept(readString(offset + CENTRAL_SIZE, nameLength), offset);
+			offset += CENTRAL_SIZE + nameLength + extraLength + commentLength;
+		}
+	}
+
+	/**
+	 * Returns the uncompressed content of the entry.
+	 */
+	byte[] read(int entryOffset) throws IOException {
+		int method = Short.toUnsignedInt(this.buffer.getShort(entryOffset + 10));
+		int compressedSize = this.buffer.getInt(entryOffset + 20);
+		int size = this.buffer.getInt(entryOffset + 24);
+		int localOffset = this.buffer.getInt(entryOffset + 42);
+		if (this.buffer.getInt(localOffset) != LOCAL_SIGNATURE) {
+			throw new IOException("Invalid local header at " + localOffset);
+		}
+		int nameLength = Short.toUnsignedInt(this.buffer.getShort(localOffset + 26));
+		int extraLength = Short.toUnsignedInt(this.buffer.getShort(localOffset + 28));
+		ByteBuffer data = this.buffer.duplicate();
+		data.position(localOffset + LOCAL_SIZE + nameLength + extraLength);
+		data.limit(data.position() + compressedSize);
+		byte[] content = new byte[size];
+		if (method == 0) {
+			data.get(content);
+			return content;
+		}
+		if (method != 8) {
+			throw new IOException("Unsupported compression method: " + method);
+		}
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(data);
+			int read = 0;
+			while (read < size && !inflater.finished()) {
+				int count = inflater.inflate(content, read, size - read);
+				if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				read += count;
+			}
+			if (read != size) {
+				throw new IOException("Truncated jar entry at " + entryOffset);
+			}
+			return content;
+		} catch (DataFormatException e) {
+			throw new IOException(e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	private int findEndRecord() {
+		// the end record is followed by a comment of at most 64k
+		int last = this.buffer.limit() - END_SIZE;
+		int first = Math.max(0, last - 0xFFFF);
+		for (int offset = last; offset >= first; offset--) {
+			if (this.buffer.getInt(offset) == END_SIGNATURE) {
+				return offset;
+			}
+		}
+		return -1;
+	}
+
+	private String readString(int offset, int length) {
+		byte[] bytes = new byte[length];
+		this.buffer.get(offset, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
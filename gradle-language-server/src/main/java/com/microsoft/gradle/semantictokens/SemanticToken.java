@@ -3,9 +3,13 @@
 
 package com.microsoft.gradle.semantictokens;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
 
 public class SemanticToken {
 	private final TokenType tokenType;
@@ -43,21 +47,24 @@ public class SemanticToken {
 	}
 
 	// Note: similar logics as JDT.LS, but in groovy AST ranges start from 1
-	public static List<Integer> encodedTokens(List<SemanticToken> tokens) {
-		tokens.sort(new Comparator<SemanticToken>() {
-			@Override
-			public int compare(final SemanticToken a, final SemanticToken b) {
-				int lineResult = Integer.valueOf(a.getLine()).compareTo(Integer.valueOf(b.getLine()));
-				if (lineResult == 0) {
-					return Integer.valueOf(a.getColumn()).compareTo(Integer.valueOf(b.getColumn()));
-				}
-				return lineResult;
-			}
-		});
+	public static int[] encodedTokens(List<SemanticToken> tokens) {
+		return encodedTokens(tokens, null);
+	}
+
+	/**
+	 * Encode the tokens into the relative LSP format. When a range is given, only
+	 * tokens starting inside of it are encoded.
+	 */
+	public static int[] encodedTokens(List<SemanticToken> tokens, Range range) {
+		// the tokens of a document are shared by concurrent requests, sort a copy
+		tokens = new ArrayList<>(tokens);
+		tokens.sort(Comparator.comparingInt(SemanticToken::getLine).thenComparingInt(SemanticToken::getColumn));
 		int numTokens = tokens.size();
-		List<Integer> data = new ArrayList<>(numTokens * 5);
+		int[] data = new int[numTokens * 5];
+		int size = 0;
 		int currentLine = 0;
 		int currentColumn = 0;
+		boolean first = true;
 		for (int i = 0; i < numTokens; i++) {
 			SemanticToken token = tokens.get(i);
 			int line = token.getLine() - 1;
@@ -65,6 +72,9 @@ public class SemanticToken {
 			if (line < 0 || column < 0) {
 				continue;
 			}
+			if (range != null && !isInRange(line, column, range)) {
+				continue;
+			}
 			int deltaLine = line - currentLine;
 			if (deltaLine != 0) {
 				currentLine = line;
@@ -73,16 +83,42 @@ public class SemanticToken {
 			int deltaColumn = column - currentColumn;
 			currentColumn = column;
 			// Disallow duplicate/conflict token (if exists)
-			if (deltaLine != 0 || deltaColumn != 0 || i == 0) {
-				int tokenTypeIndex = token.getTokenType().ordinal();
-				int tokenModifiers = token.getTokenModifiers();
-				data.add(deltaLine);
-				data.add(deltaColumn);
-				data.add(token.getLength());
-				data.add(tokenTypeIndex);
-				data.add(tokenModifiers);
+			if (deltaLine != 0 || deltaColumn != 0 || first) {
+				data[size++] = deltaLine;
+				data[size++] = deltaColumn;
+				data[size++] = token.getLength();
+				data[size++] = token.getTokenType().ordinal();
+				data[size++] = token.getTokenModifiers();
+				first = false;
 			}
 		}
-		return data;
+		return size == data.length ? data : Arrays.copyOf(data, size);
+	}
+
+	private static boolean isInRange(int line, int column, Range range) {
+		Position start = range.getStart();
+		Position end = range.getEnd();
+		if (line < start.getLine() || (line == start.getLine() && column < start.getCharacter())) {
+			return false;
+		}
+		return line < end.getLine() || (line == end.getLine() && column < end.getCharacter());
+	}
+
+	/**
+	 * Wrap the encoded data without boxing every element up front, lsp4j only
+	 * iterates the list when serializing the response.
+	 */
+	public static List<Integer> asList(int[] data) {
+		return new AbstractList<Integer>() {
+			@Override
+			public Integer get(int index) {
+				return data[index];
+			}
+
+			@Override
+			public int size() {
+				return data.length;
+			}
+		};
 	}
 }
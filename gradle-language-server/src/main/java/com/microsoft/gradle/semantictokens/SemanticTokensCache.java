@@ -0,0 +1,85 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.semantictokens;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.lsp4j.SemanticTokens;
+import org.eclipse.lsp4j.SemanticTokensDelta;
+import org.eclipse.lsp4j.SemanticTokensEdit;
+import org.eclipse.lsp4j.jsonrpc.messages.Either;
+
+/**
+ * Keeps the last encoded semantic tokens of each document, so that
+ * semanticTokens/full/delta requests only send the changed part of the data.
+ */
+public class SemanticTokensCache {
+
+	private static class CachedTokens {
+		private final String resultId;
+		private final int[] data;
+
+		private CachedTokens(String resultId, int[] data) {
+			this.resultId = resultId;
+			this.data = data;
+		}
+	}
+
+	private final AtomicLong nextResultId = new AtomicLong();
+	private final Map<URI, CachedTokens> cache = new ConcurrentHashMap<>();
+
+	public SemanticTokens full(URI uri, int[] data) {
+		String resultId = store(uri, data);
+		return new SemanticTokens(resultId, SemanticToken.asList(data));
+	}
+
+	public Either<SemanticTokens, SemanticTokensDelta> delta(URI uri, String previousResultId, int[] data) {
+		CachedTokens previous = this.cache.get(uri);
+		if (previous == null || previousResultId == null || !previousResultId.equals(previous.resultId)) {
+			// the client holds a result we no longer know, fall back to full tokens
+			return Either.forLeft(full(uri, data));
+		}
+		String resultId = store(uri, data);
+		return Either.forRight(new SemanticTokensDelta(computeEdits(previous.data, data), resultId));
+	}
+
+	public void remove(URI uri) {
+		this.cache.remove(uri);
+	}
+
+	private String store(URI uri, int[] data) {
+		String resultId = Long.toString(this.nextResultId.incrementAndGet());
+		this.cache.put(uri, new CachedTokens(resultId, data));
+		return resultId;
+	}
+
+	static List<SemanticTokensEdit> computeEdits(int[] previous, int[] current) {
+		// the edit is a single splice between the common prefix and the common suffix
+		int prefix = 0;
+		int maxPrefix = Math.min(previous.length, current.length);
+		while (prefix < maxPrefix && previous[prefix] == current[prefix]) {
+			prefix++;
+		}
+		if (prefix == previous.length && prefix == current.length) {
+			return Collections.emptyList();
+		}
+		int suffix = 0;
+		int maxSuffix = maxPrefix - prefix;
+		while (suffix < maxSuffix
+				&& previous[previous.length - 1 - suffix] == current[current.length - 1 - suffix]) {
+			suffix++;
+		}
+		int deleteCount = previous.length - prefix - suffix;
+		int[] inserted = Arrays.copyOfRange(current, prefix, current.length - suffix);
+		List<SemanticTokensEdit> edits = new ArrayList<>(1);
+		edits.add(new SemanticTokensEdit(prefix, deleteCount, SemanticToken.asList(inserted)));
+		return edits;
+	}
+}
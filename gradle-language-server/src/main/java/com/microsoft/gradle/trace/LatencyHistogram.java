@@ -0,0 +1,112 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.trace;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free histogram of latencies in microseconds.
+ *
+ * The buckets are log-linear: every power of two is split into eight buckets,
+ * so a percentile is reported within 12.5% of the recorded value whatever the
+ * magnitude, with a fixed array of counters.
+ */
+public class LatencyHistogram {
+
+	private static int SUB_BUCKET_BITS = 3;
+	private static int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	// the buckets of the values below SUB_BUCKETS, then eight per power of two
+	private static int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAdder totalCount = new LongAdder();
+	private final LongAdder totalMicros = new LongAdder();
+	private final LongAccumulator maxMicros = new LongAccumulator(Long::max, 0);
+
+	public void record(long nanos) {
+		long micros = Math.max(0, nanos / 1000);
+		this.counts.incrementAndGet(getIndex(micros));
+		this.totalCount.increment();
+		this.totalMicros.add(micros);
+		this.maxMicros.accumulate(micros);
+	}
+
+	public long getCount() {
+		return this.totalCount.sum();
+	}
+
+	public long getMaxMicros() {
+		return this.maxMicros.get();
+	}
+
+	public double getMeanMicros() {
+		long count = getCount();
+		return count == 0 ? 0 : (double) this.totalMicros.sum() / count;
+	}
+
+	/**
+	 * Returns the highest value of the bucket holding the percentile, never more
+	 * than the maximum recorded value.
+	 */
+	public long getPercentileMicros(double percentile) {
+		long count = getCount();
+		if (count == 0) {
+			return 0;
+		}
+		long target = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += this.counts.get(i);
+			if (seen >= target) {
+				return Math.min(getHighestValue(i), getMaxMicros());
+			}
+		}
+		return getMaxMicros();
+	}
+
+	/**
+	 * Returns the summary sent to the client, with the durations in
+	 * milliseconds.
+	 */
+	public Map<String, Object> getSummary() {
+		Map<String, Object> summary = new LinkedHashMap<>();
+		summary.put("count", getCount());
+		summary.put("mean", toMillis(getMeanMicros()));
+		summary.put("p50", toMillis(getPercentileMicros(50)));
+		summary.put("p90", toMillis(getPercentileMicros(90)));
+		summary.put("p99", toMillis(getPercentileMicros(99)));
+		summary.put("max", toMillis(getMaxMicros()));
+		return summary;
+	}
+
+	static double toMillis(double micros) {
+		return Math.round(micros) / 1000.0;
+	}
+
+	static int getIndex(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int magnitude = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		int shift = magnitude - SUB_BUCKET_BITS;
+		int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+		return (shift + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	static long getLowestValue(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int shift = index / SUB_BUCKETS - 1;
+		return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+	}
+
+	static long getHighestValue(int index) {
+		return index + 1 < BUCKET_COUNT ? getLowestValue(index + 1) - 1 : Long.MAX_VALUE;
+	}
+}
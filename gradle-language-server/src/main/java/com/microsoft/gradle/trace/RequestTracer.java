@@ -0,0 +1,129 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.trace;
+
+import com.google.gson.Gson;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Records the latencies of the requests and of their phases.
+ *
+ * A request is timed from its {@link #start} to the {@link Trace#close} of its
+ * trace, and every {@link Trace#phase} records the time since the previous
+ * one. The histograms are named after the request, such as
+ * {@code textDocument/completion}, and after its phases, such as
+ * {@code textDocument/completion:visit}. A request slower than the threshold
+ * is logged with the durations of its phases.
+ */
+public class RequestTracer {
+
+	private static long DEFAULT_SLOW_REQUEST_THRESHOLD = 1000;
+
+	private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+	private final Consumer<String> logger;
+	private volatile long slowRequestThreshold = TimeUnit.MILLISECONDS.toNanos(DEFAULT_SLOW_REQUEST_THRESHOLD);
+
+	public RequestTracer(Consumer<String> logger) {
+		this.logger = logger;
+	}
+
+	public static class Trace {
+		private final RequestTracer tracer;
+		private final String request;
+		private final String uri;
+		private final long start;
+		private long lastMark;
+		// <phase, nanoseconds>
+		private final Map<String, Long> phases = new LinkedHashMap<>();
+		private boolean closed;
+
+		private Trace(RequestTracer tracer, String request, String uri) {
+			this.tracer = tracer;
+			this.request = request;
+			this.uri = uri;
+			this.start = System.nanoTime();
+			this.lastMark = this.start;
+		}
+
+		/**
+		 * Records the time since the previous phase, or since the start, as the
+		 * duration of the phase which just ended.
+		 */
+		public synchronized void phase(String name) {
+			long now = System.nanoTime();
+			long nanos = now - this.lastMark;
+			this.lastMark = now;
+			this.phases.merge(name, nanos, Long::sum);
+			this.tracer.record(this.request + ":" + name, nanos);
+		}
+
+		public synchronized void close() {
+			if (this.closed) {
+				return;
+			}
+			this.closed = true;
+			long nanos = System.nanoTime() - this.start;
+			this.tracer.record(this.request, nanos);
+			long threshold = this.tracer.slowRequestThreshold;
+			if (threshold > 0 && nanos >= threshold) {
+				this.tracer.logger.accept("Slow request: " + new Gson().toJson(toMap(nanos)));
+			}
+		}
+
+		private Map<String, Object> toMap(long nanos) {
+			Map<String, Object> trace = new LinkedHashMap<>();
+			trace.put("request", this.request);
+			if (this.uri != null) {
+				trace.put("uri", this.uri);
+			}
+			trace.put("duration", toMillis(nanos));
+			Map<String, Object> phaseDurations = new LinkedHashMap<>();
+			for (Map.Entry<String, Long> phase : this.phases.entrySet()) {
+				phaseDurations.put(phase.getKey(), toMillis(phase.getValue()));
+			}
+			trace.put("phases", phaseDurations);
+			return trace;
+		}
+
+		private static double toMillis(long nanos) {
+			return LatencyHistogram.toMillis(nanos / 1000.0);
+		}
+	}
+
+	public Trace start(String request, String uri) {
+		return new Trace(this, request, uri);
+	}
+
+	/**
+	 * Sets the duration in milliseconds from which the requests are logged, 0
+	 * disables the log.
+	 */
+	public void setSlowRequestThreshold(long millis) {
+		this.slowRequestThreshold = TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+	}
+
+	/**
+	 * Returns the summaries of the histograms by name.
+	 */
+	public Map<String, Map<String, Object>> getStats() {
+		Map<String, Map<String, Object>> stats = new TreeMap<>();
+		for (Map.Entry<String, LatencyHistogram> entry : this.histograms.entrySet()) {
+			stats.put(entry.getKey(), entry.getValue().getSummary());
+		}
+		return stats;
+	}
+
+	LatencyHistogram getHistogram(String name) {
+		return this.histograms.get(name);
+	}
+
+	private void record(String name, long nanos) {
+		this.histograms.computeIfAbsent(name, key -> new LatencyHistogram()).record(nanos);
+	}
+}
@@ -11,10 +11,12 @@ import java.net.StandardProtocolFamily;
 import java.net.UnixDomainSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SocketChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.file.StandardOpenOption;
+import java.util.Objects;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
@@ -22,6 +24,8 @@ import java.util.concurrent.Future;
  * A named pipe stream implementation.
  */
 public class NamedPipeStream {
+	private static int BUFFER_SIZE = 64 * 1024;
+
 	private String pipeName;
 	private StreamProvider provider;
 
@@ -108,101 +112,195 @@ public class NamedPipeStream {
 	}
 
 	/**
-	 * NamedPipeInputStream.
+	 * NamedPipeInputStream. Reads the channel in bulk into a direct buffer, reads
+	 * larger than the buffer go to the target array directly.
 	 */
-	public class NamedPipeInputStream extends InputStream {
+	public static class NamedPipeInputStream extends InputStream {
 
 		private ReadableByteChannel unixChannel;
 		private AsynchronousFileChannel winChannel;
-		private ByteBuffer buffer = ByteBuffer.allocate(1024);
-		private int readyBytes = 0;
+		// the bytes read from the channel and not consumed yet
+		private ByteBuffer buffer;
 
 		public NamedPipeInputStream(ReadableByteChannel channel) {
+			this(channel, BUFFER_SIZE);
+		}
+
+		public NamedPipeInputStream(ReadableByteChannel channel, int bufferSize) {
 			this.unixChannel = channel;
+			this.buffer = createBuffer(bufferSize);
 		}
 
 		public NamedPipeInputStream(AsynchronousFileChannel channel) {
+			this(channel, BUFFER_SIZE);
+		}
+
+		public NamedPipeInputStream(AsynchronousFileChannel channel, int bufferSize) {
 			this.winChannel = channel;
+			this.buffer = createBuffer(bufferSize);
+		}
+
+		private static ByteBuffer createBuffer(int bufferSize) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
+			buffer.flip();
+			return buffer;
 		}
 
 		@Override
 		public int read() throws IOException {
-			if (buffer.position() < readyBytes) {
-				return buffer.get() & 0xFF;
+			if (!buffer.hasRemaining() && fill() == -1) {
+				return -1; // EOF
+			}
+			return buffer.get() & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			Objects.checkFromIndexSize(off, len, b.length);
+			if (len == 0) {
+				return 0;
+			}
+			if (buffer.hasRemaining()) {
+				// do not block for more than what is already there
+				int count = Math.min(len, buffer.remaining());
+				buffer.get(b, off, count);
+				return count;
+			}
+			if (len >= buffer.capacity()) {
+				return readChannel(ByteBuffer.wrap(b, off, len));
+			}
+			if (fill() == -1) {
+				return -1; // EOF
 			}
+			int count = Math.min(len, buffer.remaining());
+			buffer.get(b, off, count);
+			return count;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return buffer.remaining();
+		}
+
+		private int fill() throws IOException {
+			buffer.clear();
+			int readBytes;
 			try {
-				buffer.clear();
+				readBytes = readChannel(buffer);
+			} finally {
+				buffer.flip();
+			}
+			return readBytes;
+		}
+
+		private int readChannel(ByteBuffer target) throws IOException {
+			int readBytes = 0;
+			// blocking channels return at least one byte, unless at the end
+			while (readBytes == 0) {
 				if (winChannel != null) {
-					readyBytes = winChannel.read(buffer, 0).get();
+					try {
+						readBytes = winChannel.read(target, 0).get();
+					} catch (InterruptedException | ExecutionException e) {
+						throw new IOException(e);
+					}
 				} else {
-					readyBytes = unixChannel.read(buffer);
+					readBytes = unixChannel.read(target);
 				}
-				if (readyBytes == -1) {
-					return -1; // EOF
-				}
-				buffer.flip();
-				return buffer.get() & 0xFF;
-			} catch (InterruptedException | ExecutionException e) {
-				throw new IOException(e);
 			}
+			return readBytes;
 		}
 	}
 
 	/**
-	 * NamedPipeOutputStream.
+	 * NamedPipeOutputStream. Collects the writes of a message until it is flushed,
+	 * a body larger than the buffer is written together with the buffered header
+	 * by one gathering write.
 	 */
-	public class NamedPipeOutputStream extends OutputStream {
+	public static class NamedPipeOutputStream extends OutputStream {
 		private WritableByteChannel unixChannel;
 		private AsynchronousFileChannel winChannel;
-		private ByteBuffer buffer = ByteBuffer.allocate(1);
+		// the bytes written and not flushed yet
+		private ByteBuffer buffer;
 
 		public NamedPipeOutputStream(WritableByteChannel channel) {
+			this(channel, BUFFER_SIZE);
+		}
+
+		public NamedPipeOutputStream(WritableByteChannel channel, int bufferSize) {
 			this.unixChannel = channel;
+			this.buffer = ByteBuffer.allocateDirect(bufferSize);
 		}
 
 		public NamedPipeOutputStream(AsynchronousFileChannel channel) {
+			this(channel, BUFFER_SIZE);
+		}
+
+		public NamedPipeOutputStream(AsynchronousFileChannel channel, int bufferSize) {
 			this.winChannel = channel;
+			this.buffer = ByteBuffer.allocateDirect(bufferSize);
 		}
 
 		@Override
 		public void write(int b) throws IOException {
-			buffer.clear();
+			if (!buffer.hasRemaining()) {
+				flush();
+			}
 			buffer.put((byte) b);
-			buffer.position(0);
-			if (winChannel != null) {
-				Future<Integer> result = winChannel.write(buffer, 0);
-				try {
-					result.get();
-				} catch (Exception e) {
-					throw new IOException(e);
-				}
-			} else {
-				unixChannel.write(buffer);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			Objects.checkFromIndexSize(off, len, b.length);
+			if (len <= buffer.remaining()) {
+				buffer.put(b, off, len);
+				return;
+			}
+			if (len < buffer.capacity()) {
+				flush();
+				buffer.put(b, off, len);
+				return;
+			}
+			buffer.flip();
+			try {
+				writeChannel(buffer, ByteBuffer.wrap(b, off, len));
+			} finally {
+				buffer.clear();
 			}
 		}
 
 		@Override
-		public void write(byte[] b) throws IOException {
-			final int buffer_size = 1024;
-			int blocks = b.length / buffer_size;
-			int writeBytes = 0;
-			for (int i = 0; i <= blocks; i++) {
-				int offset = i * buffer_size;
-				int length = Math.min(b.length - writeBytes, buffer_size);
-				if (length <= 0) {
-					break;
+		public void flush() throws IOException {
+			if (buffer.position() == 0) {
+				return;
+			}
+			buffer.flip();
+			try {
+				writeChannel(buffer);
+			} finally {
+				buffer.clear();
+			}
+		}
+
+		private void writeChannel(ByteBuffer... sources) throws IOException {
+			ByteBuffer last = sources[sources.length - 1];
+			if (unixChannel instanceof GatheringByteChannel) {
+				while (last.hasRemaining()) {
+					((GatheringByteChannel) unixChannel).write(sources);
 				}
-				writeBytes += length;
-				ByteBuffer buffer = ByteBuffer.wrap(b, offset, length);
-				if (winChannel != null) {
-					Future<Integer> result = winChannel.write(buffer, 0);
-					try {
-						result.get();
-					} catch (Exception e) {
-						throw new IOException(e);
+				return;
+			}
+			for (ByteBuffer source : sources) {
+				while (source.hasRemaining()) {
+					if (winChannel != null) {
+						Future<Integer> result = winChannel.write(source, 0);
+						try {
+							result.get();
+						} catch (Exception e) {
+							throw new IOException(e);
+						}
+					} else {
+						unixChannel.write(source);
 					}
-				} else {
-					unixChannel.write(buffer);
 				}
 			}
 		}
@@ -3,11 +3,11 @@
 
 package com.microsoft.gradle.utils;
 
+import com.microsoft.gradle.compile.CompletionVisitor.DependencyItem;
+import com.microsoft.gradle.index.DependencyIndex;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import org.eclipse.lsp4j.Command;
 import org.eclipse.lsp4j.CompletionItem;
 import org.eclipse.lsp4j.CompletionItemKind;
@@ -37,9 +37,36 @@ public class CompletionUtils {
 		}
 	}
 
-	public static List<CompletionItem> getGroupIdCompletions(String text, Range range, Collection<String> keys,
-			String sequence) {
-		List<String> results = CompletionUtils.sortResults(text, keys);
+	// dependency completion lists are incomplete, the client asks again for more
+	// specific text
+	public static int MAX_DEPENDENCY_RESULTS = 100;
+
+	/**
+	 * Completes the groupId, the artifactId or the version of a dependency from
+	 * the index of a local repository.
+	 */
+	public static List<CompletionItem> getDependencyCompletions(DependencyIndex index, DependencyItem dependency,
+			Position position, String sequence) {
+		Range range = new Range(dependency.getRange().getStart(), position);
+		String validText = LSPUtils.getStringBeforePosition(dependency.getText(), dependency.getRange(), position);
+		String[] validTexts = validText.split(":", -1);
+		switch (validTexts.length) {
+			case 1 :
+				return getGroupIdCompletions(range, index.searchGroupIds(validTexts[0], MAX_DEPENDENCY_RESULTS),
+						sequence);
+			case 2 :
+				return getArtifactIdCompletions(validTexts[0], range,
+						index.searchArtifactIds(validTexts[0], validTexts[1], MAX_DEPENDENCY_RESULTS), sequence);
+			case 3 :
+				return getVersionCompletions(validTexts[0], validTexts[1], range,
+						index.searchVersions(validTexts[0], validTexts[1], validTexts[2], MAX_DEPENDENCY_RESULTS),
+						sequence);
+			default :
+				return Collections.emptyList();
+		}
+	}
+
+	public static List<CompletionItem> getGroupIdCompletions(Range range, List<String> results, String sequence) {
 		List<CompletionItem> items = new ArrayList<>();
 		for (int i = 0; i < results.size(); i++) {
 			String groupId = results.get(i);
@@ -59,9 +86,8 @@ public class CompletionUtils {
 		return items;
 	}
 
-	public static List<CompletionItem> getArtifactIdCompletions(String groupId, String text, Range range,
-			Collection<String> keys, String sequence) {
-		List<String> results = CompletionUtils.sortResults(text, keys);
+	public static List<CompletionItem> getArtifactIdCompletions(String groupId, Range range, List<String> results,
+			String sequence) {
 		List<CompletionItem> items = new ArrayList<>();
 		// ${groupId}:${artifactId}
 		int character = range.getStart().getCharacter() + groupId.length() + 1;
@@ -84,23 +110,27 @@ public class CompletionUtils {
 		return items;
 	}
 
-	public static List<String> sortResults(String text, Collection<String> keys) {
-		if (text.isEmpty()) {
-			return new ArrayList<>(keys);
+	public static List<CompletionItem> getVersionCompletions(String groupId, String artifactId, Range range,
+			List<String> results, String sequence) {
+		List<CompletionItem> items = new ArrayList<>();
+		// ${groupId}:${artifactId}:${version}
+		int character = range.getStart().getCharacter() + groupId.length() + 1 + artifactId.length() + 1;
+		Range replaceRange = new Range(new Position(range.getStart().getLine(), character), range.getEnd());
+		for (int i = 0; i < results.size(); i++) {
+			String version = results.get(i);
+			CompletionItem completionItem = new CompletionItem();
+			TextEdit textEdit = new TextEdit(replaceRange, version);
+			completionItem.setTextEdit(Either.forLeft(textEdit));
+			completionItem.setLabel(version);
+			completionItem.setKind(CompletionItemKind.Constant);
+			completionItem.setDetail("Version: " + version);
+			completionItem.setSortText(sequence + String.format("%08d", i));
+			List<Object> arguments = new ArrayList<>();
+			arguments.add(CompletionKinds.DEPENDENCY_VERSION.toString());
+			arguments.add(groupId + ":" + artifactId + ":" + version);
+			completionItem.setCommand(new Command(completionTitle, completionCommand, arguments));
+			items.add(completionItem);
 		}
-		// priority: key equals text > text is the prefix of key > key contains text
-		List<String> equals = new ArrayList<>();
-		List<String> prefixes = new ArrayList<>();
-		List<String> contains = new ArrayList<>();
-		keys.forEach(id -> {
-			if (id.equals(text)) {
-				equals.add(id);
-			} else if (id.startsWith(text)) {
-				prefixes.add(id);
-			} else if (id.contains(text)) {
-				contains.add(id);
-			}
-		});
-		return Stream.of(equals, prefixes, contains).flatMap(Collection::stream).collect(Collectors.toList());
+		return items;
 	}
 }
@@ -12,6 +12,7 @@ import com.microsoft.gradle.resolver.GradleField;
 import com.microsoft.gradle.resolver.GradleMethod;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import org.eclipse.lsp4j.CompletionItem;
@@ -77,8 +78,36 @@ public class GradleCompletionTest {
 		services.didOpen(new DidOpenTextDocumentParams(textDocumentItem));
 		CompletionParams params = new CompletionParams(new TextDocumentIdentifier(uri), new Position(19, 37));
 		CompletableFuture<Either<List<CompletionItem>, CompletionList>> result = services.completion(params);
+		Assertions.assertTrue(completionItemExists(result.get().getRight().getItems(), "org.springframework.boot",
+				CompletionItemKind.Module));
+		Assertions.assertTrue(result.get().getRight().isIncomplete());
+	}
+
+	@Test
+	public void testDependencyCompletionsOutOfBudget() throws Exception {
+		Path filePath = GradleTestConstants.testPath.resolve("app").resolve("build.gradle").normalize();
+		String content = Files.asCharSource(filePath.toFile(), Charsets.UTF_8).read();
+		String uri = filePath.toUri().toString();
+		TextDocumentItem textDocumentItem = new TextDocumentItem(uri, GradleTestConstants.LANGUAGE_GRADLE, 1, content);
+		services.didOpen(new DidOpenTextDocumentParams(textDocumentItem));
+		services.applySetting(Collections.singletonMap("completionBudget", 0));
+		// the bundled index still answers, the other sources are left to the next request
+		CompletionList result = services
+				.completion(new CompletionParams(new TextDocumentIdentifier(uri), new Position(19, 37))).get()
+				.getRight();
 		Assertions.assertTrue(
-				completionItemExists(result.get().getLeft(), "org.springframework.boot", CompletionItemKind.Module));
+				completionItemExists(result.getItems(), "org.springframework.boot", CompletionItemKind.Module));
+		Assertions.assertTrue(result.isIncomplete());
+		// the block completions answer from the ext closures without waiting for the
+		// Gradle classes
+		String projectPath = GradleTestConstants.testPath.resolve("app").normalize().toString();
+		setClosures(projectPath, new GradleMethod("withJavadocJar", new String[]{}, false));
+		CompletionList blockResult = services
+				.completion(new CompletionParams(new TextDocumentIdentifier(uri), new Position(8, 6))).get()
+				.getRight();
+		Assertions.assertTrue(
+				completionItemExists(blockResult.getItems(), "withJavadocJar()", CompletionItemKind.Function));
+		Assertions.assertTrue(blockResult.isIncomplete());
 	}
 
 	@Test
@@ -92,13 +121,13 @@ public class GradleCompletionTest {
 				new Position(19, 43));
 		CompletableFuture<Either<List<CompletionItem>, CompletionList>> springBootArtifactResults = services
 				.completion(springBootArtifactParams);
-		Assertions.assertTrue(completionItemExists(springBootArtifactResults.get().getLeft(), "spring-boot-devtools",
-				CompletionItemKind.Module));
+		Assertions.assertTrue(completionItemExists(springBootArtifactResults.get().getRight().getItems(),
+				"spring-boot-devtools", CompletionItemKind.Module));
 		CompletionParams orgGroupParams = new CompletionParams(new TextDocumentIdentifier(uri), new Position(19, 22));
 		CompletableFuture<Either<List<CompletionItem>, CompletionList>> orgGroupResults = services
 				.completion(orgGroupParams);
-		Assertions.assertTrue(
-				completionItemExists(orgGroupResults.get().getLeft(), "org.slf4j", CompletionItemKind.Module));
+		Assertions.assertTrue(completionItemExists(orgGroupResults.get().getRight().getItems(), "org.slf4j",
+				CompletionItemKind.Module));
 	}
 
 	@Test
@@ -140,6 +169,38 @@ public class GradleCompletionTest {
 				completionItemExists(resultInClosureList, "targetCompatibility", CompletionItemKind.Property));
 	}
 
+	@Test
+	public void testChangedClosureCompletions() throws Exception {
+		Path filePath = GradleTestConstants.testPath.resolve("app").resolve("build.gradle").normalize();
+		String content = Files.asCharSource(filePath.toFile(), Charsets.UTF_8).read();
+		String uri = filePath.toUri().toString();
+		TextDocumentItem textDocumentItem = new TextDocumentItem(uri, GradleTestConstants.LANGUAGE_GRADLE, 1, content);
+		services.didOpen(new DidOpenTextDocumentParams(textDocumentItem));
+		String projectPath = GradleTestConstants.testPath.resolve("app").normalize().toString();
+		setClosures(projectPath, new GradleMethod("withJavadocJar", new String[]{}, false));
+		List<CompletionItem> firstResult = services
+				.completion(new CompletionParams(new TextDocumentIdentifier(uri), new Position(8, 6))).get().getLeft();
+		Assertions.assertTrue(completionItemExists(firstResult, "withJavadocJar()", CompletionItemKind.Function));
+		// the cached completion items are rebuilt when the closures change
+		setClosures(projectPath, new GradleMethod("withSourcesJar", new String[]{}, false));
+		List<CompletionItem> secondResult = services
+				.completion(new CompletionParams(new TextDocumentIdentifier(uri), new Position(8, 6))).get().getLeft();
+		Assertions.assertTrue(completionItemExists(secondResult, "withSourcesJar()", CompletionItemKind.Function));
+		Assertions.assertFalse(completionItemExists(secondResult, "withJavadocJar()", CompletionItemKind.Function));
+	}
+
+	private void setClosures(String projectPath, GradleMethod method) {
+		ExecuteCommandParams params = new ExecuteCommandParams();
+		params.setCommand("gradle.setClosures");
+		Gson gson = new GsonBuilder().create();
+		GradleClosure[] closures = {new GradleClosure("java", new GradleMethod[]{method}, new GradleField[]{})};
+		List<Object> arguments = new ArrayList<>();
+		arguments.add(gson.toJsonTree(projectPath, String.class));
+		arguments.add(gson.toJsonTree(closures, GradleClosure[].class));
+		params.setArguments(arguments);
+		services.executeCommand(params);
+	}
+
 	private static boolean completionItemExists(List<CompletionItem> items, String label, CompletionItemKind kind) {
 		if (items == null || items.isEmpty()) {
 			return false;
@@ -0,0 +1,213 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import org.eclipse.lsp4j.CompletionList;
+import org.eclipse.lsp4j.CompletionParams;
+import org.eclipse.lsp4j.DidChangeTextDocumentParams;
+import org.eclipse.lsp4j.DidOpenTextDocumentParams;
+import org.eclipse.lsp4j.DocumentSymbol;
+import org.eclipse.lsp4j.DocumentSymbolParams;
+import org.eclipse.lsp4j.MessageActionItem;
+import org.eclipse.lsp4j.MessageParams;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.PublishDiagnosticsParams;
+import org.eclipse.lsp4j.SemanticTokens;
+import org.eclipse.lsp4j.SemanticTokensParams;
+import org.eclipse.lsp4j.ShowMessageRequestParams;
+import org.eclipse.lsp4j.SymbolInformation;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+import org.eclipse.lsp4j.TextDocumentIdentifier;
+import org.eclipse.lsp4j.TextDocumentItem;
+import org.eclipse.lsp4j.VersionedTextDocumentIdentifier;
+import org.eclipse.lsp4j.jsonrpc.messages.Either;
+import org.eclipse.lsp4j.services.LanguageClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class GradleConcurrencyTest {
+
+	private static int THREADS = 8;
+	private static int ITERATIONS = 50;
+
+	private GradleServices services;
+	private ExecutorService executor;
+
+	@BeforeEach
+	void setup() {
+		executor = Executors.newFixedThreadPool(THREADS);
+		services = new GradleServices();
+		services.connect(new LanguageClient() {
+			@Override
+			public void telemetryEvent(Object object) {
+
+			}
+
+			@Override
+			public CompletableFuture<MessageActionItem> showMessageRequest(ShowMessageRequestParams requestParams) {
+				return null;
+			}
+
+			@Override
+			public void showMessage(MessageParams messageParams) {
+
+			}
+
+			@Override
+			public void publishDiagnostics(PublishDiagnosticsParams diagnostics) {
+
+			}
+
+			@Override
+			public void logMessage(MessageParams message) {
+
+			}
+		});
+	}
+
+	@AfterEach
+	void cleanup() throws Exception {
+		executor.shutdownNow();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void testConcurrentDocuments() throws Exception {
+		String buildUri = openDocument(GradleTestConstants.testPath.resolve("app").resolve("build.gradle"));
+		String settingsUri = openDocument(GradleTestConstants.testPath.resolve("settings.gradle"));
+		List<String> buildSymbols = getSymbolNames(buildUri);
+		List<String> settingsSymbols = getSymbolNames(settingsUri);
+		Assertions.assertEquals(7, buildSymbols.size());
+		Assertions.assertEquals(2, settingsSymbols.size());
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			futures.add(executor.submit(() -> {
+				for (int j = 0; j < ITERATIONS; j++) {
+					// the symbols of a document never contain those of the other one
+					Assertions.assertEquals(buildSymbols, getSymbolNames(buildUri));
+					Assertions.assertEquals(settingsSymbols, getSymbolNames(settingsUri));
+					Assertions.assertFalse(getSemanticTokens(buildUri).getData().isEmpty());
+				}
+				return null;
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get(60, TimeUnit.SECONDS);
+		}
+	}
+
+	@Test
+	public void testRequestsDuringChanges() throws Exception {
+		Path filePath = GradleTestConstants.testPath.resolve("app").resolve("build.gradle");
+		String uri = openDocument(filePath);
+		String content = Files.asCharSource(filePath.normalize().toFile(), Charsets.UTF_8).read();
+		String changedContent = content + "\ntask hello {\n}\n";
+		AtomicBoolean changing = new AtomicBoolean(true);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			futures.add(executor.submit(() -> {
+				while (changing.get()) {
+					// every request sees one complete version of the document
+					int size = getSymbolNames(uri).size();
+					Assertions.assertTrue(size == 7 || size == 8);
+					getSemanticTokens(uri);
+					services.completion(new CompletionParams(new TextDocumentIdentifier(uri), new Position(8, 6)))
+							.get();
+				}
+				return null;
+			}));
+		}
+		try {
+			for (int version = 2; version < ITERATIONS * 2; version++) {
+				TextDocumentContentChangeEvent change = new TextDocumentContentChangeEvent(
+						version % 2 == 0 ? changedContent : content);
+				services.didChange(new DidChangeTextDocumentParams(new VersionedTextDocumentIdentifier(uri, version),
+						Arrays.asList(change)));
+			}
+		} finally {
+			changing.set(false);
+		}
+		for (Future<?> future : futures) {
+			future.get(60, TimeUnit.SECONDS);
+		}
+		Assertions.assertEquals(7, getSymbolNames(uri).size());
+	}
+
+	@Test
+	public void testCompletionAndTokensDuringChanges() throws Exception {
+		Path filePath = GradleTestConstants.testPath.resolve("app").resolve("build.gradle");
+		String uri = openDocument(filePath);
+		String settingsUri = openDocument(GradleTestConstants.testPath.resolve("settings.gradle"));
+		String content = Files.asCharSource(filePath.normalize().toFile(), Charsets.UTF_8).read();
+		String changedContent = content + "\ntask hello {\n}\n";
+		// the two documents evict each other from the cache
+		services.applySetting(Collections.singletonMap("documentCacheSize", 0));
+		AtomicBoolean changing = new AtomicBoolean(true);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			futures.add(executor.submit(() -> {
+				while (changing.get()) {
+					// a request answers from the version it visited, which a concurrent
+					// visit or eviction of the document does not drop
+					Assertions.assertFalse(getSemanticTokens(uri).getData().isEmpty());
+					CompletionList result = services
+							.completion(new CompletionParams(new TextDocumentIdentifier(uri), new Position(19, 37)))
+							.get().getRight();
+					Assertions.assertTrue(result.getItems().stream()
+							.anyMatch(item -> item.getLabel().equals("org.springframework.boot")));
+					getSemanticTokens(settingsUri);
+				}
+				return null;
+			}));
+		}
+		try {
+			for (int version = 2; version < ITERATIONS * 2; version++) {
+				TextDocumentContentChangeEvent change = new TextDocumentContentChangeEvent(
+						version % 2 == 0 ? changedContent : content);
+				services.didChange(new DidChangeTextDocumentParams(new VersionedTextDocumentIdentifier(uri, version),
+						Arrays.asList(change)));
+			}
+		} finally {
+			changing.set(false);
+		}
+		for (Future<?> future : futures) {
+			future.get(60, TimeUnit.SECONDS);
+		}
+	}
+
+	private String openDocument(Path path) throws Exception {
+		Path filePath = path.normalize();
+		String content = Files.asCharSource(filePath.toFile(), Charsets.UTF_8).read();
+		String uri = filePath.toUri().toString();
+		TextDocumentItem textDocumentItem = new TextDocumentItem(uri, GradleTestConstants.LANGUAGE_GRADLE, 1, content);
+		services.didOpen(new DidOpenTextDocumentParams(textDocumentItem));
+		return uri;
+	}
+
+	private List<String> getSymbolNames(String uri) throws Exception {
+		List<Either<SymbolInformation, DocumentSymbol>> symbols = services
+				.documentSymbol(new DocumentSymbolParams(new TextDocumentIdentifier(uri))).get();
+		return symbols.stream().map(symbol -> symbol.getRight().getName()).collect(Collectors.toList());
+	}
+
+	private SemanticTokens getSemanticTokens(String uri) throws Exception {
+		return services.semanticTokensFull(new SemanticTokensParams(new TextDocumentIdentifier(uri))).get();
+	}
+}
@@ -10,17 +10,22 @@ import com.google.gson.GsonBuilder;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import org.eclipse.lsp4j.Diagnostic;
 import org.eclipse.lsp4j.DiagnosticSeverity;
+import org.eclipse.lsp4j.DidChangeTextDocumentParams;
 import org.eclipse.lsp4j.DidOpenTextDocumentParams;
 import org.eclipse.lsp4j.ExecuteCommandParams;
 import org.eclipse.lsp4j.MessageActionItem;
 import org.eclipse.lsp4j.MessageParams;
 import org.eclipse.lsp4j.PublishDiagnosticsParams;
 import org.eclipse.lsp4j.ShowMessageRequestParams;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
 import org.eclipse.lsp4j.TextDocumentItem;
+import org.eclipse.lsp4j.VersionedTextDocumentIdentifier;
 import org.eclipse.lsp4j.services.LanguageClient;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -30,7 +35,7 @@ public class GradleDiagnosticsTest {
 
 	private static String TEST_PROJECT_PATH = "./test-resources/diagnostics";
 	private static String CLASSPATH_TEST_PROJECT_PATH = "./test-resources/diagnostics-classpath";
-	private final List<PublishDiagnosticsParams> diagnosticsStorage = new ArrayList<>();
+	private final List<PublishDiagnosticsParams> diagnosticsStorage = Collections.synchronizedList(new ArrayList<>());
 	private GradleServices services;
 	private Path testPath;
 	private Path classpathTestPath;
@@ -144,4 +149,46 @@ public class GradleDiagnosticsTest {
 		}
 		Assertions.fail("Can't get corresponding diagnostics for the test file.");
 	}
+
+	@Test
+	public void testPublishDiagnosticsOnChange() throws Exception {
+		Path filePath = classpathTestPath.resolve("build.gradle").normalize();
+		String content = Files.asCharSource(filePath.toFile(), Charsets.UTF_8).read();
+		String uri = filePath.toUri().toString();
+		TextDocumentItem textDocumentItem = new TextDocumentItem(uri, GradleTestConstants.LANGUAGE_GRADLE, 1,
+				"plugins {\n  id \"java\"\n}\n");
+		services.didOpen(new DidOpenTextDocumentParams(textDocumentItem));
+		Assertions.assertEquals(0, getLastDiagnostics(uri).size());
+		// syntax errors are reported by the parse of the change
+		changeDocument(uri, 2, "plugins {\n  id \"java\"\n");
+		List<Diagnostic> diagnostics = getLastDiagnostics(uri);
+		Assertions.assertEquals(1, diagnostics.size());
+		Assertions.assertTrue(diagnostics.get(0).getMessage().startsWith("expecting '}'"));
+		// semantic errors are reported once the analysis ran
+		changeDocument(uri, 3, content);
+		long deadline = System.currentTimeMillis() + 10000;
+		while (getLastDiagnostics(uri).isEmpty() || !getLastDiagnostics(uri).get(0).getMessage()
+				.startsWith("unable to resolve class org.microsoft.gradle.test.ClasspathType")) {
+			Assertions.assertTrue(System.currentTimeMillis() < deadline, "The semantic errors are not reported.");
+			Thread.sleep(50);
+		}
+	}
+
+	private void changeDocument(String uri, int version, String content) {
+		services.didChange(new DidChangeTextDocumentParams(new VersionedTextDocumentIdentifier(uri, version),
+				Arrays.asList(new TextDocumentContentChangeEvent(content))));
+	}
+
+	private List<Diagnostic> getLastDiagnostics(String uri) {
+		synchronized (this.diagnosticsStorage) {
+			for (int i = this.diagnosticsStorage.size() - 1; i >= 0; i--) {
+				PublishDiagnosticsParams param = this.diagnosticsStorage.get(i);
+				if (param.getUri().equals(uri)) {
+					return param.getDiagnostics();
+				}
+			}
+		}
+		Assertions.fail("Can't get corresponding diagnostics for the test file.");
+		return null;
+	}
 }
@@ -9,18 +9,29 @@ import com.microsoft.gradle.semantictokens.SemanticToken;
 import com.microsoft.gradle.semantictokens.TokenType;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import org.eclipse.lsp4j.DidChangeTextDocumentParams;
 import org.eclipse.lsp4j.DidOpenTextDocumentParams;
 import org.eclipse.lsp4j.MessageActionItem;
 import org.eclipse.lsp4j.MessageParams;
+import org.eclipse.lsp4j.Position;
 import org.eclipse.lsp4j.PublishDiagnosticsParams;
+import org.eclipse.lsp4j.Range;
 import org.eclipse.lsp4j.SemanticTokens;
+import org.eclipse.lsp4j.SemanticTokensDelta;
+import org.eclipse.lsp4j.SemanticTokensDeltaParams;
+import org.eclipse.lsp4j.SemanticTokensEdit;
 import org.eclipse.lsp4j.SemanticTokensParams;
+import org.eclipse.lsp4j.SemanticTokensRangeParams;
 import org.eclipse.lsp4j.ShowMessageRequestParams;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
 import org.eclipse.lsp4j.TextDocumentIdentifier;
 import org.eclipse.lsp4j.TextDocumentItem;
+import org.eclipse.lsp4j.VersionedTextDocumentIdentifier;
+import org.eclipse.lsp4j.jsonrpc.messages.Either;
 import org.eclipse.lsp4j.services.LanguageClient;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -86,6 +97,66 @@ public class GradleSemanticsTest {
 		Assertions.assertEquals(0, decodeTokens.get(10).getTokenModifiers());
 	}
 
+	@Test
+	public void testSemanticTokensFullDelta() throws Exception {
+		Path filePath = GradleTestConstants.testPath.resolve("app").resolve("build.gradle").normalize();
+		String content = Files.asCharSource(filePath.toFile(), Charsets.UTF_8).read();
+		String uri = filePath.toUri().toString();
+		TextDocumentItem textDocumentItem = new TextDocumentItem(uri, GradleTestConstants.LANGUAGE_GRADLE, 1, content);
+		services.didOpen(new DidOpenTextDocumentParams(textDocumentItem));
+		SemanticTokens previous = services.semanticTokensFull(new SemanticTokensParams(new TextDocumentIdentifier(uri)))
+				.get();
+		Assertions.assertNotNull(previous.getResultId());
+		TextDocumentContentChangeEvent change = new TextDocumentContentChangeEvent(
+				new Range(new Position(5, 0), new Position(5, 0)), "description = 'demo'\n");
+		services.didChange(new DidChangeTextDocumentParams(new VersionedTextDocumentIdentifier(uri, 2),
+				Arrays.asList(change)));
+		Either<SemanticTokens, SemanticTokensDelta> result = services
+				.semanticTokensFullDelta(
+						new SemanticTokensDeltaParams(new TextDocumentIdentifier(uri), previous.getResultId()))
+				.get();
+		Assertions.assertTrue(result.isRight());
+		SemanticTokensDelta delta = result.getRight();
+		Assertions.assertNotEquals(previous.getResultId(), delta.getResultId());
+		Assertions.assertEquals(1, delta.getEdits().size());
+		List<Integer> patched = new ArrayList<>(previous.getData());
+		for (SemanticTokensEdit edit : delta.getEdits()) {
+			patched.subList(edit.getStart(), edit.getStart() + edit.getDeleteCount()).clear();
+			patched.addAll(edit.getStart(), edit.getData());
+		}
+		SemanticTokens current = services.semanticTokensFull(new SemanticTokensParams(new TextDocumentIdentifier(uri)))
+				.get();
+		Assertions.assertEquals(new ArrayList<>(current.getData()), patched);
+		// unknown result id falls back to full tokens
+		Either<SemanticTokens, SemanticTokensDelta> fallback = services
+				.semanticTokensFullDelta(new SemanticTokensDeltaParams(new TextDocumentIdentifier(uri), "unknown"))
+				.get();
+		Assertions.assertTrue(fallback.isLeft());
+		Assertions.assertEquals(new ArrayList<>(current.getData()), new ArrayList<>(fallback.getLeft().getData()));
+	}
+
+	@Test
+	public void testSemanticTokensRange() throws Exception {
+		Path filePath = GradleTestConstants.testPath.resolve("app").resolve("build.gradle").normalize();
+		String content = Files.asCharSource(filePath.toFile(), Charsets.UTF_8).read();
+		String uri = filePath.toUri().toString();
+		TextDocumentItem textDocumentItem = new TextDocumentItem(uri, GradleTestConstants.LANGUAGE_GRADLE, 1, content);
+		services.didOpen(new DidOpenTextDocumentParams(textDocumentItem));
+		SemanticTokensRangeParams params = new SemanticTokensRangeParams(new TextDocumentIdentifier(uri),
+				new Range(new Position(0, 0), new Position(4, 0)));
+		List<Integer> encodedData = services.semanticTokensRange(params).get().getData();
+		List<SemanticToken> decodeTokens = decodeTokens(encodedData);
+		Assertions.assertFalse(decodeTokens.isEmpty());
+		for (SemanticToken token : decodeTokens) {
+			// decoded lines start from 1
+			Assertions.assertTrue(token.getLine() <= 4);
+		}
+		List<Integer> fullData = services.semanticTokensFull(new SemanticTokensParams(new TextDocumentIdentifier(uri)))
+				.get().getData();
+		Assertions.assertEquals(new ArrayList<>(fullData.subList(0, encodedData.size())),
+				new ArrayList<>(encodedData));
+	}
+
 	private static List<SemanticToken> decodeTokens(List<Integer> encodedData) {
 		if (encodedData.size() % 5 != 0) {
 			// invalid data list
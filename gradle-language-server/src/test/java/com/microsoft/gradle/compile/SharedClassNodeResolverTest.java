@@ -0,0 +1,81 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.compile;
+
+import groovy.lang.GroovyClassLoader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.groovy.control.customizers.ImportCustomizer;
+import org.codehaus.groovy.control.io.StringReaderSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SharedClassNodeResolverTest {
+
+	@Test
+	public void testClasspathFingerprint() throws IOException {
+		Path jar = Files.createTempFile("classpath", ".jar");
+		try {
+			CompilerConfiguration config = new CompilerConfiguration();
+			config.setClasspathList(Arrays.asList(jar.toString()));
+			CompilerConfiguration sameClasspath = new CompilerConfiguration();
+			sameClasspath.setClasspathList(Arrays.asList(jar.toString()));
+			SharedClassNodeResolver resolver = SharedClassNodeResolver.get(config);
+			Assertions.assertSame(resolver, SharedClassNodeResolver.get(sameClasspath));
+			Assertions.assertNotSame(resolver, SharedClassNodeResolver.get(new CompilerConfiguration()));
+			// a rebuilt entry may contain other classes
+			Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() - 10000));
+			Assertions.assertNotSame(resolver, SharedClassNodeResolver.get(config));
+		} finally {
+			Files.deleteIfExists(jar);
+		}
+	}
+
+	@Test
+	public void testSharedLookups() {
+		CompilerConfiguration config = new CompilerConfiguration();
+		ImportCustomizer customizer = new ImportCustomizer();
+		customizer.addStarImports("org.gradle.api");
+		config.addCompilationCustomizers(customizer);
+		String content = "File file = null\nMissingType missing = null\n";
+		GradleCompilationUnit first = compile(config, content);
+		SharedClassNodeResolver resolver = SharedClassNodeResolver.get(config);
+		Assertions.assertSame(resolver, first.getClassNodeResolver());
+		// the names not found are cached as well
+		Assertions.assertNotNull(resolver.getFromClassCache("org.gradle.api.MissingType"));
+		GradleCompilationUnit second = compile(config, content);
+		Assertions.assertSame(resolver, second.getClassNodeResolver());
+		Assertions.assertEquals(first.getErrorCollector().getErrorCount(), second.getErrorCollector().getErrorCount());
+		// the parsing phases keep the resolver of the unit
+		GradleCompilationUnit parsed = createCompilationUnit(config, content);
+		parsed.compile(Phases.CONVERSION);
+		Assertions.assertNotSame(resolver, parsed.getClassNodeResolver());
+	}
+
+	private static GradleCompilationUnit compile(CompilerConfiguration config, String content) {
+		GradleCompilationUnit unit = createCompilationUnit(config, content);
+		try {
+			unit.compile(Phases.CANONICALIZATION);
+		} catch (CompilationFailedException e) {
+			// MissingType does not resolve
+		}
+		return unit;
+	}
+
+	private static GradleCompilationUnit createCompilationUnit(CompilerConfiguration config, String content) {
+		GroovyClassLoader classLoader = new GroovyClassLoader(ClassLoader.getSystemClassLoader().getParent(), config,
+				true);
+		GradleCompilationUnit unit = new GradleCompilationUnit(config, null, classLoader, 1);
+		unit.addSource(new SourceUnit("build.gradle", new StringReaderSource(content, config), config, classLoader,
+				unit.getErrorCollector()));
+		return unit;
+	}
+}
@@ -0,0 +1,71 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.index;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ArtifactUsageIndexTest {
+
+	private static Map<String, Integer> createUsages() {
+		Map<String, Integer> usages = new LinkedHashMap<>();
+		usages.put("org.slf4j:slf4j-api", 50);
+		usages.put("org.slf4j:slf4j-simple", 10);
+		usages.put("junit:junit", 40);
+		usages.put("org.junit.jupiter:junit-jupiter", 30);
+		usages.put("org.junit.jupiter:junit-jupiter-api", 35);
+		usages.put("com.google.guava:guava", 45);
+		usages.put("invalid", 100);
+		return usages;
+	}
+
+	@Test
+	public void testSearch() throws IOException {
+		ArtifactUsageIndex index = ArtifactUsageIndex.open(ByteBuffer.wrap(toBytes(createUsages())));
+		Assertions.assertEquals(4, index.size());
+		// the usage of a group is the sum of its artifacts
+		Assertions.assertEquals(65, index.getGroupUsage("org.junit.jupiter"));
+		Assertions.assertEquals(-1, index.getGroupUsage("invalid"));
+		Assertions.assertEquals(Arrays.asList("org.junit.jupiter", "org.slf4j", "com.google.guava", "junit"),
+				index.searchGroupIds("", 10));
+		// the exact match, then the prefix matches, then the other matches
+		Assertions.assertEquals(Arrays.asList("junit", "org.junit.jupiter"), index.searchGroupIds("junit", 10));
+		Assertions.assertEquals(Arrays.asList("org.junit.jupiter", "org.slf4j"), index.searchGroupIds("org", 10));
+		Assertions.assertEquals(Arrays.asList("org.junit.jupiter"), index.searchGroupIds("org", 1));
+		Assertions.assertEquals(Arrays.asList("junit-jupiter-api", "junit-jupiter"),
+				index.searchArtifactIds("org.junit.jupiter", "", 10));
+		Assertions.assertEquals(Arrays.asList("junit-jupiter", "junit-jupiter-api"),
+				index.searchArtifactIds("org.junit.jupiter", "junit-jupiter", 10));
+		Assertions.assertEquals(Arrays.asList("slf4j-simple"), index.searchArtifactIds("org.slf4j", "simple", 10));
+		Assertions.assertEquals(Collections.emptyList(), index.searchArtifactIds("org.unknown", "", 10));
+	}
+
+	@Test
+	public void testMappedFile() throws IOException {
+		Path file = Files.createTempFile("artifact-usage", ".index");
+		try {
+			Files.write(file, toBytes(createUsages()));
+			ArtifactUsageIndex index = ArtifactUsageIndex.open(file.toUri().toURL());
+			Assertions.assertEquals(Arrays.asList("guava"), index.searchArtifactIds("com.google.guava", "gu", 10));
+		} finally {
+			// a mapped file cannot be deleted on every platform
+			file.toFile().delete();
+		}
+	}
+
+	private static byte[] toBytes(Map<String, Integer> usages) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ArtifactUsageIndex.write(usages, output);
+		return output.toByteArray();
+	}
+}
@@ -0,0 +1,58 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.index;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CoordinateIndexTest {
+
+	@Test
+	public void testSearchPriority() {
+		CoordinateIndex index = new CoordinateIndex.Builder().add("ab", 1).add("abc", 5).add("abd", 10)
+				.add("xabc", 100).add("zab", 1).build();
+		// equals > prefix > contains, ranked by weight inside each group
+		Assertions.assertEquals(Arrays.asList("ab", "abd", "abc", "xabc", "zab"), index.search("ab", 10));
+		Assertions.assertEquals(Arrays.asList("ab", "abd"), index.search("ab", 2));
+		Assertions.assertEquals(Arrays.asList("xabc", "abd", "abc", "ab", "zab"), index.search("", 10));
+		Assertions.assertTrue(index.search("none", 10).isEmpty());
+	}
+
+	@Test
+	public void testSummedWeights() {
+		DependencyIndex index = new DependencyIndex.Builder().add("org.a", "one", 10).add("org.b", "two", 15)
+				.add("org.a", "three", 12).build();
+		Assertions.assertEquals(Arrays.asList("org.a", "org.b"), index.searchGroupIds("org", 10));
+		Assertions.assertEquals(Arrays.asList("three", "one"), index.searchArtifactIds("org.a", "", 10));
+		Assertions.assertTrue(index.searchArtifactIds("org.c", "", 10).isEmpty());
+	}
+
+	@Test
+	public void testLargeIndexSubstringSearch() {
+		CoordinateIndex.Builder builder = new CoordinateIndex.Builder();
+		for (int i = 0; i < 10000; i++) {
+			builder.add("org.group" + i + ".api", i);
+		}
+		CoordinateIndex index = builder.build();
+		List<String> results = index.search("p99", 3);
+		Assertions.assertEquals(Arrays.asList("org.group9999.api", "org.group9998.api", "org.group9997.api"),
+				results);
+		List<String> contains = index.search("up12.", 10);
+		Assertions.assertEquals(Arrays.asList("org.group12.api"), contains);
+		Assertions.assertEquals(Arrays.asList("org.group5000.api"), index.search("org.group5000.api", 1));
+	}
+
+	@Test
+	public void testVersionOrder() {
+		DependencyIndex index = new DependencyIndex.Builder().addVersion("org.a", "one", "1.9")
+				.addVersion("org.a", "one", "1.10").addVersion("org.a", "one", "2.0-rc1")
+				.addVersion("org.a", "one", "2.0").addVersion("org.a", "one", "1.10.1").build();
+		Assertions.assertEquals(Arrays.asList("2.0", "2.0-rc1", "1.10.1", "1.10", "1.9"),
+				index.searchVersions("org.a", "one", "", 10));
+		Assertions.assertEquals(Arrays.asList("1.10.1", "1.10"), index.searchVersions("org.a", "one", "1.1", 10));
+		Assertions.assertTrue(index.searchVersions("org.a", "two", "", 10).isEmpty());
+	}
+}
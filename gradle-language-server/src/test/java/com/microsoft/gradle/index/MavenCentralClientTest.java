@@ -0,0 +1,99 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.index;
+
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class MavenCentralClientTest {
+
+	private static String RESPONSE = "{\"response\":{\"docs\":[{\"g\":\"junit\",\"a\":\"junit\"}]}}";
+
+	private HttpServer server;
+	private AtomicInteger requests;
+	private CountDownLatch release;
+	private String url;
+
+	@BeforeEach
+	void setup() throws IOException {
+		requests = new AtomicInteger();
+		release = new CountDownLatch(0);
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/select", exchange -> {
+			requests.incrementAndGet();
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			byte[] body = RESPONSE.getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream output = exchange.getResponseBody()) {
+				output.write(body);
+			}
+		});
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+		url = "http://127.0.0.1:" + server.getAddress().getPort() + "/select";
+	}
+
+	@AfterEach
+	void cleanup() {
+		release.countDown();
+		server.stop(0);
+	}
+
+	@Test
+	public void testCachedSearch() throws Exception {
+		MavenCentralClient client = new MavenCentralClient(url, Duration.ofSeconds(5));
+		Assertions.assertNull(client.getCached("q=junit"));
+		List<JsonObject> docs = client.search("q=junit").get(5, TimeUnit.SECONDS);
+		Assertions.assertEquals(1, docs.size());
+		Assertions.assertEquals("junit", docs.get(0).get("g").getAsString());
+		Assertions.assertSame(docs, client.search("q=junit").get());
+		Assertions.assertEquals(1, requests.get());
+	}
+
+	@Test
+	public void testCoalescedSearch() throws Exception {
+		release = new CountDownLatch(1);
+		MavenCentralClient client = new MavenCentralClient(url, Duration.ofSeconds(5));
+		CompletableFuture<List<JsonObject>> first = client.search("q=junit");
+		CompletableFuture<List<JsonObject>> second = client.search("q=junit");
+		// cancelling one caller keeps the shared request alive
+		first.cancel(true);
+		release.countDown();
+		Assertions.assertEquals(1, second.get(5, TimeUnit.SECONDS).size());
+		Assertions.assertEquals(1, requests.get());
+	}
+
+	@Test
+	public void testTimeout() throws Exception {
+		release = new CountDownLatch(1);
+		MavenCentralClient client = new MavenCentralClient(url, Duration.ofMillis(200));
+		long start = System.currentTimeMillis();
+		Assertions.assertTrue(client.search("q=junit").get(5, TimeUnit.SECONDS).isEmpty());
+		Assertions.assertTrue(System.currentTimeMillis() - start < 3000);
+		// failures are not cached, the following searches back off without requests
+		Assertions.assertNull(client.getCached("q=junit"));
+		Assertions.assertTrue(client.search("q=spring").get(5, TimeUnit.SECONDS).isEmpty());
+		Assertions.assertEquals(1, requests.get());
+	}
+}
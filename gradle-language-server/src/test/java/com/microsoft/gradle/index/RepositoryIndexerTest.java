@@ -0,0 +1,104 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.index;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class RepositoryIndexerTest {
+
+	private Path tempDirectory;
+	private Path repository;
+
+	@BeforeEach
+	void setup() throws IOException {
+		tempDirectory = Files.createTempDirectory("repository-indexer");
+		repository = tempDirectory.resolve("repository");
+		addPom("org/slf4j/slf4j-api/1.7.30");
+		addPom("org/slf4j/slf4j-simple/1.7.30");
+		addPom("junit/junit/4.13");
+	}
+
+	@AfterEach
+	void cleanup() throws IOException {
+		try (Stream<Path> paths = Files.walk(tempDirectory)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@Test
+	public void testIncrementalRescan() throws Exception {
+		RepositoryIndexer indexer = new RepositoryIndexer(repository, RepositoryIndexer.Layout.MAVEN);
+		indexer.refresh().get();
+		DependencyIndex index = indexer.getIndex();
+		Assertions.assertEquals(Arrays.asList("org.slf4j"), index.searchGroupIds("org", 10));
+		Assertions.assertEquals(Arrays.asList("slf4j-api", "slf4j-simple"),
+				index.searchArtifactIds("org.slf4j", "", 10));
+		// unchanged repository keeps the same snapshot
+		indexer.refresh().get();
+		Assertions.assertSame(index, indexer.getIndex());
+		addPom("org/slf4j/slf4j-nop/1.7.30");
+		addPom("org/mockito/mockito-core/3.6.0");
+		indexer.refresh().get();
+		index = indexer.getIndex();
+		Assertions.assertEquals(Arrays.asList("org.mockito", "org.slf4j"), index.searchGroupIds("org", 10));
+		Assertions.assertEquals(Arrays.asList("slf4j-api", "slf4j-nop", "slf4j-simple"),
+				index.searchArtifactIds("org.slf4j", "", 10));
+	}
+
+	@Test
+	public void testPersistedIndex() throws Exception {
+		Path storageFile = tempDirectory.resolve("storage").resolve("maven-local.index");
+		RepositoryIndexer indexer = new RepositoryIndexer(repository, RepositoryIndexer.Layout.MAVEN);
+		indexer.setStorageFile(storageFile);
+		indexer.refresh().get();
+		Assertions.assertTrue(Files.isRegularFile(storageFile));
+		RepositoryIndexer restarted = new RepositoryIndexer(repository, RepositoryIndexer.Layout.MAVEN);
+		restarted.setStorageFile(storageFile);
+		restarted.refresh().get();
+		Assertions.assertEquals(Arrays.asList("junit"), restarted.getIndex().searchGroupIds("jun", 10));
+		Assertions.assertEquals(Arrays.asList("slf4j-api", "slf4j-simple"),
+				restarted.getIndex().searchArtifactIds("org.slf4j", "", 10));
+	}
+
+	@Test
+	public void testGradleModuleCache() throws Exception {
+		Path cache = tempDirectory.resolve("files-2.1");
+		Path storageFile = tempDirectory.resolve("storage").resolve("gradle-modules.index");
+		Files.createDirectories(cache.resolve("com.google.guava/guava/30.0-jre/1a2b3c"));
+		Files.createDirectories(cache.resolve("com.google.guava/guava/31.1-jre/4d5e6f"));
+		Files.createDirectories(cache.resolve("com.google.guava/failureaccess/1.0.1/7a8b9c"));
+		RepositoryIndexer indexer = new RepositoryIndexer(cache, RepositoryIndexer.Layout.GRADLE_CACHE);
+		indexer.setStorageFile(storageFile);
+		indexer.refresh().get();
+		DependencyIndex index = indexer.getIndex();
+		Assertions.assertEquals(Arrays.asList("com.google.guava"), index.searchGroupIds("guava", 10));
+		Assertions.assertEquals(Arrays.asList("failureaccess", "guava"),
+				index.searchArtifactIds("com.google.guava", "", 10));
+		Assertions.assertEquals(Arrays.asList("31.1-jre", "30.0-jre"),
+				index.searchVersions("com.google.guava", "guava", "", 10));
+		Files.createDirectories(cache.resolve("com.google.guava/guava/32.0.0-jre/a1b2c3"));
+		RepositoryIndexer restarted = new RepositoryIndexer(cache, RepositoryIndexer.Layout.GRADLE_CACHE);
+		restarted.setStorageFile(storageFile);
+		restarted.refresh().get();
+		Assertions.assertEquals(Arrays.asList("32.0.0-jre", "31.1-jre"),
+				restarted.getIndex().searchVersions("com.google.guava", "guava", "3", 2));
+	}
+
+	private void addPom(String versionPath) throws IOException {
+		Path versionFolder = repository.resolve(versionPath);
+		Files.createDirectories(versionFolder);
+		String artifactId = versionFolder.getParent().getFileName().toString();
+		String version = versionFolder.getFileName().toString();
+		Files.createFile(versionFolder.resolve(artifactId + "-" + version + ".pom"));
+	}
+}
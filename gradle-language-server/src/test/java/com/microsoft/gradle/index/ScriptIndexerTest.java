@@ -0,0 +1,91 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.index;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.eclipse.lsp4j.DocumentSymbol;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ScriptIndexerTest {
+
+	private Path tempDirectory;
+	private Path workspace;
+	private Path buildFile;
+
+	@BeforeEach
+	void setup() throws IOException {
+		tempDirectory = Files.createTempDirectory("script-indexer");
+		workspace = tempDirectory.resolve("workspace");
+		buildFile = workspace.resolve("app").resolve("build.gradle");
+		writeScript(buildFile, "dependencies {\n\timplementation 'org.slf4j:slf4j-api:1.7.30'\n}\n");
+		writeScript(workspace.resolve("settings.gradle"), "include 'app'\n");
+		// build outputs are not indexed
+		writeScript(workspace.resolve("app").resolve("build").resolve("generated.gradle"), "apply plugin: 'java'\n");
+	}
+
+	@AfterEach
+	void cleanup() throws IOException {
+		try (Stream<Path> paths = Files.walk(tempDirectory)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@Test
+	public void testWorkspaceIndex() throws Exception {
+		ScriptIndexer indexer = new ScriptIndexer();
+		indexer.addWorkspaceFolder(workspace).get();
+		Assertions.assertEquals(2, indexer.size());
+		Assertions.assertEquals("dependencies", indexer.getSymbols(buildFile).get(0).getName());
+		List<DocumentSymbol> dependencies = indexer.getDependencies(buildFile);
+		Assertions.assertEquals(1, dependencies.size());
+		Assertions.assertEquals("implementation", dependencies.get(0).getName());
+		Assertions.assertEquals("org.slf4j:slf4j-api:1.7.30", dependencies.get(0).getDetail());
+		writeScript(buildFile, "dependencies {\n\timplementation 'junit:junit:4.13'\n"
+				+ "\ttestImplementation 'org.mockito:mockito-core:3.6.0'\n}\n");
+		// make sure the change is seen even on file systems with a coarse clock
+		Files.setLastModifiedTime(buildFile, FileTime.fromMillis(System.currentTimeMillis() + 10000));
+		indexer.scriptChanged(buildFile).get();
+		Assertions.assertEquals(2, indexer.getDependencies(buildFile).size());
+		Files.delete(buildFile);
+		indexer.scriptDeleted(buildFile);
+		Assertions.assertNull(indexer.getSymbols(buildFile));
+		indexer.close();
+	}
+
+	@Test
+	public void testPersistedIndex() throws Exception {
+		Path storageFile = tempDirectory.resolve("storage").resolve("gradle-scripts.index");
+		ScriptIndexer indexer = new ScriptIndexer();
+		indexer.setStorageFile(storageFile);
+		indexer.addWorkspaceFolder(workspace).get();
+		indexer.close();
+		Assertions.assertTrue(Files.isRegularFile(storageFile));
+		Files.delete(workspace.resolve("settings.gradle"));
+		ScriptIndexer restartedIndexer = new ScriptIndexer();
+		restartedIndexer.setStorageFile(storageFile);
+		restartedIndexer.addWorkspaceFolder(workspace).get();
+		// deleted scripts are dropped from the persisted entries
+		Assertions.assertEquals(1, restartedIndexer.size());
+		List<String> details = restartedIndexer.getDependencies(buildFile).stream().map(DocumentSymbol::getDetail)
+				.collect(Collectors.toList());
+		Assertions.assertEquals(List.of("org.slf4j:slf4j-api:1.7.30"), details);
+		restartedIndexer.close();
+	}
+
+	private static void writeScript(Path path, String content) throws IOException {
+		Files.createDirectories(path.getParent());
+		Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+	}
+}
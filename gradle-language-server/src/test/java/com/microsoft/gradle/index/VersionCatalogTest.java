@@ -0,0 +1,101 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.index;
+
+import com.microsoft.gradle.index.VersionCatalog.Entry;
+import com.microsoft.gradle.index.VersionCatalog.Kind;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class VersionCatalogTest {
+
+	private static String CATALOG = String.join("\n",
+			"[versions]",
+			"spring-boot = \"3.1.0\"",
+			"junit = { strictly = \"5.9.0\" } # rich version",
+			"",
+			"[libraries]",
+			"spring-boot-starter = { module = \"org.springframework.boot:spring-boot-starter\","
+					+ " version.ref = \"spring-boot\" }",
+			"spring-boot-starter-web = { group = \"org.springframework.boot\", name = \"spring-boot-starter-web\","
+					+ " version.ref = \"spring-boot\" }",
+			"junit-jupiter = { module = \"org.junit.jupiter:junit-jupiter\", version.ref = \"junit\" }",
+			"guava = \"com.google.guava:guava:32.1.1-jre\"",
+			"",
+			"[bundles]",
+			"spring = [",
+			"    \"spring-boot-starter\",",
+			"    \"spring-boot-starter-web\",",
+			"]",
+			"",
+			"[plugins]",
+			"spring-boot = { id = \"org.springframework.boot\", version.ref = \"spring-boot\" }",
+			"");
+
+	@Test
+	public void testResolve() {
+		VersionCatalog catalog = VersionCatalog.parse("libs", CATALOG);
+		Assertions.assertEquals(8, catalog.size());
+		Entry starter = catalog.resolve("libs.spring.boot.starter");
+		Assertions.assertEquals(Kind.LIBRARY, starter.getKind());
+		Assertions.assertEquals("org.springframework.boot:spring-boot-starter:3.1.0", starter.getDetail());
+		Assertions.assertEquals("org.springframework.boot:spring-boot-starter-web",
+				catalog.resolve("libs.spring.boot.starter.web").getModule());
+		Assertions.assertEquals("5.9.0", catalog.resolve("libs.junit.jupiter").getVersion());
+		Assertions.assertEquals("32.1.1-jre", catalog.resolve("libs.guava").getVersion());
+		Assertions.assertEquals("3.1.0", catalog.resolve("libs.versions.spring.boot").getVersion());
+		Entry plugin = catalog.resolve("libs.plugins.spring.boot");
+		Assertions.assertEquals("org.springframework.boot:3.1.0", plugin.getDetail());
+		Assertions.assertEquals(Arrays.asList("spring-boot-starter", "spring-boot-starter-web"),
+				catalog.resolve("libs.bundles.spring").getLibraries());
+		Assertions.assertNull(catalog.resolve("libs.spring"));
+	}
+
+	@Test
+	public void testSearch() {
+		VersionCatalog catalog = VersionCatalog.parse("libs", CATALOG);
+		List<String> accessors = catalog.search("libs.spring.", 10).stream().map(Entry::getAccessor)
+				.collect(Collectors.toList());
+		Assertions.assertEquals(Arrays.asList("libs.spring.boot.starter", "libs.spring.boot.starter.web"), accessors);
+		// libraries come first
+		Assertions.assertEquals("libs.guava", catalog.search("libs.", 10).get(0).getAccessor());
+		Assertions.assertEquals(8, catalog.search("libs.", 10).size());
+	}
+
+	@Test
+	public void testCatalogChanged() throws IOException {
+		Path workspace = Files.createTempDirectory("version-catalog");
+		try {
+			Path catalogFile = workspace.resolve("gradle").resolve("libs.versions.toml");
+			Files.createDirectories(catalogFile.getParent());
+			Files.write(catalogFile, CATALOG.getBytes(StandardCharsets.UTF_8));
+			Path script = workspace.resolve("app").resolve("build.gradle");
+			VersionCatalogIndexer indexer = new VersionCatalogIndexer();
+			indexer.addWorkspaceFolder(workspace);
+			List<VersionCatalog> catalogs = indexer.getCatalogs(script);
+			Assertions.assertEquals(1, catalogs.size());
+			Assertions.assertEquals("libs", catalogs.get(0).getName());
+			// the catalog is parsed once
+			Assertions.assertSame(catalogs, indexer.getCatalogs(script));
+			Files.write(catalogFile, "[libraries]\nguava = \"com.google.guava:guava:33.0.0-jre\"\n"
+					.getBytes(StandardCharsets.UTF_8));
+			indexer.catalogChanged(catalogFile);
+			Entry guava = indexer.getCatalogs(script).get(0).resolve("libs.guava");
+			Assertions.assertEquals("33.0.0-jre", guava.getVersion());
+		} finally {
+			try (Stream<Path> paths = Files.walk(workspace)) {
+				paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+			}
+		}
+	}
+}
@@ -0,0 +1,105 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.kotlin;
+
+import com.microsoft.gradle.compile.CompletionVisitor.DependencyItem;
+import java.util.List;
+import org.eclipse.lsp4j.DocumentSymbol;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.SymbolKind;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class KotlinScriptTest {
+
+	private static String SCRIPT = String.join("\n",
+			"import org.gradle.api.tasks.testing.logging.TestExceptionFormat",
+			"",
+			"plugins {",
+			"    `java-library`",
+			"    id(\"org.springframework.boot\") version \"3.1.0\"",
+			"    kotlin(\"jvm\")",
+			"}",
+			"",
+			"version = \"1.0\"",
+			"val junitVersion: String by project",
+			"",
+			"dependencies {",
+			"    // the platform",
+			"    implementation(platform(\"org.junit:junit-bom:5.9.0\"))",
+			"    testImplementation(\"org.junit.jupiter:junit-jupiter\")",
+			"    compileOnly(group = \"org.projectlombok\", name = \"lombok\", version = \"1.18.26\")",
+			"}",
+			"",
+			"tasks.named<Test>(\"test\") {",
+			"    useJUnitPlatform()",
+			"    testLogging { events(\"failed\") }",
+			"}",
+			"");
+
+	@Test
+	public void testDocumentSymbols() {
+		KotlinScript script = KotlinScript.parse(SCRIPT);
+		List<DocumentSymbol> symbols = script.getDocumentSymbols();
+		Assertions.assertEquals(5, symbols.size());
+		Assertions.assertEquals("plugins", symbols.get(0).getName());
+		Assertions.assertEquals(new Range(new Position(2, 0), new Position(6, 1)), symbols.get(0).getRange());
+		Assertions.assertEquals("version", symbols.get(1).getName());
+		Assertions.assertEquals(SymbolKind.Property, symbols.get(1).getKind());
+		Assertions.assertEquals("1.0", symbols.get(1).getDetail());
+		Assertions.assertEquals("junitVersion", symbols.get(2).getName());
+		Assertions.assertEquals("dependencies", symbols.get(3).getName());
+		Assertions.assertEquals("tasks.named", symbols.get(4).getName());
+		Assertions.assertEquals(SymbolKind.Function, symbols.get(4).getKind());
+		Assertions.assertEquals("test", symbols.get(4).getDetail());
+	}
+
+	@Test
+	public void testDependencies() {
+		KotlinScript script = KotlinScript.parse(SCRIPT);
+		List<DocumentSymbol> dependencies = script.getDependencies();
+		Assertions.assertEquals(3, dependencies.size());
+		Assertions.assertEquals("implementation", dependencies.get(0).getName());
+		Assertions.assertEquals("org.junit:junit-bom:5.9.0", dependencies.get(0).getDetail());
+		Assertions.assertEquals("org.junit.jupiter:junit-jupiter", dependencies.get(1).getDetail());
+		Assertions.assertEquals("org.projectlombok:lombok:1.18.26", dependencies.get(2).getDetail());
+		List<DependencyItem> items = script.getDependencyItems();
+		Assertions.assertEquals(2, items.size());
+		// the range of the string content, without its quotes
+		Assertions.assertEquals(new Range(new Position(13, 29), new Position(13, 54)), items.get(0).getRange());
+		Assertions.assertEquals("org.junit.jupiter:junit-jupiter", items.get(1).getText());
+	}
+
+	@Test
+	public void testContainingCall() {
+		KotlinScript script = KotlinScript.parse(SCRIPT);
+		Assertions.assertNull(script.getContainingCall(new Position(7, 0)));
+		Assertions.assertEquals("dependencies", script.getContainingCall(new Position(12, 4)).getMethodName());
+		Assertions.assertEquals("named", script.getContainingCall(new Position(19, 4)).getMethodName());
+		Assertions.assertEquals("testLogging", script.getContainingCall(new Position(20, 18)).getMethodName());
+		Assertions.assertTrue(script.isInString(new Position(8, 12)));
+		Assertions.assertFalse(script.isInString(new Position(8, 2)));
+	}
+
+	@Test
+	public void testPlugins() {
+		KotlinScript script = KotlinScript.parse(SCRIPT);
+		Assertions.assertTrue(script.getPlugins().contains("java-library"));
+		Assertions.assertTrue(script.getPlugins().contains("org.springframework.boot"));
+		Assertions.assertTrue(script.getPlugins().contains("org.jetbrains.kotlin.jvm"));
+		Assertions.assertTrue(KotlinScript.parse("apply(plugin = \"java\")\n").getPlugins().contains("java"));
+	}
+
+	@Test
+	public void testIncompleteScript() {
+		KotlinScript script = KotlinScript.parse("dependencies {\n    implementation(\"org.\n}\ntasks {\n");
+		Assertions.assertEquals(2, script.getStatements().size());
+		List<DependencyItem> items = script.getDependencyItems();
+		Assertions.assertEquals(1, items.size());
+		Assertions.assertEquals("org.", items.get(0).getText());
+		Assertions.assertEquals("dependencies", script.getContainingCall(new Position(1, 2)).getMethodName());
+		Assertions.assertEquals("tasks", script.getContainingCall(new Position(4, 0)).getMethodName());
+	}
+}
@@ -0,0 +1,79 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.manager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.eclipse.lsp4j.Diagnostic;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.PublishDiagnosticsParams;
+import org.eclipse.lsp4j.Range;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class DiagnosticsAggregatorTest {
+
+	private static String FIRST_URI = "file:///project/build.gradle";
+	private static String SECOND_URI = "file:///project/settings.gradle";
+
+	private final List<PublishDiagnosticsParams> published = Collections.synchronizedList(new ArrayList<>());
+
+	@Test
+	public void testBatch() throws Exception {
+		DiagnosticsAggregator aggregator = new DiagnosticsAggregator(published::add);
+		aggregator.publishLater(createDiagnostics(FIRST_URI, "first"));
+		aggregator.publishLater(createDiagnostics(SECOND_URI, "second"));
+		aggregator.publishLater(createDiagnostics(FIRST_URI, "third"));
+		Assertions.assertTrue(published.isEmpty());
+		waitForBatch(2);
+		// only the last diagnostics of a document are sent
+		Assertions.assertEquals(Arrays.asList(createDiagnostics(FIRST_URI, "third"),
+				createDiagnostics(SECOND_URI, "second")), published);
+	}
+
+	@Test
+	public void testDuplicates() throws Exception {
+		DiagnosticsAggregator aggregator = new DiagnosticsAggregator(published::add);
+		aggregator.publish(createDiagnostics(FIRST_URI, "first"));
+		aggregator.publish(createDiagnostics(FIRST_URI, "first"));
+		Assertions.assertEquals(1, published.size());
+		aggregator.publishLater(createDiagnostics(FIRST_URI, "first"));
+		aggregator.publishLater(createDiagnostics(SECOND_URI, "second"));
+		waitForBatch(2);
+		Assertions.assertEquals(createDiagnostics(SECOND_URI, "second"), published.get(1));
+		// a reopened document gets its diagnostics again
+		aggregator.remove(FIRST_URI);
+		aggregator.publish(createDiagnostics(FIRST_URI, "first"));
+		Assertions.assertEquals(3, published.size());
+	}
+
+	@Test
+	public void testPublishReplacesPending() throws Exception {
+		DiagnosticsAggregator aggregator = new DiagnosticsAggregator(published::add);
+		aggregator.publishLater(createDiagnostics(FIRST_URI, "semantic"));
+		aggregator.publish(createDiagnostics(FIRST_URI, "syntax"));
+		aggregator.publishLater(createDiagnostics(SECOND_URI, "second"));
+		waitForBatch(2);
+		Assertions.assertEquals(Arrays.asList(createDiagnostics(FIRST_URI, "syntax"),
+				createDiagnostics(SECOND_URI, "second")), published);
+	}
+
+	private void waitForBatch(int size) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (published.size() < size) {
+			Assertions.assertTrue(System.currentTimeMillis() < deadline, "The batch is not sent.");
+			Thread.sleep(10);
+		}
+		// nothing else is sent with the batch
+		Thread.sleep(100);
+		Assertions.assertEquals(size, published.size());
+	}
+
+	private static PublishDiagnosticsParams createDiagnostics(String uri, String message) {
+		Range range = new Range(new Position(0, 0), new Position(0, 1));
+		return new PublishDiagnosticsParams(uri, Arrays.asList(new Diagnostic(range, message)));
+	}
+}
@@ -0,0 +1,49 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.manager;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class DocumentCacheTest {
+
+	private static URI FIRST_URI = URI.create("file:///project/build.gradle");
+	private static URI SECOND_URI = URI.create("file:///project/settings.gradle");
+	private static URI THIRD_URI = URI.create("file:///project/app/build.gradle");
+
+	@Test
+	public void testEvictLeastRecentlyUsed() {
+		List<URI> evicted = new ArrayList<>();
+		DocumentCache cache = new DocumentCache(evicted::add);
+		cache.setLimit(250);
+		cache.put(FIRST_URI, 100);
+		cache.put(SECOND_URI, 100);
+		cache.touch(FIRST_URI);
+		cache.put(THIRD_URI, 100);
+		Assertions.assertEquals(Arrays.asList(SECOND_URI), evicted);
+		Assertions.assertEquals(200, cache.getTotalSize());
+		// a new syntax tree replaces the size of the previous one
+		cache.put(FIRST_URI, 50);
+		Assertions.assertEquals(150, cache.getTotalSize());
+		cache.remove(THIRD_URI);
+		Assertions.assertEquals(50, cache.getTotalSize());
+		Assertions.assertFalse(cache.contains(THIRD_URI));
+	}
+
+	@Test
+	public void testKeepMostRecentlyUsed() {
+		List<URI> evicted = new ArrayList<>();
+		DocumentCache cache = new DocumentCache(evicted::add);
+		cache.put(FIRST_URI, 100);
+		cache.put(SECOND_URI, 100);
+		cache.setLimit(10);
+		Assertions.assertEquals(Arrays.asList(FIRST_URI), evicted);
+		Assertions.assertTrue(cache.contains(SECOND_URI));
+		Assertions.assertEquals(100, cache.getTotalSize());
+	}
+}
@@ -0,0 +1,76 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.manager;
+
+import com.microsoft.gradle.compile.GradleCompilationUnit;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class GradleFilesManagerTest {
+
+	private static Path WORKSPACE = Paths.get(System.getProperty("java.io.tmpdir"), "files-manager").toAbsolutePath();
+
+	@Test
+	public void testSetScriptClasspaths() {
+		GradleFilesManager manager = new GradleFilesManager();
+		Path app = WORKSPACE.resolve("app");
+		Path lib = WORKSPACE.resolve("lib");
+		URI build = app.resolve("build.gradle").toUri();
+		URI settings = app.resolve("settings.gradle").toUri();
+		URI kotlinBuild = lib.resolve("build.gradle.kts").toUri();
+		manager.didOpen(build, "");
+		manager.didOpen(settings, "");
+		manager.didOpen(kotlinBuild, "");
+		Assertions.assertEquals(new HashSet<>(Arrays.asList(build, settings)),
+				manager.setScriptClasspaths(app.toString(), Arrays.asList("first.jar")));
+		// the same classpath does not change the compilation
+		Assertions.assertEquals(Collections.emptySet(),
+				manager.setScriptClasspaths(app.toString(), Arrays.asList("first.jar")));
+		// nor does the classpath of another project
+		Assertions.assertEquals(Collections.emptySet(),
+				manager.setScriptClasspaths(lib.toString(), Arrays.asList("first.jar")));
+		manager.didClose(settings);
+		Assertions.assertEquals(Collections.singleton(build),
+				manager.setScriptClasspaths(app.toString(), Arrays.asList("first.jar", "second.jar")));
+		manager.didClose(build);
+		Assertions.assertEquals(Collections.emptySet(),
+				manager.setScriptClasspaths(app.toString(), Arrays.asList("first.jar")));
+	}
+
+	@Test
+	public void testEvictedUnits() {
+		GradleFilesManager manager = new GradleFilesManager();
+		List<URI> evicted = new ArrayList<>();
+		manager.setEvictionListener(evicted::add);
+		// room for a single syntax tree
+		manager.setDocumentCacheSize(1);
+		URI build = WORKSPACE.resolve("app").resolve("build.gradle").toUri();
+		URI settings = WORKSPACE.resolve("settings.gradle").toUri();
+		manager.didOpen(build, "plugins {\n    id 'java'\n}\n");
+		manager.didOpen(settings, "include 'app'\n");
+		manager.setCompilationUnit(build, manager.getCompilationUnit(build, 1, false));
+		manager.setCompilationUnit(settings, manager.getCompilationUnit(settings, 2, false));
+		Assertions.assertEquals(Arrays.asList(build), evicted);
+		Assertions.assertFalse(manager.getUnitStorage().containsKey(build));
+		// its version is known without parsing it again
+		Assertions.assertEquals(1, (int) manager.getPublishedVersion(build));
+		Assertions.assertFalse(manager.getUnitStorage().containsKey(build));
+		// the evicted document is parsed again on its next request
+		GradleCompilationUnit unit = manager.getCompilationUnit(build);
+		Assertions.assertEquals(1, (int) unit.getVersion());
+		Assertions.assertNotNull(unit.iterator().next().getAST());
+		Assertions.assertEquals(Arrays.asList(build, settings), evicted);
+		manager.didClose(build);
+		Assertions.assertNull(manager.getCompilationUnit(build));
+		Assertions.assertNull(manager.getPublishedVersion(build));
+	}
+}
@@ -0,0 +1,72 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.manager;
+
+import com.microsoft.gradle.compile.GradleCompilationUnit;
+import java.net.URI;
+import java.util.List;
+import org.codehaus.groovy.ast.stmt.Statement;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class IncrementalParserTest {
+
+	private static URI SCRIPT_URI = URI.create("file:///workspace/build.gradle");
+	private static String SCRIPT = "plugins {\n  id 'java'\n}\n\ndependencies {\n  implementation 'a:b:1.0'\n}\n";
+
+	@Test
+	public void testReuseUnchangedStatements() {
+		IncrementalParser parser = new IncrementalParser();
+		List<Statement> statements = parse(parser, SCRIPT, 1);
+		Assertions.assertEquals(2, statements.size());
+		Assertions.assertEquals(5, statements.get(1).getLineNumber());
+		List<Statement> changedStatements = parse(parser, SCRIPT.replace("1.0", "2.0"), 2);
+		Assertions.assertEquals(2, changedStatements.size());
+		Assertions.assertSame(statements.get(0), changedStatements.get(0));
+		Assertions.assertNotSame(statements.get(1), changedStatements.get(1));
+		Assertions.assertEquals(5, changedStatements.get(1).getLineNumber());
+	}
+
+	@Test
+	public void testKeepLastGoodStatements() {
+		IncrementalParser parser = new IncrementalParser();
+		List<Statement> statements = parse(parser, SCRIPT, 1);
+		GradleCompilationUnit unit = parser.parse(SCRIPT_URI, SCRIPT.replace("'a:b:1.0'", "'a:b:1.0"),
+				new CompilerConfiguration(), 2);
+		Assertions.assertTrue(unit.getErrorCollector().hasErrors());
+		// the broken dependencies block keeps its last good syntax tree
+		List<Statement> brokenStatements = getStatements(unit);
+		Assertions.assertEquals(2, brokenStatements.size());
+		Assertions.assertSame(statements.get(1), brokenStatements.get(1));
+		// the errors are kept while other statements change
+		unit = parser.parse(SCRIPT_URI, SCRIPT.replace("'java'", "'groovy'").replace("'a:b:1.0'", "'a:b:1.0"),
+				new CompilerConfiguration(), 3);
+		Assertions.assertTrue(unit.getErrorCollector().hasErrors());
+		Assertions.assertSame(statements.get(1), getStatements(unit).get(1));
+		List<Statement> fixedStatements = parse(parser, SCRIPT, 4);
+		Assertions.assertEquals(2, fixedStatements.size());
+		Assertions.assertNotSame(statements.get(1), fixedStatements.get(1));
+	}
+
+	@Test
+	public void testContinuedStatements() {
+		IncrementalParser parser = new IncrementalParser();
+		String continued = "def version =\n  '1.0'\ntask hello {\n}\n.configure {\n}\n";
+		Assertions.assertEquals(2, parse(parser, continued, 1).size());
+		// statements split at the wrong line parse as a whole
+		Assertions.assertEquals(1, parse(parser, "def sum = 1 +\n// comment\n2\n", 2).size());
+		Assertions.assertEquals(2, parse(parser, "def text = '''\n}\n'''\nprintln text\n", 3).size());
+	}
+
+	private static List<Statement> parse(IncrementalParser parser, String content, int version) {
+		GradleCompilationUnit unit = parser.parse(SCRIPT_URI, content, new CompilerConfiguration(), version);
+		Assertions.assertFalse(unit.getErrorCollector().hasErrors());
+		return getStatements(unit);
+	}
+
+	private static List<Statement> getStatements(GradleCompilationUnit unit) {
+		return unit.iterator().next().getAST().getStatementBlock().getStatements();
+	}
+}
@@ -0,0 +1,160 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.resolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class GradleClassIndexTest {
+
+	public static abstract class Fixture implements Runnable {
+		public static final String COMPILE_CONFIGURATION_NAME = "compile";
+
+		@Deprecated
+		public void oldMethod(String text) {
+		}
+
+		public abstract Object getValue();
+
+		private void hiddenMethod() {
+		}
+	}
+
+	private Path tempDirectory;
+	private Path jar;
+
+	@BeforeEach
+	void setup() throws IOException {
+		tempDirectory = Files.createTempDirectory("gradle-class-index");
+		jar = tempDirectory.resolve("gradle-core-api.jar");
+		try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(jar))) {
+			addClass(output, Fixture.class, ZipEntry.DEFLATED);
+			addClass(output, GradleField.class, ZipEntry.STORED);
+			output.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+			output.closeEntry();
+		}
+	}
+
+	@AfterEach
+	void cleanup() throws IOException {
+		try (Stream<Path> paths = Files.walk(tempDirectory)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@Test
+	public void testLazyClassIndex() throws Exception {
+		GradleClassIndex index = GradleClassIndex.open(Arrays.asList(jar));
+		Assertions.assertEquals(2, index.size());
+		Assertions.assertTrue(index.contains(Fixture.class.getName()));
+		Assertions.assertNull(index.get("org.gradle.api.Project"));
+		GradleClass fixture = index.get(Fixture.class.getName());
+		Assertions.assertSame(fixture, index.get(Fixture.class.getName()));
+		Assertions.assertEquals("java.lang.Object", fixture.superclassName);
+		Assertions.assertArrayEquals(new String[]{"java.lang.Runnable"}, fixture.interfaceNames);
+		Assertions.assertEquals("compile", fixture.fields[0].constantValue);
+		GradleMethod oldMethod = findMethod(fixture, "oldMethod");
+		Assertions.assertTrue(oldMethod.deprecated);
+		Assertions.assertArrayEquals(new String[]{"java.lang.String"}, oldMethod.parameterTypes);
+		Assertions.assertTrue(Modifier.isAbstract(findMethod(fixture, "getValue").modifiers));
+		// only public members are kept
+		Assertions.assertNull(findMethod(fixture, "hiddenMethod"));
+		Assertions.assertNull(findMethod(fixture, "<init>"));
+		GradleClass field = index.get(GradleField.class.getName());
+		Assertions.assertEquals(3, field.fields.length);
+	}
+
+	@Test
+	public void testPersistedCache() throws Exception {
+		Path cacheFolder = tempDirectory.resolve("cache");
+		GradleClassIndex index = GradleClassIndex.open(Arrays.asList(jar), cacheFolder);
+		Assertions.assertFalse(index.isCached());
+		index.getCacheWriter().get();
+		GradleClassIndex cachedIndex = GradleClassIndex.open(Arrays.asList(jar), cacheFolder);
+		Assertions.assertTrue(cachedIndex.isCached());
+		Assertions.assertEquals(2, cachedIndex.size());
+		GradleClass fixture = cachedIndex.get(Fixture.class.getName());
+		Assertions.assertArrayEquals(new String[]{"java.lang.Runnable"}, fixture.interfaceNames);
+		Assertions.assertEquals("compile", fixture.fields[0].constantValue);
+		Assertions.assertTrue(findMethod(fixture, "oldMethod").deprecated);
+		Assertions.assertTrue(Modifier.isAbstract(findMethod(fixture, "getValue").modifiers));
+	}
+
+	@Test
+	public void testCacheFile() throws Exception {
+		Path cacheFile = tempDirectory.resolve("classes.cache");
+		GradleClass gradleClass = new GradleClass("org.gradle.api.Project", "java.lang.Object",
+				new String[]{"org.gradle.api.plugins.ExtensionAware"},
+				new GradleMethod[]{new GradleMethod("apply", new String[]{"java.util.Map"}, false, Modifier.PUBLIC)},
+				new GradleField[]{new GradleField("DEFAULT_BUILD_FILE", true, "build.gradle")});
+		GradleClassCache.write(cacheFile, "key", Arrays.asList(gradleClass));
+		Map<String, Long> entries = new HashMap<>();
+		Assertions.assertNull(GradleClassCache.open(cacheFile, "other key", entries));
+		GradleClassCache cache = GradleClassCache.open(cacheFile, "key", entries);
+		GradleClass cachedClass = cache.read("org.gradle.api.Project", entries.get("org.gradle.api.Project"));
+		Assertions.assertEquals("java.lang.Object", cachedClass.superclassName);
+		Assertions.assertArrayEquals(gradleClass.interfaceNames, cachedClass.interfaceNames);
+		Assertions.assertEquals("apply", cachedClass.methods[0].name);
+		Assertions.assertArrayEquals(new String[]{"java.util.Map"}, cachedClass.methods[0].parameterTypes);
+		Assertions.assertEquals(Modifier.PUBLIC, cachedClass.methods[0].modifiers);
+		Assertions.assertTrue(cachedClass.fields[0].deprecated);
+		Assertions.assertEquals("build.gradle", cachedClass.fields[0].constantValue);
+	}
+
+	@Test
+	public void testSharedIndex() throws Exception {
+		GradleClassIndexCache cache = new GradleClassIndexCache();
+		GradleClassIndex index = cache.acquire(Arrays.asList(jar), null);
+		Assertions.assertSame(index, cache.acquire(Arrays.asList(jar), null));
+		Assertions.assertEquals(1, cache.size());
+		cache.release(index);
+		Assertions.assertEquals(1, cache.size());
+		cache.release(index);
+		Assertions.assertEquals(0, cache.size());
+		Assertions.assertNotSame(index, cache.acquire(Arrays.asList(jar), null));
+	}
+
+	private static GradleMethod findMethod(GradleClass gradleClass, String name) {
+		for (GradleMethod method : gradleClass.methods) {
+			if (method.name.equals(name)) {
+				return method;
+			}
+		}
+		return null;
+	}
+
+	private static void addClass(ZipOutputStream output, Class<?> clazz, int method) throws IOException {
+		String name = clazz.getName().replace('.', '/') + ".class";
+		byte[] content;
+		try (InputStream input = clazz.getClassLoader().getResourceAsStream(name)) {
+			content = input.readAllBytes();
+		}
+		ZipEntry entry = new ZipEntry(name);
+		entry.setMethod(method);
+		if (method == ZipEntry.STORED) {
+			CRC32 crc = new CRC32();
+			crc.update(content);
+			entry.setSize(content.length);
+			entry.setCrc(crc.getValue());
+		}
+		output.putNextEntry(entry);
+		output.write(content);
+		output.closeEntry();
+	}
+}
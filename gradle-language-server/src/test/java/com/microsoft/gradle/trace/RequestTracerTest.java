@@ -0,0 +1,74 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RequestTracerTest {
+
+	@Test
+	public void testBuckets() {
+		for (long value : new long[]{0, 1, 7, 8, 15, 16, 31, 1000, 123456789, Long.MAX_VALUE}) {
+			int index = LatencyHistogram.getIndex(value);
+			Assertions.assertTrue(LatencyHistogram.getLowestValue(index) <= value, String.valueOf(value));
+			Assertions.assertTrue(LatencyHistogram.getHighestValue(index) >= value, String.valueOf(value));
+			// the buckets are at most 12.5% wide
+			Assertions.assertTrue(
+					LatencyHistogram.getHighestValue(index) - LatencyHistogram.getLowestValue(index) <= value / 8,
+					String.valueOf(value));
+		}
+	}
+
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 100; i++) {
+			// 1 to 100 ms
+			histogram.record(i * 1_000_000L);
+		}
+		Assertions.assertEquals(100, histogram.getCount());
+		Assertions.assertEquals(100_000, histogram.getMaxMicros());
+		Assertions.assertEquals(50_500, histogram.getMeanMicros(), 0.001);
+		assertClose(50_000, histogram.getPercentileMicros(50));
+		assertClose(99_000, histogram.getPercentileMicros(99));
+		Assertions.assertEquals(100_000, histogram.getPercentileMicros(100));
+		Assertions.assertEquals(0, new LatencyHistogram().getPercentileMicros(99));
+	}
+
+	@Test
+	public void testTrace() throws Exception {
+		List<String> logs = new ArrayList<>();
+		RequestTracer tracer = new RequestTracer(logs::add);
+		RequestTracer.Trace trace = tracer.start("textDocument/completion", "file:///build.gradle");
+		trace.phase("visit");
+		trace.phase("handlers");
+		trace.close();
+		// a trace is recorded once
+		trace.close();
+		Map<String, Map<String, Object>> stats = tracer.getStats();
+		Assertions.assertEquals(1L, stats.get("textDocument/completion").get("count"));
+		Assertions.assertEquals(1L, stats.get("textDocument/completion:visit").get("count"));
+		Assertions.assertEquals(1L, stats.get("textDocument/completion:handlers").get("count"));
+		Assertions.assertTrue(logs.isEmpty());
+
+		tracer.setSlowRequestThreshold(1);
+		trace = tracer.start("textDocument/completion", "file:///build.gradle");
+		Thread.sleep(5);
+		trace.phase("loadGradleClasses");
+		trace.close();
+		Assertions.assertEquals(2, tracer.getHistogram("textDocument/completion").getCount());
+		Assertions.assertEquals(1, logs.size());
+		Assertions.assertTrue(logs.get(0).startsWith("Slow request: {\"request\":\"textDocument/completion\","
+				+ "\"uri\":\"file:///build.gradle\",\"duration\":"), logs.get(0));
+		Assertions.assertTrue(logs.get(0).contains("\"phases\":{\"loadGradleClasses\":"), logs.get(0));
+	}
+
+	private static void assertClose(long expected, long actual) {
+		Assertions.assertTrue(Math.abs(expected - actual) <= expected / 8, expected + " != " + actual);
+	}
+}
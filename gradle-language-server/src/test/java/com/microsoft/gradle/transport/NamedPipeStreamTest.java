@@ -0,0 +1,114 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT license.
+
+package com.microsoft.gradle.transport;
+
+import com.microsoft.gradle.transport.NamedPipeStream.NamedPipeInputStream;
+import com.microsoft.gradle.transport.NamedPipeStream.NamedPipeOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+@DisabledOnOs(OS.WINDOWS)
+public class NamedPipeStreamTest {
+
+	private Path tempDirectory;
+	private ServerSocketChannel server;
+	private SocketChannel client;
+	private SocketChannel accepted;
+
+	@BeforeEach
+	void setup() throws IOException {
+		tempDirectory = Files.createTempDirectory("named-pipe");
+		UnixDomainSocketAddress address = UnixDomainSocketAddress.of(tempDirectory.resolve("pipe.sock"));
+		server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		server.bind(address);
+		client = SocketChannel.open(StandardProtocolFamily.UNIX);
+		client.connect(address);
+		accepted = server.accept();
+	}
+
+	@AfterEach
+	void cleanup() throws IOException {
+		accepted.close();
+		client.close();
+		server.close();
+		Files.deleteIfExists(tempDirectory.resolve("pipe.sock"));
+		Files.deleteIfExists(tempDirectory);
+	}
+
+	@Test
+	public void testMessages() throws Exception {
+		OutputStream output = new NamedPipeOutputStream(client, 64);
+		InputStream input = new NamedPipeInputStream(accepted, 64);
+		byte[][] bodies = {createBody(10), createBody(60), createBody(100), createBody(100000)};
+		CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+			try {
+				for (byte[] body : bodies) {
+					// written the way lsp4j writes its messages
+					output.write(("Content-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+					output.write(body);
+					output.flush();
+				}
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		for (byte[] body : bodies) {
+			Assertions.assertArrayEquals(body, readMessage(input));
+		}
+		writer.get();
+		client.close();
+		Assertions.assertEquals(-1, input.read());
+	}
+
+	/**
+	 * Reads a message the way lsp4j reads it, the header byte by byte and the
+	 * body in bulk.
+	 */
+	private static byte[] readMessage(InputStream input) throws IOException {
+		StringBuilder header = new StringBuilder();
+		while (!header.toString().endsWith("\r\n\r\n")) {
+			int c = input.read();
+			if (c == -1) {
+				throw new IOException("Unexpected end of stream");
+			}
+			header.append((char) c);
+		}
+		int length = Integer.parseInt(header.toString().trim().substring("Content-Length: ".length()));
+		byte[] body = new byte[length];
+		int offset = 0;
+		while (offset < length) {
+			int read = input.read(body, offset, length - offset);
+			if (read == -1) {
+				throw new IOException("Unexpected end of stream");
+			}
+			offset += read;
+		}
+		return body;
+	}
+
+	private static byte[] createBody(int length) {
+		byte[] body = new byte[length];
+		Arrays.fill(body, (byte) 'x');
+		for (int i = 0; i < length; i += 7) {
+			body[i] = (byte) ('a' + i % 26);
+		}
+		return body;
+	}
+}